@@ -280,11 +280,11 @@ public class SANY {
       // so that is A depends on B, then B has a lower index in the
       // Vector than A.
       for (int i = 0; i < spec.semanticAnalysisVector.size(); i++) {
-        moduleStringName = (String)spec.semanticAnalysisVector.elementAt(i);  
+        moduleStringName = spec.semanticAnalysisVector.elementAt(i);  
 
         // if semantic analysis has not already been done on this module
         if (externalModuleTable.getContext( UniqueString.uniqueStringOf( moduleStringName)) == null ) {
-          parseUnit = (ParseUnit)spec.parseUnitContext.get(moduleStringName);;
+          parseUnit = spec.parseUnitContext.get(moduleStringName);
       
           // get reference to the syntax tree for the module
           syntaxTreeRoot = parseUnit.getParseTree();
@@ -41,10 +41,10 @@ public class SpecObj
     // it includes ModuleNode's for the root module, and for all modules
     // that it depends on directly or indirectly by EXTENDS or INSTANCE
 
-    public Vector semanticAnalysisVector = new Vector();
-    // Stack of units parsed, in the order in which semantic analysis
-    // must be done, i.e. if MODULE A references B, A is lower
-    // on the stack. The same module name can occur multiple times.
+    public Vector<String> semanticAnalysisVector = new Vector<String>();
+    // Names of the units parsed, in the order in which semantic analysis
+    // must be done, i.e. if MODULE A references B, B comes before A.
+    // Each module name occurs exactly once.
 
     public Hashtable<String, ParseUnit> parseUnitContext = new Hashtable<String, ParseUnit>();
     // Holds all known ParseUnit objects, i.e external, top-level
@@ -340,6 +340,16 @@ public class SpecObj
     // Vector than B.
     private void calculateDependencies(ParseUnit currentParseUnit)
     {
+        // A ParseUnit is only put in the Vector after all of its extendees
+        // and instancees, so there is nothing left to do for it. Without
+        // this check, the recursion visits every path of the (acyclic)
+        // module graph, which is exponential in the number of modules of
+        // specs with layered EXTENDS.
+        if (semanticAnalysisVector.contains(currentParseUnit.getName()))
+        {
+            return;
+        }
+
         Vector extendees = currentParseUnit.getExtendees();
         Vector instancees = currentParseUnit.getInstancees();
 
@@ -752,7 +762,7 @@ public class SpecObj
     {
         // The Vector of Modules that equals, or directly or indirectly
         // extends, "module"
-        Vector extenders = new Vector();
+        Vector<ModulePointer> extenders = new Vector<ModulePointer>();
         extenders.addElement(module);
 
         // initializations for the following nested loop
@@ -777,7 +787,12 @@ public class SpecObj
                 {
                     ModulePointer modPointer = (ModulePointer) enumModules.nextElement();
 
-                    if (directlyExtends(modPointer, (ModulePointer) extenders.elementAt(i)))
+                    // A module that is reachable along several EXTENDS paths
+                    // is only added once. Otherwise, each path adds another
+                    // copy whose extenders are searched again, which blows
+                    // up the Vector exponentially for diamond-shaped EXTENDS.
+                    if (directlyExtends(modPointer, extenders.elementAt(i))
+                            && !extenders.contains(modPointer))
                     {
                         if (!additions)
                             lastAdditionsStart = lastAdditionsEnd;
@@ -2,6 +2,8 @@
 // Portions Copyright (c) 2003 Microsoft Corporation.  All rights reserved.
 package tla2sany.semantic;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -31,6 +33,14 @@ public abstract class SymbolNode extends LevelNode {
 
   protected final UniqueString name;    // the name of this symbol
 
+  /**
+   * The slot of this symbol in TLC's lexical environments (tlc2.util.Context),
+   * or -1 if the symbol has never been bound in an environment (e.g. a
+   * top-level definition or a state variable of the root module).
+   */
+  private volatile int contextSlot = -1;
+  private static final AtomicInteger contextSlots = new AtomicInteger();
+
   protected SymbolNode(int kind, TreeNode stn, UniqueString name) {
     super(kind, stn);
     this.name = name;
@@ -47,6 +57,32 @@ public abstract class SymbolNode extends LevelNode {
    */
   public final UniqueString getName() { return this.name; }
 
+  /**
+   * @return The slot of this symbol in TLC's lexical environments or -1 if
+   *         it has not been assigned.
+   * @see #assignContextSlot()
+   */
+  public final int getContextSlot() { return this.contextSlot; }
+
+  /**
+   * Assigns this symbol a slot if it does not have one yet.
+   * 
+   * @return The slot of this symbol in TLC's lexical environments.
+   */
+  public final int assignContextSlot() {
+	  int slot = this.contextSlot;
+	  if (slot < 0) {
+		  synchronized (this) {
+			  slot = this.contextSlot;
+			  if (slot < 0) {
+				  slot = contextSlots.getAndIncrement() & Integer.MAX_VALUE;
+				  this.contextSlot = slot;
+			  }
+		  }
+	  }
+	  return slot;
+  }
+
   /* Returns the arity of the operator named by the symbol.  */
   public abstract int getArity();
 
@@ -198,14 +198,8 @@ public class Sequences extends UserObj implements ValueConstants
         if (len2 == 0)
             return seq1;
         Value[] values = new Value[len1 + len2];
-        for (int i = 0; i < len1; i++)
-        {
-            values[i] = seq1.elems[i];
-        }
-        for (int i = 0; i < len2; i++)
-        {
-            values[i + len1] = seq2.elems[i];
-        }
+        System.arraycopy(seq1.elems, 0, values, 0, len1);
+        System.arraycopy(seq2.elems, 0, values, len1, len2);
         return new TupleValue(values);
     }
 
@@ -1067,6 +1067,9 @@ public class MP
         case EC.TLC_STATS_SIMU:
             b.append("The number of states generated: %1%\nSimulation using seed %2% and aril %3%");
             break;
+        case EC.TLC_STATS_SIMU_DISTINCT:
+            b.append("The estimated number of distinct states found: %1% in %2% seconds of worker CPU time (%3% distinct states per CPU-second)");
+            break;
         case EC.TLC_PROGRESS_STATS:
         	if (parameters.length == 4) {
 				b.append("Progress(%1%) at " + now() + ": %2% states generated, "
@@ -1110,6 +1113,9 @@ public class MP
         case EC.TLC_COVERAGE_VALUE:
             b.append("  %1%: %2%");
             break;
+        case EC.TLC_MEMOIZATION_START:
+            b.append("The memoization statistics (hits:misses) at " + now());
+            break;
         case EC.TLC_COVERAGE_VALUE_COST:
             b.append("  %1%: %2%:%3%");
             break;
@@ -11,6 +11,7 @@ import tlc2.TLCGlobals;
 import tlc2.output.EC;
 import tlc2.output.MP;
 import tlc2.tool.coverage.CostModelCreator;
+import tlc2.tool.impl.OpMemoizer;
 import tlc2.tool.liveness.AddAndCheckLiveCheck;
 import tlc2.tool.liveness.ILiveCheck;
 import tlc2.tool.liveness.LiveCheck;
@@ -173,6 +174,7 @@ public abstract class AbstractChecker
 		{
             CostModelCreator.report(this.tool, this.startTime);
         }
+		OpMemoizer.report(this.tool);
     }
     
     public static final double calculateOptimisticProbability(final long numOfDistinctStates, final long numOfGenStates) {
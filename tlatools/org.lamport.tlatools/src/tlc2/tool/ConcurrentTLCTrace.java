@@ -29,10 +29,16 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import tlc2.TLCGlobals;
 import tlc2.output.EC;
 import tlc2.output.MP;
+import tlc2.util.IdThread;
 import tlc2.util.LongVec;
 import tlc2.value.RandomEnumerableValues;
 
@@ -49,8 +55,23 @@ import tlc2.value.RandomEnumerableValues;
  * trace files.
  */
 public class ConcurrentTLCTrace extends TLCTrace {
+
+	/**
+	 * The number of threads that re-execute the spec's actions when a state of a
+	 * counter-example is reconstructed from its predecessor and its fingerprint.
+	 * With a single thread (the default), the actions are evaluated one after the
+	 * other by the thread that prints the counter-example (see
+	 * {@link TraceApp#getState(long, TLCState)}). Otherwise, all actions are
+	 * evaluated concurrently, which shortens the reconstruction of long traces of
+	 * specs with many (expensive) actions. The number of threads is capped at the
+	 * number of workers.
+	 */
+	private static final int RECONSTRUCTION_THREADS = Integer
+			.getInteger(ConcurrentTLCTrace.class.getName() + ".reconstructionThreads", 1);
 	
 	private final Worker workers[];
+	
+	private ExecutorService executor;
 
 	public ConcurrentTLCTrace(String metadir, String specFile, TraceApp tool) throws IOException {
 		super(metadir, specFile, tool);
@@ -88,14 +109,15 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		}
 		
 		final List<Record> records = new ArrayList<>(state.getLevel());
-		records.add(Record.getRecord(state, this.workers));
 
 		// Starting at the given start fingerprint (which is the end of the
 		// trace from the point of the initial states), the sequence of
 		// predecessors fingerprints are reconstructed from the trace files up to
 		// an initial state.
 		synchronized (this) {
-			Record record = Record.getPredecessor(state, this.workers);
+			final Worker.TraceReader[] readers = getTraceReaders();
+			records.add(Record.getRecord(state, readers));
+			Record record = Record.getPredecessor(state, readers);
 			while (!record.isInitial()) {
 				records.add(record);
 				record = record.getPredecessor();
@@ -114,14 +136,15 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		}
 		
 		final List<Record> records = new ArrayList<>(to.getLevel() - from.getLevel());
-		records.add(Record.getRecord(to, this.workers));
 		
 		// Starting at the given start fingerprint (which is the end of the
 		// trace from the point of the initial states), the sequence of
 		// predecessors fingerprints are reconstructed from the trace files up to
 		// an initial state.
 		synchronized (this) {
-			Record record = Record.getPredecessor(to, this.workers);
+			final Worker.TraceReader[] readers = getTraceReaders();
+			records.add(Record.getRecord(to, readers));
+			Record record = Record.getPredecessor(to, readers);
 			while (record.fp != from.fingerPrint()) {
 				records.add(record);
 				record = record.getPredecessor();
@@ -134,6 +157,20 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		return getTrace(new TLCStateInfo(from), records);
 	}
 
+	/**
+	 * Predecessors are read through one {@link Worker.TraceReader} per worker
+	 * instead of {@link Worker}'s (synchronized) trace file. The readers read each
+	 * trace file in blocks and, since the predecessor pointers into a trace file
+	 * strictly decrease along a trace, every block is read at most once.
+	 */
+	private Worker.TraceReader[] getTraceReaders() throws IOException {
+		final Worker.TraceReader[] readers = new Worker.TraceReader[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			readers[i] = workers[i].getTraceReader();
+		}
+		return readers;
+	}
+
 	protected final TLCStateInfo[] getTrace(TLCStateInfo sinfo, final List<Record> records) {
 		// Re-Initialize the rng with the seed value recorded and used during the model
 		// checking phase. Otherwise, we won't be able to reconstruct the error trace
@@ -171,7 +208,7 @@ public class ConcurrentTLCTrace extends TLCTrace {
 			for (int i = len-2; i >= 0; i--) {
 				Record record = records.get(i+1);
 				long fp = record.fp;
-				sinfo = this.tool.getState(fp, sinfo.state);
+				sinfo = getState(fp, sinfo.state);
 				if (sinfo == null) {
 					/*
 					 * The following error message is misleading, because it's triggered when TLC
@@ -192,6 +229,82 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		return res;
 	}
 
+	/**
+	 * Same as {@link TraceApp#getState(long, TLCState)} except that the actions
+	 * are evaluated concurrently if {@link #RECONSTRUCTION_THREADS} is greater
+	 * than one. The state generated by the first action (in the order of
+	 * {@link ITool#getActions()}) is returned, as with the sequential version.
+	 */
+	private TLCStateInfo getState(final long fp, final TLCState s) {
+		if (RECONSTRUCTION_THREADS <= 1 || workers.length <= 1 || !(this.tool instanceof ITool)
+				|| ((ITool) this.tool).getActions().length <= 1) {
+			return this.tool.getState(fp, s);
+		}
+		final ITool tool = (ITool) this.tool;
+		final Action[] actions = tool.getActions();
+		
+		final ExecutorService executor = getExecutor();
+		final List<Future<TLCState>> futures = new ArrayList<>(actions.length);
+		for (final Action action : actions) {
+			futures.add(executor.submit(() -> {
+				IdThread.setCurrentState(s);
+				final StateVec nextStates = tool.getNextStates(action, s);
+				for (int j = 0; j < nextStates.size(); j++) {
+					final TLCState state = nextStates.elementAt(j);
+					if (fp == state.fingerPrint()) {
+						return state;
+					}
+				}
+				return null;
+			}));
+		}
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				final TLCState state = futures.get(i).get();
+				if (state != null) {
+					futures.forEach(f -> f.cancel(false));
+					state.setPredecessor(s);
+					return new TLCStateInfo(state, actions[i].getLocation());
+				}
+			}
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futures.forEach(f -> f.cancel(false));
+			return null;
+		} catch (ExecutionException e) {
+			futures.forEach(f -> f.cancel(false));
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (this.executor == null) {
+			// The threads are IWorkers so that each evaluates WorkerValues with its own
+			// copy (see tlc2.tool.impl.WorkerValue.mux(Object)).
+			final AtomicInteger ids = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(Math.min(RECONSTRUCTION_THREADS, workers.length), r -> {
+				final int id = ids.getAndIncrement();
+				final Thread t = new ReconstructionThread(r, id);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return this.executor;
+	}
+	
+	private static final class ReconstructionThread extends IdThread implements IWorker {
+		ReconstructionThread(final Runnable runnable, final int id) {
+			super(runnable, "TLCTraceReconstructionThread-" + String.format("%03d", id), id);
+		}
+	}
+
 	/**
 	 * Write out a sequence of states that reaches s2 from an initial state,
 	 * according to the spec. s2 is a next state of s1.
@@ -211,6 +324,19 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		}
 	}
 
+	@Override
+	public synchronized void close() throws IOException {
+		super.close();
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+		for (Worker worker : workers) {
+			if (worker != null) {
+				worker.closeTraceReader();
+			}
+		}
+	}
+
 	/* Checkpoint. */
 	
 	public synchronized void beginChkpt() throws IOException {
@@ -301,30 +427,26 @@ public class ConcurrentTLCTrace extends TLCTrace {
 	
 	public static class Record {
 		
-        static Record getRecord(final TLCState state, final Worker[] workers) throws IOException {
-			final Record record = workers[state.workerId].readStateRecord(state.uid);
-			record.workers = workers;
+        static Record getRecord(final TLCState state, final Worker.TraceReader[] readers) throws IOException {
+			final Record record = readers[state.workerId].read(state.uid);
+			record.readers = readers;
 			return record;
         }
 		
-		static Record getPredecessor(final TLCState state, final Worker[] workers) throws IOException {
-			return getRecord(state, workers).getPredecessor();
+		static Record getPredecessor(final TLCState state, final Worker.TraceReader[] readers) throws IOException {
+			return getRecord(state, readers).getPredecessor();
 		}
 
 		private final long ptr;
 		private final int worker;
 		private final long fp;
-		private Worker[] workers;
+		private Worker.TraceReader[] readers;
 
 		public Record(final long ptr, final int worker, final long fp) {
 			this.ptr = ptr;
 			this.worker = worker;
 			this.fp = fp;
 		}
-		
-		public Worker getWorker() {
-			return this.workers[this.worker];
-		}
 
 		public boolean isInitial() {
 			return ptr == 1L;
@@ -336,8 +458,8 @@ public class ConcurrentTLCTrace extends TLCTrace {
 		}
 		
 		Record getPredecessor() throws IOException {
-			final Record record = getWorker().readStateRecord(this.ptr);
-			record.workers = this.workers;
+			final Record record = this.readers[this.worker].read(this.ptr);
+			record.readers = this.readers;
 			return record;
 		}
 	}
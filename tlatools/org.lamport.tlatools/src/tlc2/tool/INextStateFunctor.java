@@ -25,6 +25,8 @@
  ******************************************************************************/
 package tlc2.tool;
 
+import tlc2.util.RandomGenerator;
+
 public interface INextStateFunctor extends IStateFunctor {
 
 	Object addElement(final TLCState s, final Action a, final TLCState t);
@@ -36,4 +38,12 @@ public interface INextStateFunctor extends IStateFunctor {
 	default boolean hasStates() {
 		throw new UnsupportedOperationException();
 	}
+
+	/**
+	 * @return Non-null iff this functor accepts a single, randomly chosen
+	 *         successor (see {@link SuccessorSampler}).
+	 */
+	default RandomGenerator getRandomGenerator() {
+		return null;
+	}
 }
@@ -38,6 +38,7 @@ import tlc2.tool.coverage.CostModel;
 import tlc2.tool.impl.ModelConfig;
 import tlc2.tool.impl.SpecProcessor;
 import tlc2.util.Context;
+import tlc2.util.RandomGenerator;
 import tlc2.util.ObjLongTable;
 import tlc2.util.Vect;
 import tlc2.value.IFcnLambdaValue;
@@ -75,6 +76,15 @@ public interface ITool extends TraceApp {
 	   * in the given state.
 	   */
 	StateVec getNextStates(Action action, TLCState state);
+
+	/**
+	 * This method returns a successor state, chosen at random, when taking the
+	 * action in the given state or null if the action is not enabled. The other
+	 * successors are not generated.
+	 * 
+	 * @see SuccessorSampler
+	 */
+	TLCState getRandomNextState(Action action, TLCState state, RandomGenerator rng);
 	
 	boolean getNextStates(final INextStateFunctor functor, final TLCState state);
 
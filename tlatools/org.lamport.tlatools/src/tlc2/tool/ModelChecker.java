@@ -11,6 +11,8 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
@@ -26,6 +28,7 @@ import tlc2.tool.liveness.LiveCheck;
 import tlc2.tool.queue.DiskByteArrayQueue;
 import tlc2.tool.queue.DiskStateQueue;
 import tlc2.tool.queue.IStateQueue;
+import tlc2.tool.queue.WorkStealingStateQueue;
 import tlc2.util.IStateWriter;
 import tlc2.util.SetOfStates;
 import tlc2.util.statistics.BucketStatistics;
@@ -33,6 +36,7 @@ import util.Assert;
 import util.DebugPrinter;
 import util.FileUtil;
 import util.FilenameToStream;
+import util.InternTable;
 import util.TLAFlightRecorder;
 import util.UniqueString;
 
@@ -52,6 +56,12 @@ public class ModelChecker extends AbstractChecker
 	 * If the state/ dir should be cleaned up after a successful model run
 	 */
 	public static final boolean VETO_CLEANUP = Boolean.getBoolean(ModelChecker.class.getName() + ".vetoCleanup");
+	/**
+	 * If checkpoints should be written by a background thread (see
+	 * {@link #checkpoint()}). Workers then only pause while the consistent cut
+	 * is captured.
+	 */
+	static final boolean CONCURRENT_CHKPT = Boolean.getBoolean(ModelChecker.class.getName() + ".concurrentChkpt");
 
 	private long numberOfInitialStates;
     public FPSet theFPSet; // the set of reachable states (SZ: note the type)
@@ -68,6 +78,14 @@ public class ModelChecker extends AbstractChecker
 	 * Flag set via JMX if liveness checking should be triggered.
 	 */
 	private boolean forceLiveCheck = false;
+	/**
+	 * Writes checkpoints with {@link #CONCURRENT_CHKPT}, created lazily.
+	 */
+	private ExecutorService checkpointer;
+	/**
+	 * The checkpoint still being written by {@link #checkpointer} or null.
+	 */
+	private Future<Void> pendingChkpt;
 
     /* Constructors  */
     public ModelChecker(ITool tool, String metadir, final IStateWriter stateWriter, boolean deadlock, String fromChkpt,
@@ -107,9 +125,10 @@ public class ModelChecker extends AbstractChecker
         // call the abstract constructor
         super(tool, metadir, stateWriter, deadlock, fromChkpt, startTime);
 
-		this.theStateQueue = useByteArrayQueue()
+		final IStateQueue stateQueue = useByteArrayQueue()
 				? new DiskByteArrayQueue(this.metadir)
 				: new DiskStateQueue(this.metadir);
+		this.theStateQueue = useWorkStealingQueue() ? new WorkStealingStateQueue(stateQueue) : stateQueue;
         // this.theStateQueue = new MemStateQueue(this.metadir);
 
         // Finally, initialize the trace file:
@@ -455,7 +474,7 @@ public class ModelChecker extends AbstractChecker
 
 	private final boolean isSeenState(final TLCState curState, final TLCState succState,
 			final Action action, final Worker worker, final SetOfStates liveNextStates) throws IOException {
-		final long fp = succState.fingerPrint();
+		final long fp = succState.fingerPrint(curState);
 		final boolean seen = this.theFPSet.put(fp);
 		// Write out succState when needed:
 		this.allStateWriter.writeState(curState, succState, !seen, action);
@@ -671,6 +690,10 @@ public class ModelChecker extends AbstractChecker
 			// It stops all workers.
 			return EC.NO_ERROR;
 		}
+		
+		// The previous checkpoint has to be completed before workers get
+		// suspended again, be it for liveness checking or the next checkpoint.
+		awaitChkpt();
    	
         if (this.theStateQueue.suspendAll())
         {
@@ -705,15 +728,40 @@ public class ModelChecker extends AbstractChecker
 	protected void checkpoint() throws IOException {
 		// start checkpointing:
        	MP.printMessage(EC.TLC_CHECKPOINT_START, this.metadir);
+		// Capture a consistent cut while the workers are suspended: The queue's
+		// in-memory buffers and positions, the trace files' lengths, the
+		// state set (an FPSet might write its snapshot in the background),
+		// the interned strings, and the lengths of the liveness graphs.
+		// Workers append to the liveness graphs and intern strings as soon as
+		// they are resumed.
 		this.theStateQueue.beginChkpt();
 		this.trace.beginChkpt();
 		this.theFPSet.beginChkpt();
-		this.theStateQueue.resumeAll();
-		UniqueString.internTbl.beginChkpt(this.metadir);
+		final InternTable.Snapshot interned = UniqueString.internTbl.snapshot();
 		if (this.checkLiveness)
 		{
 			liveCheck.beginChkpt();
 		}
+		this.theStateQueue.resumeAll();
+		if (CONCURRENT_CHKPT) {
+			if (this.checkpointer == null) {
+				this.checkpointer = Executors.newSingleThreadExecutor(r -> {
+					final Thread t = new Thread(r, "TLC Checkpointer");
+					t.setDaemon(true);
+					return t;
+				});
+			}
+			this.pendingChkpt = this.checkpointer.submit(() -> {
+				writeChkpt(interned);
+				return null;
+			});
+		} else {
+			writeChkpt(interned);
+		}
+	}
+
+	private void writeChkpt(final InternTable.Snapshot interned) throws IOException {
+		UniqueString.internTbl.beginChkpt(this.metadir, interned);
 		// commit checkpoint:
 		this.theStateQueue.commitChkpt();
 		this.trace.commitChkpt();
@@ -726,6 +774,29 @@ public class ModelChecker extends AbstractChecker
     	MP.printMessage(EC.TLC_CHECKPOINT_END);
 	}
 
+	/**
+	 * Blocks until the checkpoint written in the background (if any) has been
+	 * committed.
+	 */
+	private void awaitChkpt() throws IOException {
+		final Future<Void> pending = this.pendingChkpt;
+		if (pending == null) {
+			return;
+		}
+		this.pendingChkpt = null;
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
 	public void forceLiveCheck() {
 		forceLiveCheck = true;
 	}
@@ -808,11 +879,16 @@ public class ModelChecker extends AbstractChecker
 		// If model checking is not done, checkpoints are (explicitly) enabled, and
 		// either and error has been found or time-bound model checking is enabled, take
 		// a snapshot to allow users to continue model checking if needed.
+		awaitChkpt();
 		if (TLCGlobals.chkptExplicitlyEnabled()
 				&& !theStateQueue.isEmpty() && (this.errState != null || isTimeBound())) {
 			checkpoint();
+			awaitChkpt();
 			vetoCleanup = true;
 		}
+		if (this.checkpointer != null) {
+			this.checkpointer.shutdown();
+		}
     	
         this.theFPSet.close();
         this.trace.close();
@@ -988,10 +1064,15 @@ public class ModelChecker extends AbstractChecker
 		return Boolean.getBoolean(ModelChecker.class.getName() + ".BAQueue");
 	}
 
+	private static boolean useWorkStealingQueue() {
+		return Boolean.getBoolean(ModelChecker.class.getName() + ".WSQueue");
+	}
+
 	public static String getStateQueueName() {
 		// Ideally, this wouldn't hard-code the simple name of the classes but we don't
 		// have access to the class file yet.
-		return useByteArrayQueue() ? "DiskByteArrayQueue" : "DiskStateQueue";
+		final String name = useByteArrayQueue() ? "DiskByteArrayQueue" : "DiskStateQueue";
+		return useWorkStealingQueue() ? "WorkStealingStateQueue(" + name + ")" : name;
 	}
 
 	/* (non-Javadoc)
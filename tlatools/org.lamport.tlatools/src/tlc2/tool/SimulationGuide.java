@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import tlc2.util.BloomFilter;
+import tlc2.util.RandomGenerator;
+
+/**
+ * A SimulationGuide is shared by all {@link SimulationWorker}s. It records the
+ * (fingerprints of the) states seen so far in a {@link BloomFilter} and counts
+ * how often each action has been taken. If guided, workers consult it to
+ * prefer rarely taken actions and successors that have not been seen before,
+ * and to restart behaviors from the last prefix that lead to a new state.
+ * <p>
+ * Regardless of guidance, the filter estimates the number of distinct states
+ * found by simulation, which makes guided and uniform simulation comparable.
+ */
+public final class SimulationGuide {
+
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	private final BloomFilter seen;
+	// Per action, the number of times it has been taken and how often it lead to a
+	// new state (interleaved).
+	private final AtomicLongArray actionCounts;
+	private final boolean guided;
+
+	private final LongAdder distinct = new LongAdder();
+	private final LongAdder cpuTime = new LongAdder();
+
+	public SimulationGuide(final int numOfActions, final boolean guided) {
+		this(numOfActions, guided, Integer.getInteger(SimulationGuide.class.getName() + ".logBits", 27));
+	}
+
+	public SimulationGuide(final int numOfActions, final boolean guided, final int logBits) {
+		this.seen = new BloomFilter(logBits, 4);
+		this.actionCounts = new AtomicLongArray(Math.max(1, numOfActions) * 2);
+		this.guided = guided;
+	}
+
+	public final boolean isGuided() {
+		return guided;
+	}
+
+	/**
+	 * @return true iff state has definitely not been seen before.
+	 */
+	public final boolean add(final TLCState state) {
+		if (seen.put(state.fingerPrint())) {
+			distinct.increment();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds all successors to the set of seen states.
+	 * 
+	 * @return The index of a successor that had not been seen before or -1 if all
+	 *         had been seen (or simulation is not guided). Out of multiple unseen
+	 *         successors, a random one is chosen.
+	 */
+	public final int select(final RandomGenerator rng, final StateVec successors) {
+		int selected = -1;
+		int unseen = 0;
+		for (int i = 0; i < successors.size(); i++) {
+			if (add(successors.elementAt(i)) && guided) {
+				// Reservoir sampling of one out of the unseen successors (nextDouble keeps
+				// the aril in sync with the consumed random numbers).
+				if ((int) Math.floor(rng.nextDouble() * ++unseen) == 0) {
+					selected = i;
+				}
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * @return The index of the action to evaluate first. Unless guided, actions
+	 *         are chosen uniformly. Otherwise, an action is chosen with a
+	 *         probability proportional to (1+u)/(1+n) where n is the number of
+	 *         times it has been taken and u the number of times it lead to a new
+	 *         state. Thus, rarely taken actions and actions that keep finding new
+	 *         states are preferred.
+	 */
+	public final int nextAction(final RandomGenerator rng, final int len) {
+		if (!guided || len < 2) {
+			return (int) Math.floor(rng.nextDouble() * len);
+		}
+		final double[] weights = new double[len];
+		double sum = 0d;
+		for (int i = 0; i < len; i++) {
+			sum += weights[i] = (1d + actionCounts.get(2 * i + 1)) / (1L + actionCounts.get(2 * i));
+		}
+		double r = rng.nextDouble() * sum;
+		for (int i = 0; i < len - 1; i++) {
+			if ((r -= weights[i]) < 0d) {
+				return i;
+			}
+		}
+		return len - 1;
+	}
+
+	public final void taken(final int action, final boolean unseen) {
+		actionCounts.incrementAndGet(2 * action);
+		if (unseen) {
+			actionCounts.incrementAndGet(2 * action + 1);
+		}
+	}
+
+	/**
+	 * @return The CPU time (in nanoseconds) of the current thread or -1 if the JVM
+	 *         does not measure it.
+	 */
+	final long getCurrentThreadCpuTime() {
+		return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1L;
+	}
+
+	final void addCpuTime(final long nanos) {
+		cpuTime.add(nanos);
+	}
+
+	/**
+	 * @return The (estimated) number of distinct states seen so far.
+	 */
+	public final long getDistinctStates() {
+		return distinct.sum();
+	}
+
+	/**
+	 * @return The CPU time (in seconds) spent by the workers.
+	 */
+	public final double getCpuTime() {
+		return cpuTime.sum() / 1e9d;
+	}
+}
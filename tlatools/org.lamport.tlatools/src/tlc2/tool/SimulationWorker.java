@@ -103,6 +103,17 @@ public class SimulationWorker extends IdThread {
 	
 	// Adjacency Matrix with link weights.
 	final long[][] actionStats;
+
+	// The guide shared by all workers or null.
+	private final SimulationGuide guide;
+
+	// The last new state found by guided simulation (null if none) and the length
+	// of the prefix of stateTrace that leads to it.
+	private TLCState promising;
+	private int promisingPrefix;
+
+	// The CPU time of this worker when it last reported its CPU time to guide.
+	private long cpuTime;
 	
 	/**
 	 * Encapsulates information about an error produced by a simulation worker.
@@ -198,6 +209,14 @@ public class SimulationWorker extends IdThread {
 	public SimulationWorker(int id, ITool tool, BlockingQueue<SimulationWorkerResult> resultQueue,
 			long seed, int maxTraceDepth, long maxTraceNum, boolean checkDeadlock, String traceFile,
 			ILiveCheck liveCheck, LongAdder numOfGenStates, LongAdder numOfGenTraces, AtomicLong m2AndMean) {
+		this(id, tool, resultQueue, seed, maxTraceDepth, maxTraceNum, checkDeadlock, traceFile, liveCheck,
+				numOfGenStates, numOfGenTraces, m2AndMean, null);
+	}
+
+	public SimulationWorker(int id, ITool tool, BlockingQueue<SimulationWorkerResult> resultQueue,
+			long seed, int maxTraceDepth, long maxTraceNum, boolean checkDeadlock, String traceFile,
+			ILiveCheck liveCheck, LongAdder numOfGenStates, LongAdder numOfGenTraces, AtomicLong m2AndMean,
+			SimulationGuide guide) {
 		super(id);
 		this.localRng = new RandomGenerator(seed);
 		this.tool = tool;
@@ -211,6 +230,7 @@ public class SimulationWorker extends IdThread {
 		this.numOfGenTraces = numOfGenTraces;
 		this.welfordM2AndMean = m2AndMean;
 		this.stateTrace = new StateVec(maxTraceDepth);
+		this.guide = guide;
 		
 		if (Simulator.actionStats) {
 			final Action[] actions = this.tool.getActions();
@@ -233,6 +253,9 @@ public class SimulationWorker extends IdThread {
 	 * implement this manually but it's simpler to use the built-in mechanism.
 	 */
 	public final void run() {
+		if (guide != null) {
+			this.cpuTime = guide.getCurrentThreadCpuTime();
+		}
 		while(true) {
 			try {
 				// The trace simulation method should do appropriately frequent interruption
@@ -240,6 +263,11 @@ public class SimulationWorker extends IdThread {
 				final Optional<SimulationWorkerError> res = simulateRandomTrace();
 				traceCnt++;
 				this.numOfGenTraces.increment();
+				if (guide != null) {
+					final long now = guide.getCurrentThreadCpuTime();
+					guide.addCpuTime(now - this.cpuTime);
+					this.cpuTime = now;
+				}
 
 				// If we have an error result, place it on the output queue.
 				if (res.isPresent()) {
@@ -290,6 +318,57 @@ public class SimulationWorker extends IdThread {
 		return null;
 	}
 
+	/**
+	 * Checks the successor state of curState generated by the action with the
+	 * given index for its validity (isGood/isValid/impliedActions/...).
+	 */
+	private Optional<SimulationWorkerError> checkSuccessor(final TLCState state, final int index) {
+		numOfGenStates.increment();
+		// Any check below may terminate simulation, which then makes state the final
+		// state in the trace. To correctly print its state number, it needs to know its
+		// predecessor.
+		state.setPredecessor(curState);
+
+		if (!tool.isGoodState(state)) {
+			return Optional.of(new SimulationWorkerError(EC.TLC_STATE_NOT_COMPLETELY_SPECIFIED_NEXT, null, state,
+					stateTrace, null));
+		}
+
+		// Check invariants.
+		int idx = 0;
+		try {
+			for (idx = 0; idx < this.tool.getInvariants().length; idx++) {
+				if (!tool.isValid(this.tool.getInvariants()[idx], state)) {
+					// We get here because of an invariant violation.
+					state.setActionId(index);
+					return Optional.of(new SimulationWorkerError(EC.TLC_INVARIANT_VIOLATED_BEHAVIOR,
+							new String[] { tool.getInvNames()[idx] }, state, stateTrace, null));
+				}
+			}
+		} catch (final Exception e) {
+			state.setActionId(index);
+			return Optional.of(new SimulationWorkerError(EC.TLC_INVARIANT_EVALUATION_FAILED,
+					new String[] { tool.getInvNames()[idx], e.getMessage() }, state, stateTrace, null));
+		}
+
+		// Check action properties.
+		try {
+			for (idx = 0; idx < this.tool.getImpliedActions().length; idx++) {
+				if (!tool.isValid(this.tool.getImpliedActions()[idx], curState, state)) {
+					// We get here because of implied-action violation.
+					state.setActionId(index);
+					return Optional.of(new SimulationWorkerError(EC.TLC_ACTION_PROPERTY_VIOLATED_BEHAVIOR,
+							new String[] { tool.getImpliedActNames()[idx] }, state, stateTrace, null));
+				}
+			}
+		} catch (final Exception e) {
+			state.setActionId(index);
+			return Optional.of(new SimulationWorkerError(EC.TLC_ACTION_PROPERTY_EVALUATION_FAILED,
+					new String[] { tool.getImpliedActNames()[idx], e.getMessage() }, state, stateTrace, null));
+		}
+		return Optional.empty();
+	}
+
 	/**
 	 * Generates a single random trace.
 	 *
@@ -300,6 +379,13 @@ public class SimulationWorker extends IdThread {
 	 *  c) Check all of the generated successors for their validity. 
 	 *  d) Randomly pick a generated successor and make it the new current state.
 	 *
+	 * With Simulator#sampleSuccessors, b) generates a single successor at random,
+	 * which is the only one checked in c) and picked in d).
+	 *
+	 * With Simulator#guided, a) continues the prefix of the previous trace that
+	 * ended in a new state (every other trace), b) prefers rarely taken actions,
+	 * and d) prefers successors not seen before.
+	 *
 	 * Returns an Optional error representing the outcome of the trace generation. If the trace generation produced no error,
 	 * returns Optional.empty().
 	 *
@@ -310,10 +396,20 @@ public class SimulationWorker extends IdThread {
 		// (linked list of states). It would also be advantageous if "-depth N" is >>
 		// than the actual average trace length, in which case we allocate a way too
 		// large stateTrace.
-		stateTrace.clear();
+		if (promising != null && localRng.nextDouble() < .5d) {
+			// a) Restart from the prefix of the previous trace that ended in a new state.
+			stateTrace.truncate(promisingPrefix);
+			curState = promising;
+		} else {
+			stateTrace.clear();
 
-		// a) Randomly select a state from the set of init states.
-		curState = randomState(this.localRng, initStates);
+			// a) Randomly select a state from the set of init states.
+			curState = randomState(this.localRng, initStates);
+			if (guide != null) {
+				guide.add(curState);
+			}
+		}
+		promising = null;
 		setCurrentState(curState);
 		
 		boolean inConstraints = tool.isInModel(curState);
@@ -322,7 +418,7 @@ public class SimulationWorker extends IdThread {
 		final int len = actions.length;
 
 		// Simulate a trace up to the maximum specified length.
-		for (int traceIdx = 0; traceIdx < maxTraceDepth; traceIdx++) {
+		for (int traceIdx = stateTrace.size(); traceIdx < maxTraceDepth; traceIdx++) {
 			// We don't want this thread to run for too long without checking for
 			// interruption, so we do so on every iteration of the main trace generation
 			// loop.
@@ -338,16 +434,25 @@ public class SimulationWorker extends IdThread {
 
 			// b) Get the current state's successor states.
 			StateVec nextStates = null;
-			int index = (int) Math.floor(this.localRng.nextDouble() * len);
+			TLCState sampled = null;
+			int index = guide != null ? guide.nextAction(this.localRng, len)
+					: (int) Math.floor(this.localRng.nextDouble() * len);
 			final int p = this.localRng.nextPrime();
 			for (int i = 0; i < len; i++) {
-				nextStates = this.tool.getNextStates(actions[index], curState);
-				if (!nextStates.empty()) {
-					break;
+				if (Simulator.sampleSuccessors) {
+					sampled = this.tool.getRandomNextState(actions[index], curState, this.localRng);
+					if (sampled != null) {
+						break;
+					}
+				} else {
+					nextStates = this.tool.getNextStates(actions[index], curState);
+					if (!nextStates.empty()) {
+						break;
+					}
 				}
 				index = (index + p) % len;
 			}
-			if (nextStates == null || nextStates.empty()) {
+			if (sampled == null && (nextStates == null || nextStates.empty())) {
 				if (checkDeadlock) {
 					// We get here because of deadlock.
 					return Optional.of(new SimulationWorkerError(EC.TLC_DEADLOCK_REACHED, null, curState, stateTrace, null));
@@ -355,53 +460,20 @@ public class SimulationWorker extends IdThread {
 				break;
 			}
 
-			// c) Check all generated next states before all but one are discarded.
-			for (int i = 0; i < nextStates.size(); i++) {
-				numOfGenStates.increment();
-				final TLCState state = nextStates.elementAt(i);
-				// Any check below may terminate simulation, which then makes state the final
-				// state in the trace. To correctly print its state number, it needs to know its
-				// predecessor.
-				state.setPredecessor(curState);
-
-				if (!tool.isGoodState(state)) {
-					return Optional.of(new SimulationWorkerError(EC.TLC_STATE_NOT_COMPLETELY_SPECIFIED_NEXT, null, state,
-							stateTrace, null));
+			// c) Check all generated next states before all but one are discarded (only
+			// the sampled successor has been generated in the first place when sampling).
+			if (sampled != null) {
+				final Optional<SimulationWorkerError> err = checkSuccessor(sampled, index);
+				if (err.isPresent()) {
+					return err;
 				}
-
-				// Check invariants.
-				int idx = 0;
-				try {
-					for (idx = 0; idx < this.tool.getInvariants().length; idx++) {
-						if (!tool.isValid(this.tool.getInvariants()[idx], state)) {
-							// We get here because of an invariant violation.
-							state.setActionId(index);
-							return Optional.of(new SimulationWorkerError(EC.TLC_INVARIANT_VIOLATED_BEHAVIOR,
-									new String[] { tool.getInvNames()[idx] }, state, stateTrace, null));
-						}
-					}
-				} catch (final Exception e) {
-					state.setActionId(index);
-					return Optional.of(new SimulationWorkerError(EC.TLC_INVARIANT_EVALUATION_FAILED,
-							new String[] { tool.getInvNames()[idx], e.getMessage() }, state, stateTrace, null));
-				}
-
-				// Check action properties.
-				try {
-					for (idx = 0; idx < this.tool.getImpliedActions().length; idx++) {
-						if (!tool.isValid(this.tool.getImpliedActions()[idx], curState, state)) {
-							// We get here because of implied-action violation.
-							state.setActionId(index);
-							return Optional.of(new SimulationWorkerError(EC.TLC_ACTION_PROPERTY_VIOLATED_BEHAVIOR,
-									new String[] { tool.getImpliedActNames()[idx] }, state, stateTrace, null));
-						}
+			} else {
+				for (int i = 0; i < nextStates.size(); i++) {
+					final Optional<SimulationWorkerError> err = checkSuccessor(nextStates.elementAt(i), index);
+					if (err.isPresent()) {
+						return err;
 					}
-				} catch (final Exception e) {
-					state.setActionId(index);
-					return Optional.of(new SimulationWorkerError(EC.TLC_ACTION_PROPERTY_EVALUATION_FAILED,
-							new String[] { tool.getImpliedActNames()[idx], e.getMessage() }, state, stateTrace, null));
 				}
-
 			}
 
 			// At this point all generated successor states have been checked for
@@ -409,8 +481,27 @@ public class SimulationWorker extends IdThread {
 
 			// d) Randomly select one of them and make it the current state for the next
 			// iteration of the loop.
-			final TLCState s1 = randomState(localRng, nextStates);
+			final TLCState s1;
+			boolean unseen = false;
+			if (guide == null) {
+				s1 = sampled != null ? sampled : randomState(localRng, nextStates);
+			} else if (sampled != null) {
+				s1 = sampled;
+				unseen = guide.add(s1);
+			} else {
+				// Prefer a successor not seen before (if guided).
+				final int selected = guide.select(localRng, nextStates);
+				s1 = selected >= 0 ? nextStates.elementAt(selected) : randomState(localRng, nextStates);
+				unseen = selected >= 0;
+			}
 			inConstraints = (tool.isInModel(s1) && tool.isInActions(curState, s1));
+			if (guide != null && guide.isGuided()) {
+				guide.taken(index, unseen);
+				if (unseen && inConstraints) {
+					promising = s1;
+					promisingPrefix = stateTrace.size();
+				}
+			}
 			s1.setPredecessor(curState); // Should be redundant but let's be safe anyway.
 			s1.setActionId(index);
 			
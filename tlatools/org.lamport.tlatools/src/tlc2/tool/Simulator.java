@@ -30,6 +30,7 @@ import tlc2.tool.SimulationWorker.SimulationWorkerError;
 import tlc2.tool.SimulationWorker.SimulationWorkerResult;
 import tlc2.tool.coverage.CostModelCreator;
 import tlc2.tool.impl.FastTool;
+import tlc2.tool.impl.OpMemoizer;
 import tlc2.tool.impl.Tool;
 import tlc2.tool.liveness.ILiveCheck;
 import tlc2.tool.liveness.LiveCheck;
@@ -49,6 +50,24 @@ public class Simulator {
 	public static boolean EXPERIMENTAL_LIVENESS_SIMULATION = Boolean
 			.getBoolean(Simulator.class.getName() + ".experimentalLiveness");
 	public static boolean actionStats = Boolean.getBoolean(tlc2.tool.Simulator.class.getName() + ".actionStats");
+	/**
+	 * If true, workers draw a single successor of the current state at random
+	 * instead of generating (and checking) all successors of the chosen action.
+	 * Invariants are thus only checked for the states of the generated
+	 * behaviors.
+	 */
+	public static boolean sampleSuccessors = Boolean.getBoolean(tlc2.tool.Simulator.class.getName() + ".sample");
+	/**
+	 * If true, workers prefer rarely taken actions and successors not seen before,
+	 * and restart behaviors from prefixes that lead to new states (see
+	 * SimulationGuide).
+	 */
+	public static boolean guided = Boolean.getBoolean(tlc2.tool.Simulator.class.getName() + ".guided");
+	/**
+	 * If true (implied by guided), the number of distinct states found by
+	 * simulation is estimated and reported per CPU-second.
+	 */
+	public static boolean distinct = guided || Boolean.getBoolean(tlc2.tool.Simulator.class.getName() + ".distinct");
 
 	/* Constructors */
 
@@ -94,12 +113,14 @@ public class Simulator {
 			liveCheck = new NoOpLiveCheck(tool, specDir);
 		}
 
+		this.guide = distinct ? new SimulationGuide(this.tool.getActions().length, guided) : null;
+
 		this.numWorkers = numWorkers;
 		this.workers = new ArrayList<>(numWorkers);
 		for (int i = 0; i < this.numWorkers; i++) {
 			this.workers.add(new SimulationWorker(i, this.tool, this.workerResultQueue, this.rng.nextLong(),
 					this.traceDepth, this.traceNum, this.checkDeadlock, this.traceFile, this.liveCheck,
-					this.numOfGenStates, this.numOfGenTraces, this.welfordM2AndMean));
+					this.numOfGenStates, this.numOfGenTraces, this.welfordM2AndMean, this.guide));
 		}
 		
 		if (TLCGlobals.isCoverageEnabled()) {
@@ -128,6 +149,10 @@ public class Simulator {
 	private final LongAdder numOfGenTraces = new LongAdder();
 	private final AtomicLong welfordM2AndMean = new AtomicLong();
 
+	// Shared by all workers to estimate the number of distinct states and to guide
+	// simulation. Null unless distinct is true.
+	private final SimulationGuide guide;
+
 	// private Action[] actionTrace; // SZ: never read locally
 	private final String traceFile;
 
@@ -475,6 +500,19 @@ public class Simulator {
 				String.valueOf(this.seed), String.valueOf(this.aril) });
 	}
 
+	/**
+	 * Reports the estimated number of distinct states found per CPU-second.
+	 */
+	private final void reportDistinctStates() {
+		if (this.guide != null) {
+			final long distinctStates = this.guide.getDistinctStates();
+			final double cpuTime = this.guide.getCpuTime();
+			MP.printMessage(EC.TLC_STATS_SIMU_DISTINCT,
+					new String[] { String.valueOf(distinctStates), String.format("%.2f", cpuTime),
+							cpuTime > 0d ? String.valueOf(Math.round(distinctStates / cpuTime)) : "-" });
+		}
+	}
+
 	/**
 	 * Reports coverage
 	 */
@@ -482,6 +520,7 @@ public class Simulator {
 		if (TLCGlobals.isCoverageEnabled()) {
             CostModelCreator.report(this.tool, this.startTime );
 		}
+		OpMemoizer.report(this.tool);
 	}
 
 	public final ITool getTool() {
@@ -512,6 +551,7 @@ public class Simulator {
 							String.valueOf(mean),
 							String.valueOf(Math.round(m2 / (genTrace + 1d))), // Var(X),  +1 to prevent div-by-zero.
 							String.valueOf(Math.round(Math.sqrt(m2 / (genTrace + 1d))))); // SD, +1 to prevent div-by-zero.
+					reportDistinctStates();
 					if (count > 1) {
 						count--;
 					} else {
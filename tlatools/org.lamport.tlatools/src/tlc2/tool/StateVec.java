@@ -91,6 +91,16 @@ public final class StateVec implements IStateFunctor, INextStateFunctor {
   public final void clear() {
     this.size = 0;
   }
+
+  /**
+   * Discards all but the first size states.
+   */
+  public final void truncate(final int size) {
+    for (int i = size; i < this.size; i++) {
+      this.v[i] = null;
+    }
+    this.size = Math.min(size, this.size);
+  }
   
   /* (non-Javadoc)
    * @see tlc2.tool.IStateFunction#addElement(tlc2.tool.TLCState)
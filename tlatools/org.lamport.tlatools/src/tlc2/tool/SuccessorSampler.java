@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import tlc2.util.RandomGenerator;
+
+/**
+ * An {@link INextStateFunctor} that accepts a single successor state. Passed
+ * to the generation of next states, it makes the generation resolve every
+ * non-deterministic choice of the next-state relation (disjunction, \E, \in,
+ * [A]_v) at random and stop as soon as a successor has been generated. Thus,
+ * the successor is drawn approximately uniformly, i.e. uniformly at each
+ * choice, without enumerating the other successors.
+ * 
+ * @see ITool#getRandomNextState(Action, TLCState, RandomGenerator)
+ */
+public final class SuccessorSampler implements INextStateFunctor {
+
+	private final RandomGenerator rng;
+	private TLCState state;
+
+	public SuccessorSampler(final RandomGenerator rng) {
+		this.rng = rng;
+	}
+
+	@Override
+	public Object addElement(final TLCState state) {
+		if (this.state == null) {
+			this.state = state;
+		}
+		return this;
+	}
+
+	@Override
+	public Object addElement(final TLCState predecessor, final Action action, final TLCState state) {
+		return addElement(state);
+	}
+
+	@Override
+	public boolean hasStates() {
+		return this.state != null;
+	}
+
+	@Override
+	public RandomGenerator getRandomGenerator() {
+		return this.rng;
+	}
+
+	/**
+	 * @return The sampled successor or null if there is none.
+	 */
+	public TLCState getState() {
+		return this.state;
+	}
+}
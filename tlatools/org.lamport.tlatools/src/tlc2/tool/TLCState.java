@@ -76,6 +76,15 @@ public abstract class TLCState implements Cloneable, Serializable {
   public abstract StateVec addToVec(StateVec states);
   public abstract void deepNormalize();
   public abstract long fingerPrint();
+  
+  /**
+   * Returns the same fingerprint as {@link #fingerPrint()}, but may reuse work
+   * done to fingerprint predecessor, e.g. for variables whose values this state
+   * shares with predecessor.
+   */
+  public long fingerPrint(final TLCState predecessor) {
+	  return this.fingerPrint();
+  }
   public abstract boolean allAssigned();
   public abstract Set<OpDeclNode> getUnassigned();
   public abstract TLCState createEmpty();
@@ -22,6 +22,7 @@ import tlc2.value.IValue;
 import tlc2.value.IValueInputStream;
 import tlc2.value.IValueOutputStream;
 import tlc2.value.Values;
+import tlc2.value.impl.SymmetryCanonicalizer;
 import util.UniqueString;
 import util.WrongInvocationException;
 
@@ -49,7 +50,35 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
    */
   private static IMVPerm[] perms = null;
 
+  /**
+   * If non-null, canonicalizer finds the representative of a state under
+   * symmetry instead of applying all perms (see SymmetryCanonicalizer).
+   */
+  private static SymmetryCanonicalizer canonicalizer = null;
+
+  /**
+   * If true (and neither symmetry nor a VIEW is defined), the fingerprint of a
+   * state is the fingerprint of the sequence of its variables' fingerprints
+   * (see {@link #fps}). A successor then re-uses the fingerprints of the
+   * variables whose values it shares with its predecessor, which - in most
+   * actions - are all but a few. Fingerprints are not compatible with the
+   * ones computed without incremental fingerprinting.
+   */
+  static final boolean INCREMENTAL = Boolean.getBoolean(TLCStateMut.class.getName() + ".incremental");
+
+  /**
+   * The fingerprints of values (in the same order), or null if not (yet)
+   * known. Never modified once assigned but replaced (by null) when values
+   * changes, which is why copies of this state may share it.
+   */
+  private transient long[] fps;
+
   private TLCStateMut(IValue[] vals) { this.values = vals; }
+
+  private TLCStateMut(IValue[] vals, long[] fps) {
+	  this.values = vals;
+	  this.fps = fps;
+  }
   
   public static void setVariables(OpDeclNode[] variables) 
   {
@@ -72,6 +101,9 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
     mytool = tool;
     viewMap = tool.getViewSpec();
     perms = tool.getSymmetryPerms();
+    canonicalizer = Boolean.getBoolean(TLCStateMut.class.getName() + ".canonicalize")
+    		? SymmetryCanonicalizer.create(perms)
+    		: null;
   }
 
   public final TLCState createEmpty() {
@@ -101,6 +133,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 	  // Note, tla2sany.semantic.OpApplNode.toString(Value) relies on this ordering.
     int loc = name.getVarLoc();
     this.values[loc] = value;
+    this.fps = null;
     return this;
   }
 
@@ -111,6 +144,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
   public final TLCState unbind(UniqueString name) {
     int loc = name.getVarLoc();
     this.values[loc] = null;
+    this.fps = null;
     return this;
   }
 
@@ -130,7 +164,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
     for (int i = 0; i < len; i++) {
       vals[i] = this.values[i];
     }
-    return new TLCStateMut(vals);
+    return new TLCStateMut(vals, this.fps);
   }
 
   public final TLCState deepCopy() {
@@ -142,7 +176,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 	vals[i] = val.deepCopy();
       }
     }
-    return new TLCStateMut(vals);
+    return new TLCStateMut(vals, this.fps);
   }
 
   public final StateVec addToVec(StateVec states) {
@@ -168,6 +202,9 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
    * the state queue.  We do that here.
    */
 	public final long fingerPrint() {
+		if (INCREMENTAL && perms == null && viewMap == null) {
+			return this.fingerPrint(null);
+		}
 		int sz = this.values.length;
 
 		// TLC supports symmetry reduction. Symmetry reduction works by defining classes
@@ -202,47 +239,10 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 		// calculation of the fingerprint.
 		IValue[] minVals = this.values;
 		if (perms != null) {
-			IValue[] vals = new IValue[sz];
-			// The following for loop converges to the smallest state ss under symmetry by
-			// looping over all permutations applying each. If the outcome turns out to be
-			// lexicographically smaller than the currently smallest, it replaces the
-			// current smallest. Once all permutations (perms) have been processed, we know
-			// we have found the smallest state.
-			NEXT_PERM: for (int i = 0; i < perms.length; i++) {
-				int cmp = 0;
-				// For each value in values succinctly permute the current value
-				// and compare it to its corresponding minValue in minVals.
-				for (int j = 0; j < sz; j++) {
-					vals[j] = this.values[j].permute(perms[i]);
-					if (cmp == 0) {
-						// Only compare unless an earlier compare has found a
-						// difference already (if a difference has been found
-						// earlier, still permute the remaining values of the
-						// state to fully permute all state values).
-						cmp = vals[j].compareTo(minVals[j]);
-						if (cmp > 0) {
-							// When cmp evaluates to >0, all subsequent
-							// applications of perms[i] for the remaining values
-							// won't make the resulting vals[] smaller than
-							// minVals. Thus, exit preemptively from the loop
-							// over vals. This works because perms is the cross
-							// product of all symmetry sets.
-							continue NEXT_PERM;
-						}
-					}
-				}
-				// cmp < 0 means the current state is part of a symmetry
-				// permutation set/group and not the "smallest" one.
-				if (cmp < 0) {
-					if (minVals == this.values) {
-						minVals = vals;
-						vals = new IValue[sz];
-					} else {
-						IValue[] temp = minVals;
-						minVals = vals;
-						vals = temp;
-					}
-				}
+			// A canonicalizer (if any) finds a representative without applying all
+			// permutations. It gives up on states it cannot handle (null).
+			if (canonicalizer == null || (minVals = canonicalizer.canonicalize(this.values)) == null) {
+				minVals = minPermutation(this.values, perms);
 			}
 		}
 		// Fingerprint the state:
@@ -270,6 +270,100 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 		return fp;
 	}
 
+	/**
+	 * With {@link #INCREMENTAL}, the fingerprint of the variables whose values
+	 * are identical (==) to the ones of predecessor are not re-computed. The
+	 * values fingerprinted are normalized just like in {@link #fingerPrint()}
+	 * whereas the ones of predecessor have been normalized when it got
+	 * fingerprinted.
+	 */
+	@Override
+	public final long fingerPrint(final TLCState predecessor) {
+		if (!INCREMENTAL || perms != null || viewMap != null) {
+			return this.fingerPrint();
+		}
+		long[] fps = this.fps;
+		if (fps == null) {
+			final int sz = this.values.length;
+			fps = new long[sz];
+			
+			IValue[] predVals = null;
+			long[] predFps = null;
+			if (predecessor instanceof TLCStateMut) {
+				predVals = ((TLCStateMut) predecessor).values;
+				predFps = ((TLCStateMut) predecessor).fps;
+			}
+			for (int i = 0; i < sz; i++) {
+				if (predFps != null && predVals[i] == this.values[i]) {
+					fps[i] = predFps[i];
+				} else {
+					fps[i] = this.values[i].fingerPrint(FP64.New());
+				}
+			}
+			this.fps = fps;
+		}
+		// Combining the variables' 64-bit fingerprints with FP64 again keeps the
+		// probability of a collision in the order of the one of fingerprinting
+		// the values directly.
+		long fp = FP64.New();
+		for (int i = 0; i < fps.length; i++) {
+			fp = FP64.Extend(fp, fps[i]);
+		}
+		return fp;
+	}
+
+	/**
+	 * @return The lexicographically smallest of values and the values permuted by
+	 *         each of perms.
+	 */
+	static IValue[] minPermutation(final IValue[] values, final IMVPerm[] perms) {
+		final int sz = values.length;
+		IValue[] minVals = values;
+		IValue[] vals = new IValue[sz];
+		// The following for loop converges to the smallest state ss under symmetry by
+		// looping over all permutations applying each. If the outcome turns out to be
+		// lexicographically smaller than the currently smallest, it replaces the
+		// current smallest. Once all permutations (perms) have been processed, we know
+		// we have found the smallest state.
+		NEXT_PERM: for (int i = 0; i < perms.length; i++) {
+			int cmp = 0;
+			// For each value in values succinctly permute the current value
+			// and compare it to its corresponding minValue in minVals.
+			for (int j = 0; j < sz; j++) {
+				vals[j] = values[j].permute(perms[i]);
+				if (cmp == 0) {
+					// Only compare unless an earlier compare has found a
+					// difference already (if a difference has been found
+					// earlier, still permute the remaining values of the
+					// state to fully permute all state values).
+					cmp = vals[j].compareTo(minVals[j]);
+					if (cmp > 0) {
+						// When cmp evaluates to >0, all subsequent
+						// applications of perms[i] for the remaining values
+						// won't make the resulting vals[] smaller than
+						// minVals. Thus, exit preemptively from the loop
+						// over vals. This works because perms is the cross
+						// product of all symmetry sets.
+						continue NEXT_PERM;
+					}
+				}
+			}
+			// cmp < 0 means the current state is part of a symmetry
+			// permutation set/group and not the "smallest" one.
+			if (cmp < 0) {
+				if (minVals == values) {
+					minVals = vals;
+					vals = new IValue[sz];
+				} else {
+					IValue[] temp = minVals;
+					minVals = vals;
+					vals = temp;
+				}
+			}
+		}
+		return minVals;
+	}
+
   public final boolean allAssigned() {
     int len = this.values.length;    
     for (int i = 0; i < len; i++) {
@@ -297,6 +391,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 
   public final void read(IValueInputStream vis) throws IOException {
     super.read(vis);
+    this.fps = null;
     int len = this.values.length;
     for (int i = 0; i < len; i++) {
       this.values[i] = vis.read();
@@ -63,6 +63,22 @@ public class TLCTrace {
 		return writeState(predecessor.uid, aFingerprint);
 	}
 
+	/**
+	 * @param predecessorLocs
+	 *            The locations of the states' predecessors
+	 * @param fps
+	 *            The states' finger prints
+	 * @return The new locations (pointers) for the given finger prints (states)
+	 * @throws IOException
+	 */
+	public final synchronized long[] writeStates(final long[] predecessorLocs, final long[] fps) throws IOException {
+		final long[] locs = new long[fps.length];
+		for (int i = 0; i < fps.length; i++) {
+			locs[i] = writeState(predecessorLocs[i], fps[i]);
+		}
+		return locs;
+	}
+
 	/**
 	 * @param predecessorLoc
 	 *            The location of the state predecessor
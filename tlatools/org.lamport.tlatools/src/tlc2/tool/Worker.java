@@ -9,6 +9,11 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import tla2sany.semantic.ExprNode;
 import tlc2.TLCGlobals;
@@ -31,6 +36,27 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 
 	protected static final boolean coverage = TLCGlobals.isCoverageEnabled();
 	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * If greater than zero, the successors of a state are not looked up in the
+	 * {@link FPSet} one by one but handed to {@link FPSet#putBlock(long[], int, BitSet)}
+	 * in blocks of up to this many successors. Disk-based {@link FPSet}s resolve a
+	 * block with (mostly) sequential instead of random I/O. Successors are
+	 * otherwise checked in the same order as without blocks.
+	 * <p>
+	 * Note that when a successor violates an invariant or implied action, the
+	 * remaining successors in its block have already been added to the
+	 * {@link FPSet}. The number of distinct states reported with the error might
+	 * thus be higher than without blocks.
+	 */
+	private static final int BLOCK_SIZE = Integer.getInteger(Worker.class.getName() + ".blockSize", 0);
+
+	/**
+	 * Size in bytes of the blocks in which {@link TraceReader} reads the trace
+	 * file, and the number of blocks it keeps in memory.
+	 */
+	private static final int TRACE_BLOCK_SIZE = Integer.getInteger(Worker.class.getName() + ".traceBlockSize", 64 * 1024);
+	private static final int TRACE_CACHED_BLOCKS = Integer.getInteger(Worker.class.getName() + ".traceCachedBlocks", 64);
 	
 	/**
 	 * Multi-threading helps only when running on multiprocessors. TLC can
@@ -47,6 +73,16 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 	private final BufferedRandomAccessFile raf;
 	private final boolean checkDeadlock;
 
+	private final TLCState[] blockStates;
+	private final Action[] blockActions;
+	private final long[] blockFPs;
+	private final BitSet blockInModel;
+	private final BitSet blockSeen;
+	private TLCState blockPredecessor;
+	private int blockLen;
+
+	private TraceReader traceReader;
+
 	private long lastPtr;
 	private long statesGenerated;
 	private int unseenSuccessorStates = 0;
@@ -69,6 +105,20 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 
 		this.filename = metadir + FileUtil.separator + specFile + "-" + myGetId();
 		this.raf = new BufferedRandomAccessFile(filename + TLCTrace.EXT, "rw");
+		
+		if (BLOCK_SIZE > 0) {
+			this.blockStates = new TLCState[BLOCK_SIZE];
+			this.blockActions = new Action[BLOCK_SIZE];
+			this.blockFPs = new long[BLOCK_SIZE];
+			this.blockInModel = new BitSet(BLOCK_SIZE);
+			this.blockSeen = new BitSet(BLOCK_SIZE);
+		} else {
+			this.blockStates = null;
+			this.blockActions = null;
+			this.blockFPs = null;
+			this.blockInModel = null;
+			this.blockSeen = null;
+		}
 	}
 
 	/**
@@ -104,9 +154,12 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 				try {
 					this.tool.getNextStates(this, curState);
 				} catch (TLCRuntimeException | EvalException e) {
+					// Process the successors generated before the evaluation failed.
+					this.addBlock();
 					// The next-state relation couldn't be evaluated.
 					this.tlc.doNextFailed(curState, null, e);
 				}
+				this.addBlock();
 				
 				if (this.checkDeadlock && preNext == this.statesGenerated) {
 					// A deadlock is defined as a state without (seen or unseen) successor
@@ -239,29 +292,30 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 //				curState.fingerPrint(), sucStateFp));
 	}
 
-	// Read from previously written (see writeState) trace file.
-	public final synchronized ConcurrentTLCTrace.Record readStateRecord(final long ptr) throws IOException {
-		// Remember current tip of the file before we rewind.
-		this.raf.mark();
-		
-		// rewind to position we want to read from.
-		this.raf.seek(ptr);
-		
-		final long prev = this.raf.readLongNat();
-		assert 0 <= ptr;
-		
-		final int worker = this.raf.readShortNat();
-		assert 0 <= worker && worker < tlc.workers.length;
-			
-		final long fp = this.raf.readLong();
-		assert tlc.theFPSet.contains(fp);
-		
-		// forward/go back back to tip of file.
-		// This is only necessary iff TLC runs with '-continue'. In other words, state
-		// space exploration continues after an error trace has been written.
-		this.raf.seek(this.raf.getMark());
-		
-		return new ConcurrentTLCTrace.Record(prev, worker, fp);
+	/**
+	 * @return A {@link TraceReader} of this worker's trace file that sees every
+	 *         record written up to now.
+	 */
+	public final synchronized TraceReader getTraceReader() throws IOException {
+		// Write out what is still cached in raf so that the reader, which has its
+		// own file handle, sees it.  Unlike reading through raf (mark/seek/seek
+		// back), this does not disturb the writer.
+		this.raf.flush();
+		if (this.traceReader == null) {
+			this.traceReader = new TraceReader();
+		}
+		this.traceReader.length = this.raf.getFilePointer();
+		return this.traceReader;
+	}
+	
+	/**
+	 * Closes the file handle of this worker's {@link TraceReader} (if any). Its
+	 * statistics remain available.
+	 */
+	final synchronized void closeTraceReader() throws IOException {
+		if (this.traceReader != null) {
+			this.traceReader.close();
+		}
 	}
 	
 	/* Checkpointing */
@@ -324,6 +378,101 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 			this.enumRaf.close();
 		}
 	}
+
+	/**
+	 * Reads the records of the trace file in blocks of {@link #TRACE_BLOCK_SIZE}
+	 * bytes, keeping the most recently read {@link #TRACE_CACHED_BLOCKS} blocks in
+	 * memory. When a counter-example is reconstructed, the predecessor pointers
+	 * into a worker's trace file strictly decrease (a predecessor's record has
+	 * been written before its successors' records). Thus, a block is read once
+	 * and all records of the trace that fall into it are served from memory,
+	 * instead of seeking and reading each record individually. Cached blocks stay
+	 * valid across counter-examples (-continue, liveness) because the trace file
+	 * is append-only.
+	 */
+	public final class TraceReader {
+		
+		/**
+		 * The maximum length of a record: A long nat (4 or 8 bytes), a short nat (1
+		 * or 2 bytes), and a long (8 bytes). See writeState.
+		 */
+		private static final int MAX_RECORD_LENGTH = 8 + 2 + 8;
+
+		private final RandomAccessFile file;
+		@SuppressWarnings("serial")
+		private final Map<Long, byte[]> blocks = new LinkedHashMap<Long, byte[]>(16, .75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+				return size() > TRACE_CACHED_BLOCKS;
+			}
+		};
+		private long length;
+		private long blockReads;
+
+		TraceReader() throws IOException {
+			this.file = new RandomAccessFile(filename + TLCTrace.EXT, "r");
+		}
+
+		public ConcurrentTLCTrace.Record read(final long ptr) throws IOException {
+			assert 0 <= ptr && ptr < this.length;
+			final long start = ptr - (ptr % TRACE_BLOCK_SIZE);
+			final int off = (int) (ptr - start);
+			final byte[] block = getBlock(start);
+			
+			int pos = off;
+			long prev = readInt(block, pos);
+			pos += 4;
+			if (prev < 0) {
+				prev = (prev << 32) | (readInt(block, pos) & 0xffffffffL);
+				prev = -prev;
+				pos += 4;
+			}
+			
+			int worker = block[pos++];
+			if (worker < 0) {
+				worker = (worker << 16) | (block[pos++] & 0xff);
+				worker = -worker;
+			}
+			assert 0 <= worker && worker < tlc.workers.length;
+			
+			final long fp = ((long) readInt(block, pos) << 32) | (readInt(block, pos + 4) & 0xffffffffL);
+			assert tlc.theFPSet.contains(fp);
+			
+			return new ConcurrentTLCTrace.Record(prev, worker, fp);
+		}
+
+		/**
+		 * @return The number of blocks read from disk so far.
+		 */
+		public long getBlockReads() {
+			return this.blockReads;
+		}
+
+		private byte[] getBlock(final long start) throws IOException {
+			// A record may straddle two blocks, thus read a few more bytes. The block
+			// is re-read if the file has grown since it was cached and the cached
+			// block is shorter than what is available now.
+			final int len = (int) Math.min(TRACE_BLOCK_SIZE + MAX_RECORD_LENGTH, this.length - start);
+			byte[] block = this.blocks.get(start);
+			if (block == null || block.length < len) {
+				block = new byte[len];
+				this.file.seek(start);
+				this.file.readFully(block);
+				this.blocks.put(start, block);
+				this.blockReads++;
+			}
+			return block;
+		}
+
+		private int readInt(final byte[] b, final int off) {
+			return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8)
+					| (b[off + 3] & 0xff);
+		}
+		
+		public void close() throws IOException {
+			this.file.close();
+		}
+	}
 	
 	//**************************************************************//
 
@@ -337,6 +486,26 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 	    if (coverage) { action.cm.incInvocations(); }
 		this.statesGenerated++;
 		
+		if (BLOCK_SIZE > 0) {
+			if (this.blockLen == BLOCK_SIZE || (this.blockLen > 0 && this.blockPredecessor != curState)) {
+				this.addBlock();
+			}
+			if (!this.tool.isGoodState(succState)) {
+				// Report the incomplete successor right away (after the ones
+				// generated before it) instead of continuing to generate
+				// successors.
+				this.addBlock();
+				return addSuccessor(curState, action, succState);
+			}
+			this.blockPredecessor = curState;
+			this.blockStates[this.blockLen] = succState;
+			this.blockActions[this.blockLen++] = action;
+			return this;
+		}
+		return addSuccessor(curState, action, succState);
+	}
+
+	private final Object addSuccessor(final TLCState curState, final Action action, final TLCState succState) {
 		try {
 			if (!this.tool.isGoodState(succState)) {
 				this.tlc.doNextSetErr(curState, succState, action);
@@ -352,35 +521,93 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 				unseen = !isSeenState(curState, succState, action);
 			}
 			
-			// Check if succState violates any invariant:
-			if (unseen) {
-				if (this.doNextCheckInvariants(curState, succState)) {
-					throw new InvariantViolatedException();
+			return checkSuccessor(curState, succState, inModel, unseen);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Adds the successors collected by addElement (all of the same predecessor)
+	 * to the {@link FPSet} with a single {@link FPSet#putBlock(long[], int, BitSet)}
+	 * and processes them in the order in which they have been generated.
+	 */
+	private final void addBlock() {
+		final int len = this.blockLen;
+		if (len == 0) {
+			return;
+		}
+		this.blockLen = 0;
+		final TLCState curState = this.blockPredecessor;
+		this.blockPredecessor = null;
+
+		try {
+			// Determine the successors that go into the FPSet (addElement has
+			// already checked that they are good states).
+			this.blockInModel.clear();
+			int m = 0;
+			for (int i = 0; i < len; i++) {
+				final TLCState succState = this.blockStates[i];
+				// Check if state is excluded by a state or action constraint.
+				if (this.tool.isInModel(succState) && this.tool.isInActions(curState, succState)) {
+					this.blockInModel.set(i);
+					this.blockFPs[m++] = succState.fingerPrint(curState);
 				}
 			}
-			
-			// Check if the state violates any implied action. We need to do it
-			// even if succState is not new.
-			if (this.doNextCheckImplied(curState, succState)) {
-				throw new InvariantViolatedException();
-			}
-			
-			if (inModel && unseen) {
-				// The state is inModel, unseen and neither invariants
-				// nor implied actions are violated. It is thus eligible
-				// for further processing by other workers.
-				this.squeue.sEnqueue(succState);
+
+			this.theFPSet.putBlock(this.blockFPs, m, this.blockSeen);
+
+			for (int i = 0, j = 0; i < len; i++) {
+				final TLCState succState = this.blockStates[i];
+				final boolean inModel = this.blockInModel.get(i);
+				boolean unseen = true;
+				if (inModel) {
+					unseen = !isSeenState(curState, succState, this.blockActions[i], this.blockFPs[j],
+							this.blockSeen.get(j));
+					j++;
+				}
+				checkSuccessor(curState, succState, inModel, unseen);
 			}
-			return this;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			Arrays.fill(this.blockStates, 0, len, null);
+			Arrays.fill(this.blockActions, 0, len, null);
 		}
 	}
 
+	private final Object checkSuccessor(final TLCState curState, final TLCState succState, final boolean inModel,
+			final boolean unseen) throws Exception {
+		// Check if succState violates any invariant:
+		if (unseen) {
+			if (this.doNextCheckInvariants(curState, succState)) {
+				throw new InvariantViolatedException();
+			}
+		}
+		
+		// Check if the state violates any implied action. We need to do it
+		// even if succState is not new.
+		if (this.doNextCheckImplied(curState, succState)) {
+			throw new InvariantViolatedException();
+		}
+		
+		if (inModel && unseen) {
+			// The state is inModel, unseen and neither invariants
+			// nor implied actions are violated. It is thus eligible
+			// for further processing by other workers.
+			this.squeue.sEnqueue(succState);
+		}
+		return this;
+	}
+
 	private final boolean isSeenState(final TLCState curState, final TLCState succState, final Action action)
 			throws IOException {
-		final long fp = succState.fingerPrint();
-		final boolean seen = this.theFPSet.put(fp);
+		final long fp = succState.fingerPrint(curState);
+		return isSeenState(curState, succState, action, fp, this.theFPSet.put(fp));
+	}
+
+	private final boolean isSeenState(final TLCState curState, final TLCState succState, final Action action,
+			final long fp, final boolean seen) throws IOException {
 		// Write out succState when needed:
 		this.allStateWriter.writeState(curState, succState, !seen, action);
 		if (!seen) {
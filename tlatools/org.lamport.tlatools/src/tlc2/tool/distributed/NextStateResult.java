@@ -22,6 +22,10 @@ public class NextStateResult implements Serializable {
 		this.statesComputed = statesComputed;
 	}
 	
+	public long getStatesComputed() {
+		return statesComputed;
+	}
+
 	public long getStatesComputedDelta() {
 		return statesComputed - nextStates.length;
 	}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of a {@link TLCPeer}'s counters that {@link PeerTLCServer} polls
+ * to detect termination and to report progress.
+ */
+@SuppressWarnings("serial")
+public class PeerStatus implements Serializable {
+
+	private final boolean idle;
+	private final long sent;
+	private final long received;
+	private final long statesGenerated;
+	private final long queueSize;
+
+	public PeerStatus(boolean idle, long sent, long received, long statesGenerated, long queueSize) {
+		this.idle = idle;
+		this.sent = sent;
+		this.received = received;
+		this.statesGenerated = statesGenerated;
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * @return true iff the peer's queue is empty and none of its threads is
+	 *         expanding a state or processing states routed to it.
+	 */
+	public boolean isIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return The number of batches of states the peer has routed to peers.
+	 */
+	public long getSent() {
+		return sent;
+	}
+
+	/**
+	 * @return The number of batches of states routed to the peer.
+	 */
+	public long getReceived() {
+		return received;
+	}
+
+	public long getStatesGenerated() {
+		return statesGenerated;
+	}
+
+	public long getQueueSize() {
+		return queueSize;
+	}
+
+	/**
+	 * @return true iff the given status shows the same traffic as this one.
+	 */
+	boolean hasSameCounters(final PeerStatus other) {
+		return sent == other.sent && received == other.received;
+	}
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed;
+
+import java.io.IOException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.TLCState;
+import tlc2.tool.WorkerException;
+import tlc2.tool.distributed.fp.DynamicFPSetManager;
+import tlc2.tool.distributed.fp.FPSetRMI;
+import tlc2.tool.distributed.fp.IFPSetManager;
+
+/**
+ * A {@link TLCServer} whose state space is explored by {@link TLCPeer}s that
+ * route successors among each other. The server computes the initial states,
+ * hands them to their owning peers, writes the trace on behalf of the peers
+ * and detects termination. Unlike {@link TLCWorker}s, peers have to be started
+ * before the initial states have been computed (like {@link DistributedFPSetTLCServer}
+ * waits for its fingerprint sets, this server waits for its peers).
+ */
+@SuppressWarnings("serial")
+public class PeerTLCServer extends DistributedFPSetTLCServer implements PeerTLCServerRMI {
+
+	/**
+	 * The interval in milliseconds between two polls of the peers' status.
+	 */
+	private static final int POLL_INTERVAL = Integer.getInteger(PeerTLCServer.class.getName() + ".poll", 100);
+
+	/**
+	 * The peers ordered by the index of their fingerprint set in fpSetManager.
+	 */
+	private final List<TLCPeerRMI> peers = new ArrayList<TLCPeerRMI>();
+	/**
+	 * The most recent status of each peer (null until the first poll).
+	 */
+	private volatile PeerStatus[] status;
+	private boolean warnedCheckpoint = false;
+
+	public PeerTLCServer(final TLCApp work, final int expectedPeerCount) throws IOException, NotBoundException {
+		super(work, expectedPeerCount);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.DistributedFPSetTLCServer#getFPSetManagerImpl(tlc2.tool.distributed.TLCApp, java.lang.String, int)
+	 */
+	protected IFPSetManager getFPSetManagerImpl(final TLCApp work, final String metadir, final int fpsetCount)
+			throws IOException {
+		// Called by the super constructor, i.e. before expectedPeerCount could be
+		// assigned to a field.
+		return new DynamicFPSetManager(expectedPeerCount);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.PeerTLCServerRMI#registerPeer(tlc2.tool.distributed.TLCPeerRMI, tlc2.tool.distributed.fp.FPSetRMI, java.lang.String)
+	 */
+	public synchronized void registerPeer(final TLCPeerRMI peer, final FPSetRMI fpSet, final String hostname)
+			throws RemoteException {
+		// Register the fingerprint set first for its index to be the peer's index.
+		registerFPSet(fpSet, hostname);
+		peers.add(peer);
+		MP.printMessage(EC.TLC_DISTRIBUTED_WORKER_REGISTERED, peer.getURI().toString());
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#registerWorker(tlc2.tool.distributed.TLCWorkerRMI)
+	 */
+	public synchronized void registerWorker(final TLCWorkerRMI worker) throws IOException {
+		// A TLCServerThread would find the (empty) state queue and declare model
+		// checking done.
+		throw new UnsupportedOperationException("Not applicable for peer-to-peer TLCServer, start "
+				+ TLCPeer.class.getName() + " instead");
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.PeerTLCServerRMI#writeTrace(long[], long[])
+	 */
+	public long[] writeTrace(final long[] predecessorLocs, final long[] fps) throws IOException {
+		return this.trace.writeStates(predecessorLocs, fps);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.PeerTLCServerRMI#reportError(tlc2.tool.WorkerException)
+	 */
+	public void reportError(final WorkerException e) {
+		// Same as TLCServerThread#run's exception handling.
+		if (setErrState(e.state1, true)) {
+			if (e.state1 != null) {
+				try {
+					this.trace.printTrace(e.state1, e.state2);
+				} catch (Exception e1) {
+					MP.printError(EC.GENERAL, e1);
+				}
+			} else {
+				MP.printError(EC.GENERAL, e);
+			}
+			synchronized (this) {
+				this.notify();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#initStatesComputed()
+	 */
+	protected void initStatesComputed() {
+		final Thread coordinator = new Thread(this::coordinate, "TLCPeer Coordinator");
+		coordinator.setDaemon(true);
+		coordinator.start();
+	}
+
+	/**
+	 * Starts the peers, hands them the initial states, and polls them until
+	 * they are all idle and no states are in transit.
+	 */
+	private void coordinate() {
+		try {
+			final TLCPeerRMI[] all = peers.toArray(new TLCPeerRMI[peers.size()]);
+			for (int i = 0; i < all.length; i++) {
+				all[i].start(all, i);
+			}
+
+			final List<List<TLCState>> seeds = new ArrayList<List<TLCState>>();
+			for (int i = 0; i < all.length; i++) {
+				seeds.add(new ArrayList<TLCState>());
+			}
+			// No TLCServerThread competes for the initial states.
+			TLCState state;
+			while ((state = stateQueue.dequeue()) != null) {
+				seeds.get(fpSetManager.getFPSetIndex(state.fingerPrint())).add(state);
+			}
+			for (int i = 0; i < all.length; i++) {
+				all[i].seed(seeds.get(i).toArray(new TLCState[0]));
+			}
+
+			// Termination detection: A peer becomes busy again only if another
+			// peer routes states to it, which shows in the counters. Thus, if two
+			// consecutive polls find all peers idle and no batch sent that has
+			// not been received by then, no peer will ever become busy again.
+			PeerStatus[] previous = null;
+			while (isRunning()) {
+				Thread.sleep(POLL_INTERVAL);
+				final PeerStatus[] current = new PeerStatus[all.length];
+				for (int i = 0; i < all.length; i++) {
+					current[i] = all[i].getStatus();
+				}
+				status = current;
+				if (previous != null && isTerminated(previous, current)) {
+					synchronized (this) {
+						setDone();
+						notify();
+					}
+					return;
+				}
+				previous = current;
+			}
+		} catch (Exception e) {
+			reportError(new WorkerException(e.getMessage(), e, null, null, false));
+		}
+	}
+
+	static boolean isTerminated(final PeerStatus[] previous, final PeerStatus[] current) {
+		long sent = 0L, received = 0L;
+		for (int i = 0; i < current.length; i++) {
+			if (!previous[i].isIdle() || !current[i].isIdle() || !previous[i].hasSameCounters(current[i])) {
+				return false;
+			}
+			sent += current[i].getSent();
+			received += current[i].getReceived();
+		}
+		return sent == received;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#checkpoint()
+	 */
+	public void checkpoint() {
+		// The peers' state queues would have to be suspended and checkpointed as
+		// well.
+		if (!warnedCheckpoint) {
+			warnedCheckpoint = true;
+			MP.printWarning(EC.GENERAL, "Checkpoints are not supported by peer-to-peer TLC.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#getNewStates()
+	 */
+	public synchronized long getNewStates() {
+		long res = super.getNewStates();
+		final PeerStatus[] current = status;
+		if (current != null) {
+			for (int i = 0; i < current.length; i++) {
+				res += current[i].getQueueSize();
+			}
+		}
+		return res;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#getStatesGenerated()
+	 */
+	public long getStatesGenerated() {
+		long res = super.getStatesGenerated();
+		final PeerStatus[] current = status;
+		if (current != null) {
+			for (int i = 0; i < current.length; i++) {
+				res += current[i].getStatesGenerated();
+			}
+		}
+		return res;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCServer#close(boolean)
+	 */
+	public void close(final boolean cleanup) throws IOException {
+		// Exit the peers before their fingerprint sets are closed.
+		for (TLCPeerRMI peer : peers) {
+			try {
+				peer.exit();
+			} catch (RemoteException e) {
+				MP.printWarning(EC.GENERAL, "Ignoring attempt to exit dead peer");
+			}
+		}
+		super.close(cleanup);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Microsoft Research. All rights reserved. 
+ * Copyright (c) 2020 Microsoft Research. All rights reserved. 
  *
  * The MIT License (MIT)
  * 
@@ -23,30 +23,37 @@
  * Contributors:
  *   Markus Alexander Kuppe - initial API and implementation
  ******************************************************************************/
-package tlc2.tool.fp;
+package tlc2.tool.distributed;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
 
-import tlc2.output.EC;
-import tlc2.output.MP;
+import tlc2.tool.WorkerException;
+import tlc2.tool.distributed.fp.FPSetRMI;
 
-@SuppressWarnings("serial")
-public abstract class NonCheckpointableDiskFPSet extends DiskFPSet {
+/**
+ * The part of {@link PeerTLCServer} that {@link TLCPeer}s talk to.
+ */
+public interface PeerTLCServerRMI extends TLCServerRMI {
 
-	protected NonCheckpointableDiskFPSet(FPSetConfiguration fpSetConfig) throws RemoteException {
-		super(fpSetConfig);
-	}
+	/**
+	 * Registers the given peer as the owner of the given fingerprint set's
+	 * partition of the fingerprint space.
+	 */
+	public void registerPeer(TLCPeerRMI peer, FPSetRMI fpSet, String hostname) throws RemoteException;
 
-	public void beginChkpt(String fname) throws IOException {
-		MP.printWarning(EC.GENERAL, "Checkpointing is not implemented for " + getClass().getCanonicalName());
-	}
+	/**
+	 * @param predecessorLocs
+	 *            The trace locations of the states' predecessors
+	 * @param fps
+	 *            The fingerprints of the (new) states
+	 * @return The trace locations of the states
+	 */
+	public long[] writeTrace(long[] predecessorLocs, long[] fps) throws IOException;
 
-	public void commitChkpt(String fname) throws IOException {
-		MP.printWarning(EC.GENERAL, "Checkpointing is not implemented for " + getClass().getCanonicalName());
-	}
-
-	public void recover(String fname) throws IOException {
-		MP.printWarning(EC.GENERAL, "Checkpointing is not implemented for " + getClass().getCanonicalName());
-	}
+	/**
+	 * Reports a violation or failure found by a peer. The first report stops
+	 * model checking and makes the server print the error trace.
+	 */
+	public void reportError(WorkerException e) throws RemoteException;
 }
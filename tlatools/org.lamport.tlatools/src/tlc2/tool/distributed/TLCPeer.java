@@ -0,0 +1,472 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tlc2.TLCGlobals;
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.TLCState;
+import tlc2.tool.WorkerException;
+import tlc2.tool.distributed.fp.DistributedFPSet;
+import tlc2.tool.distributed.fp.IFPSetManager;
+import tlc2.tool.fp.FPSet;
+import tlc2.tool.fp.FPSetConfiguration;
+import tlc2.tool.fp.FPSetFactory;
+import tlc2.tool.queue.DiskStateQueue;
+import tlc2.tool.queue.IStateQueue;
+import tlc2.util.Cache;
+import tlc2.util.FP64;
+import tlc2.util.SimpleCache;
+import util.FileUtil;
+import util.ToolIO;
+import util.UniqueString;
+
+/**
+ * A {@link TLCPeer} combines a {@link TLCWorker} and a {@link DistributedFPSet}:
+ * It owns a partition of the fingerprint space (its local {@link FPSet}) and
+ * the queue of the unexplored states whose fingerprints fall into this
+ * partition. Its threads expand the states of the local queue and batch the
+ * successors per owning peer. The owner checks the successors against its
+ * fingerprint set, evaluates constraints and invariants of the new ones and
+ * enqueues them. Thus, states neither pass through {@link TLCServer} nor
+ * through {@link TLCServerThread}; the server merely writes the trace (which
+ * is a few bytes per distinct state) and detects termination by polling the
+ * peers' counters (see {@link PeerTLCServer}).
+ * <p>
+ * A peer does not survive the loss of another peer (its partition of the
+ * state queue would be lost). Checkpoints are not supported.
+ */
+@SuppressWarnings("serial")
+public class TLCPeer extends UnicastRemoteObject implements TLCPeerRMI {
+
+	/**
+	 * The number of successors a thread batches per owning peer before it routes
+	 * them. A thread also routes its (partial) batches when the local queue
+	 * runs empty.
+	 */
+	private static final int BATCH = Integer.getInteger(TLCPeer.class.getName() + ".batch", 1024);
+
+	private final DistApp work;
+	private final PeerTLCServerRMI server;
+	private final FPSet fpSet;
+	private final URI uri;
+	private final int numThreads;
+	private final String queueDir;
+	/**
+	 * The unexplored states owned by this peer. Guarded by itself which is also
+	 * the monitor idle threads wait on.
+	 */
+	private final IStateQueue queue;
+	/**
+	 * The number of threads not waiting for states. Guarded by queue.
+	 */
+	private int busy;
+	/**
+	 * The number of route invocations in progress. Guarded by queue.
+	 */
+	private int routing;
+	/**
+	 * The number of route invocations received. Guarded by queue.
+	 */
+	private long received;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong statesGenerated = new AtomicLong();
+	private volatile boolean stopped = false;
+
+	private IFPSetManager fpSetManager;
+	private TLCPeerRMI[] peers;
+	private int index;
+	private Thread[] threads = new Thread[0];
+
+	public TLCPeer(final DistApp work, final PeerTLCServerRMI server, final FPSet fpSet, final int numThreads,
+			final String hostname, final String queueDir) throws RemoteException {
+		this.work = work;
+		this.server = server;
+		this.fpSet = fpSet;
+		this.numThreads = numThreads;
+		this.queueDir = queueDir;
+		this.queue = new DiskStateQueue(queueDir);
+		this.uri = URI.create("rmi://" + hostname + "/peer");
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#start(tlc2.tool.distributed.TLCPeerRMI[], int)
+	 */
+	public synchronized void start(final TLCPeerRMI[] peers, final int index) throws RemoteException {
+		this.peers = peers;
+		this.index = index;
+		this.fpSetManager = server.getFPSetManager();
+
+		synchronized (queue) {
+			busy = numThreads;
+		}
+		threads = new Thread[numThreads];
+		for (int i = 0; i < numThreads; i++) {
+			threads[i] = new Thread(new Explorer(), TLCServer.THREAD_NAME_PREFIX + String.format("%03d", i));
+			threads[i].start();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#seed(tlc2.tool.TLCState[])
+	 */
+	public void seed(final TLCState[] states) {
+		synchronized (queue) {
+			for (int i = 0; i < states.length; i++) {
+				queue.enqueue(states[i]);
+			}
+			queue.notifyAll();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#route(tlc2.tool.TLCState[], tlc2.tool.TLCState[], long[])
+	 */
+	public void route(final TLCState[] predecessors, final TLCState[] successors, final long[] fps) {
+		synchronized (queue) {
+			routing++;
+			received++;
+		}
+		try {
+			final TLCState[] states = new TLCState[successors.length];
+			final long[] newFps = new long[successors.length];
+			final long[] predecessorLocs = new long[successors.length];
+			int n = 0;
+			for (int i = 0; i < successors.length; i++) {
+				final TLCState predecessor = predecessors[i];
+				final TLCState successor = successors[i];
+				// Like TLCWorker, check the cheap fingerprint set before evaluating
+				// the constraints.
+				if (fpSet.contains(fps[i]) || !work.isInModel(successor)
+						|| !work.isInActions(predecessor, successor) || fpSet.put(fps[i])) {
+					continue;
+				}
+				work.checkState(predecessor, successor);
+				states[n] = successor;
+				newFps[n] = fps[i];
+				predecessorLocs[n] = successor.uid;
+				n++;
+			}
+			if (n == 0) {
+				return;
+			}
+			final long[] locs = server.writeTrace(Arrays.copyOf(predecessorLocs, n), Arrays.copyOf(newFps, n));
+			synchronized (queue) {
+				for (int i = 0; i < n; i++) {
+					states[i].uid = locs[i];
+					queue.enqueue(states[i]);
+				}
+				queue.notifyAll();
+			}
+		} catch (Throwable e) {
+			fail(e, null, null);
+		} finally {
+			synchronized (queue) {
+				routing--;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#getStatus()
+	 */
+	public PeerStatus getStatus() {
+		synchronized (queue) {
+			return new PeerStatus(queue.isEmpty() && busy == 0 && routing == 0, sent.get(), received,
+					statesGenerated.get(), queue.size());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#exit()
+	 */
+	public void exit() throws NoSuchObjectException {
+		ToolIO.out.println(uri.getHost() + ", work completed at: " + new Date() + " Computed: "
+				+ statesGenerated.get() + ", Thank you!");
+		stop();
+		try {
+			queue.delete();
+		} catch (IOException e) {
+			// not expected to happen
+			MP.printError(EC.GENERAL, e);
+		}
+		FileUtil.deleteDir(new File(queueDir), true);
+		UnicastRemoteObject.unexportObject(this, true);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCPeerRMI#getURI()
+	 */
+	public URI getURI() {
+		return uri;
+	}
+
+	private void stop() {
+		stopped = true;
+		synchronized (queue) {
+			queue.notifyAll();
+		}
+	}
+
+	/**
+	 * Reports the first failure of this peer to the server and stops exploring
+	 * the state space. The server stops model checking.
+	 */
+	private void fail(final Throwable t, final TLCState state1, final TLCState state2) {
+		if (stopped) {
+			return;
+		}
+		stop();
+		final WorkerException e = t instanceof WorkerException ? (WorkerException) t
+				: new WorkerException(t.getMessage(), t, state1, state2, true);
+		try {
+			server.reportError(e);
+		} catch (RemoteException re) {
+			MP.printError(EC.GENERAL, re);
+		}
+	}
+
+	/**
+	 * @param canIdle
+	 *            true iff the caller has no successors left to route.
+	 * @return The next state to expand or null if the queue is empty and the
+	 *         caller has to route its successors first (or if this peer has
+	 *         been stopped).
+	 */
+	private TLCState take(final boolean canIdle) throws InterruptedException {
+		synchronized (queue) {
+			while (!stopped) {
+				final TLCState state = queue.dequeue();
+				if (state != null) {
+					return state;
+				}
+				if (!canIdle) {
+					return null;
+				}
+				busy--;
+				try {
+					queue.wait();
+				} finally {
+					busy++;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The successors a thread has generated but not yet routed to their owner.
+	 */
+	private static class Batch {
+		private TLCState[] predecessors = new TLCState[16];
+		private TLCState[] successors = new TLCState[16];
+		private long[] fps = new long[16];
+		private int size = 0;
+
+		void add(final TLCState predecessor, final TLCState successor, final long fp) {
+			if (size == fps.length) {
+				predecessors = Arrays.copyOf(predecessors, size * 2);
+				successors = Arrays.copyOf(successors, size * 2);
+				fps = Arrays.copyOf(fps, size * 2);
+			}
+			predecessors[size] = predecessor;
+			successors[size] = successor;
+			fps[size] = fp;
+			size++;
+		}
+	}
+
+	private class Explorer implements Runnable {
+
+		private final Cache cache = new SimpleCache();
+		private final Batch[] batches = new Batch[peers.length];
+		private int pending = 0;
+
+		Explorer() {
+			for (int i = 0; i < batches.length; i++) {
+				batches[i] = new Batch();
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			TLCState state = null, succState = null;
+			try {
+				while (true) {
+					state = take(pending == 0);
+					if (state == null) {
+						if (stopped) {
+							return;
+						}
+						// The queue has run empty, thus route the (partial) batches
+						// before waiting for more states.
+						for (int i = 0; i < batches.length; i++) {
+							route(i);
+						}
+						continue;
+					}
+					final TLCState[] succStates = work.getNextStates(state);
+					statesGenerated.addAndGet(succStates.length);
+					for (int i = 0; i < succStates.length; i++) {
+						succState = succStates[i];
+						final long fp = succState.fingerPrint();
+						if (cache.hit(fp)) {
+							continue;
+						}
+						// The owner writes the successor's trace record which
+						// points to its predecessor.
+						succState.uid = state.uid;
+						final int owner = fpSetManager.getFPSetIndex(fp);
+						batches[owner].add(state, succState, fp);
+						pending++;
+						if (batches[owner].size >= BATCH) {
+							route(owner);
+						}
+					}
+					succState = null;
+				}
+			} catch (Throwable e) {
+				fail(e, state, succState);
+			}
+		}
+
+		private void route(final int owner) throws RemoteException {
+			final Batch batch = batches[owner];
+			if (batch.size == 0) {
+				return;
+			}
+			final TLCState[] predecessors = Arrays.copyOf(batch.predecessors, batch.size);
+			final TLCState[] successors = Arrays.copyOf(batch.successors, batch.size);
+			final long[] fps = Arrays.copyOf(batch.fps, batch.size);
+			pending -= batch.size;
+			batch.size = 0;
+			Arrays.fill(batch.predecessors, null);
+			Arrays.fill(batch.successors, null);
+
+			sent.incrementAndGet();
+			if (owner == index) {
+				TLCPeer.this.route(predecessors, successors, fps);
+			} else {
+				peers[owner].route(predecessors, successors, fps);
+			}
+		}
+	}
+
+	public static void main(String args[]) {
+		ToolIO.out.println("TLC Peer " + TLCGlobals.versionOfTLC);
+
+		// Must have exactly one arg: a hostname (spec is read from the server
+		// connecting to).
+		if (args.length != 1) {
+			printErrorMsg("Error: Missing hostname of the TLC server to be contacted.");
+			return;
+		}
+		final String serverName = args[0];
+
+		final int numThreads = Integer.getInteger(TLCPeer.class.getName() + ".threadCount",
+				Runtime.getRuntime().availableProcessors());
+
+		try {
+			final TLCServerRMI tlcServer = DistributedFPSet.lookupTLCServer(serverName);
+			if (!(tlcServer instanceof PeerTLCServerRMI)) {
+				printErrorMsg("Error: TLC server " + serverName
+						+ " does not run in peer-to-peer mode (see -D" + TLCServer.class.getName()
+						+ ".expectedPeerCount).");
+				return;
+			}
+			final PeerTLCServerRMI server = (PeerTLCServerRMI) tlcServer;
+
+			FP64.Init(server.getIrredPolyForFP());
+
+			// this call has to be made before the first UniqueString gets
+			// created! Otherwise peers and server end up creating different
+			// unique strings for the same String value.
+			UniqueString.setSource((InternRMI) server);
+
+			final RMIFilenameToStreamResolver fts = new RMIFilenameToStreamResolver();
+			fts.setTLCServer(server);
+			final DistApp work = new TLCApp(server.getSpecFileName(), server.getConfigFileName(),
+					server.getCheckDeadlock(), fts);
+
+			// Create metadata directory for the fingerprint set and the state queue
+			final String metadir = System.getProperty("java.io.tmpdir") + File.separator + "TLCPeer"
+					+ System.currentTimeMillis();
+			final String queueDir = metadir + File.separator + "queue";
+			new File(queueDir).mkdirs();
+
+			final FPSet fpSet = FPSetFactory.getFPSet(new FPSetConfiguration());
+			fpSet.init(numThreads, metadir, "FPSet");
+
+			final String hostname = InetAddress.getLocalHost().getCanonicalHostName();
+			final TLCPeer peer = new TLCPeer(work, server, fpSet, numThreads, hostname, queueDir);
+			try {
+				server.registerPeer(peer, fpSet, hostname);
+			} catch (RuntimeException e) {
+				// Registration has failed (e.g. too many peers). Un-export and
+				// exit main thread.
+				UnicastRemoteObject.unexportObject(peer, true);
+				fpSet.unexportObject(false);
+				ToolIO.out.println(e.getMessage());
+				return;
+			}
+
+			ToolIO.out.println("TLC peer with " + numThreads + " threads ready at: " + new Date());
+
+			// Like DistributedFPSet, wait for the server to exit the fingerprint
+			// set, which happens after it has exited this peer.
+			synchronized (fpSet) {
+				while (DistributedFPSet.isRunning()) {
+					fpSet.wait();
+				}
+			}
+			fpSet.unexportObject(false);
+			FileUtil.deleteDir(new File(metadir), true);
+		} catch (Throwable e) {
+			MP.printError(EC.GENERAL, e);
+			ToolIO.out.println("Error: Failed to start peer for server " + serverName + ".\n" + e.getMessage());
+		}
+
+		ToolIO.out.flush();
+	}
+
+	private static void printErrorMsg(String msg) {
+		ToolIO.out.println(msg);
+		ToolIO.out.println("Usage: java " + TLCPeer.class.getName() + " host");
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed;
+
+import java.net.URI;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+import tlc2.tool.TLCState;
+
+/**
+ * A {@link TLCPeerRMI} owns a partition of the fingerprint space and of the
+ * state queue. Peers route the successors they generate directly to the peer
+ * owning the successor's fingerprint (hash-distributed breadth-first search).
+ * The {@link PeerTLCServer} only writes the trace, detects termination and
+ * prints the trace of a violation.
+ * 
+ * @see TLCPeer
+ */
+public interface TLCPeerRMI extends Remote {
+
+	/**
+	 * Starts exploring the state space.
+	 * 
+	 * @param peers
+	 *            All peers ordered by the index of the fingerprint partition
+	 *            they own (see
+	 *            {@link tlc2.tool.distributed.fp.IFPSetManager#getFPSetIndex(long)}).
+	 * @param index
+	 *            The index of this peer in peers.
+	 */
+	public void start(TLCPeerRMI[] peers, int index) throws RemoteException;
+
+	/**
+	 * Enqueues the given initial states which have already been added to the
+	 * peer's fingerprint set and the trace by the server.
+	 */
+	public void seed(TLCState[] states) throws RemoteException;
+
+	/**
+	 * Hands the given successors to the peer owning their fingerprints. The peer
+	 * enqueues the successors that are new and satisfy the constraints.
+	 * 
+	 * @param predecessors
+	 *            predecessors[i] is the predecessor of successors[i]
+	 * @param successors
+	 *            The successors (whose uid is the trace location of their
+	 *            predecessor)
+	 * @param fps
+	 *            fps[i] is the fingerprint of successors[i]
+	 */
+	public void route(TLCState[] predecessors, TLCState[] successors, long[] fps) throws RemoteException;
+
+	/**
+	 * @return A snapshot of the peer's counters
+	 */
+	public PeerStatus getStatus() throws RemoteException;
+
+	/**
+	 * Stops the peer.
+	 */
+	public void exit() throws RemoteException;
+
+	/**
+	 * @return The {@link URI} address of this peer
+	 */
+	public URI getURI() throws RemoteException;
+}
@@ -47,6 +47,8 @@ import tlc2.tool.distributed.fp.NonDistributedFPSetManager;
 import tlc2.tool.distributed.management.TLCServerMXWrapper;
 import tlc2.tool.distributed.selector.BlockSelectorFactory;
 import tlc2.tool.distributed.selector.IBlockSelector;
+import tlc2.tool.distributed.transport.StreamServer;
+import tlc2.tool.distributed.transport.StreamTransport;
 import tlc2.tool.fp.FPSet;
 import tlc2.tool.fp.FPSetFactory;
 import tlc2.tool.management.TLCStandardMBean;
@@ -104,6 +106,12 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 	 */
 	private static final int expectedFPSetCount = Integer.getInteger(TLCServer.class.getName() + ".expectedFPSetCount", 0);
 
+	/**
+	 * The amount of {@link TLCPeer}s to explore the state space peer-to-peer
+	 * (use {@link TLCWorker}s if unset).
+	 */
+	static final int expectedPeerCount = Integer.getInteger(TLCServer.class.getName() + ".expectedPeerCount", 0);
+
 	/**
 	 * Performance metric: distinct states per minute
 	 */
@@ -126,6 +134,11 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 	private final ExecutorService es = Executors.newCachedThreadPool();
 	
 	public final IFPSetManager fpSetManager;
+	/**
+	 * Exports the master's {@link FPSet} to the streaming transport or null if
+	 * disabled (or the {@link FPSet}s are distributed).
+	 */
+	private StreamServer streamServer;
 	public final IStateQueue stateQueue;
 	public final TLCTrace trace;
 
@@ -201,8 +214,12 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 		// A single FPSet server running on the master node
 		final FPSet fpSet = FPSetFactory.getFPSet(work.getFPSetConfiguration());
 		fpSet.init(1, metadir, work.getFileName());
-		return new NonDistributedFPSetManager(fpSet, InetAddress.getLocalHost()
-				.getCanonicalHostName(), trace);
+		final String hostname = InetAddress.getLocalHost().getCanonicalHostName();
+		if (StreamTransport.ENABLED) {
+			this.streamServer = StreamTransport.export(fpSet, hostname);
+			fpSet.setStreamAddress(this.streamServer.getAddress(hostname));
+		}
+		return new NonDistributedFPSetManager(fpSet, hostname, trace);
 	}
 
 	/* (non-Javadoc)
@@ -244,7 +261,7 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 	/* (non-Javadoc)
 	 * @see tlc2.tool.distributed.TLCServerRMI#registerWorker(tlc2.tool.distributed.TLCWorkerRMI)
 	 */
-	public synchronized final void registerWorker(TLCWorkerRMI worker
+	public synchronized void registerWorker(TLCWorkerRMI worker
 			) throws IOException {
 		
 		// Wake up potentially stuck TLCServerThreads (in
@@ -253,8 +270,10 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 		// users if resumeAllStuck() is not call by a new worker.
 		stateQueue.resumeAllStuck();
 		
-		// create new server thread for given worker
-		final TLCServerThread thread = new TLCServerThread(worker, worker.getURI(), this, es, blockSelector);
+		// create new server thread for given worker (which talks to the worker
+		// over the streaming transport if the worker offers it).
+		final TLCServerThread thread = new TLCServerThread(StreamTransport.wrap(worker), worker.getURI(), this, es,
+				blockSelector);
 		threadsToWorkers.put(thread, worker);
 		thread.start();
 
@@ -392,9 +411,12 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 	 * @param cleanup
 	 * @throws IOException
 	 */
-	public final void close(boolean cleanup) throws IOException {
+	public void close(boolean cleanup) throws IOException {
 		this.trace.close();
 		this.fpSetManager.close(cleanup);
+		if (this.streamServer != null) {
+			this.streamServer.close();
+		}
 		if (cleanup && !VETO_CLEANUP) {
 			FileUtil.deleteDir(new File(this.metadir), true);
 		}
@@ -493,6 +515,7 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 		// Init states have been computed successfully which marks the point in
 		// time where workers can start generating and exploring next states.
 		rg.rebind(SERVER_WORKER_NAME, this);
+		initStatesComputed();
 
 		/*
 		 * This marks the end of the master and FPSet server initialization.
@@ -631,6 +654,16 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 		UnicastRemoteObject.unexportObject(this, false);
 	}
 	
+	/**
+	 * Called once the initial states have been computed and enqueued, i.e.
+	 * when model checking starts. {@link TLCWorker}s are expected to connect
+	 * from now on; subclasses whose workers have connected earlier start them
+	 * here.
+	 */
+	protected void initStatesComputed() {
+		// no-op
+	}
+
 	/**
 	 * Makes the flow of control wait for the IFPSetManager implementation to
 	 * become fully initialized.<p>
@@ -715,7 +748,9 @@ public class TLCServer extends UnicastRemoteObject implements TLCServerRMI,
 			mail.setModelName(System.getProperty(MailSender.MODEL_NAME, app.getFileName()));
 			mail.setSpecName(System.getProperty(MailSender.SPEC_NAME, app.getFileName()));
 			
-			if (expectedFPSetCount > 0) {
+			if (expectedPeerCount > 0) {
+				server = new PeerTLCServer(app, expectedPeerCount);
+			} else if (expectedFPSetCount > 0) {
 				server = new DistributedFPSetTLCServer(app, expectedFPSetCount);
 			} else {
 				server = new TLCServer(app);
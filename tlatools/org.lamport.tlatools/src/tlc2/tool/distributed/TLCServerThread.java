@@ -333,6 +333,8 @@ public class TLCServerThread extends IdThread {
 			// Return the undone worklist (if any)
 			if (stateQueue != null) {
 				stateQueue.sEnqueue(states != null ? states : new TLCState[0]);
+				// and whatever the selector holds back for this worker
+				selector.workerLost(stateQueue, worker);
 			}
 			
 			// Reset states to empty array to signal to TLCServer that we are not
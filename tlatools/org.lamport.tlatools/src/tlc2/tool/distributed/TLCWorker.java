@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.rmi.ConnectException;
@@ -26,6 +27,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import tlc2.TLCGlobals;
 import tlc2.output.EC;
@@ -34,6 +37,8 @@ import tlc2.tool.TLCState;
 import tlc2.tool.TLCStateVec;
 import tlc2.tool.WorkerException;
 import tlc2.tool.distributed.fp.IFPSetManager;
+import tlc2.tool.distributed.transport.StreamServer;
+import tlc2.tool.distributed.transport.StreamTransport;
 import tlc2.util.BitVector;
 import tlc2.util.Cache;
 import tlc2.util.FP64;
@@ -46,6 +51,12 @@ import util.UniqueString;
 public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 
 	private static final boolean unsorted = Boolean.getBoolean(TLCWorker.class.getName() + ".unsorted");
+	/**
+	 * Artificial delay (in microseconds) per state this worker computes the
+	 * successors of. Simulates a slow or overloaded host when benchmarking the
+	 * server's block selectors. Zero (default) disables throttling.
+	 */
+	private static final long throttle = Long.getLong(TLCWorker.class.getName() + ".throttle", 0L);
 	
 	private static Timer keepAliveTimer;
 	private static RMIFilenameToStreamResolver fts;
@@ -66,6 +77,12 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 	
 	private final Cache cache;
 	
+	/**
+	 * Serves {@link TLCWorker#getNextStates(TLCState[])} over the streaming
+	 * transport or null if disabled.
+	 */
+	private final StreamServer streamServer;
+	private final String hostname;
 
 	public TLCWorker(final int threadId, DistApp work, IFPSetManager fpSetManager, String aHostname)
 			throws RemoteException {
@@ -75,6 +92,13 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 				+ threadId);
 		
 		this.cache = new SimpleCache();
+		
+		this.hostname = aHostname;
+		try {
+			this.streamServer = StreamTransport.ENABLED ? StreamTransport.export(this, this.uri.toASCIIString()) : null;
+		} catch (IOException e) {
+			throw new RemoteException("Failed to export worker " + uri.toASCIIString() + " to the stream transport", e);
+		}
 	}
 	
 	//TODO Remove once performance tests show superiority of TreeSet
@@ -86,6 +110,10 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 		}
 	}
 
+	private static void throttle() {
+		LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(throttle));
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.distributed.TLCWorkerRMI#getNextStates(tlc2.tool.TLCState[])
 	 */
@@ -107,6 +135,9 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 			for (int i = 0; i < states.length; i++) {
 				state1 = states[i];
 				nstates = this.work.getNextStates(state1);
+				if (throttle > 0L) {
+					throttle();
+				}
 				// Keep statistics about states computed during this invocation
 				statesComputed += nstates.length;
 				// add all succ states/fps to the array designated for the corresponding fp server
@@ -212,6 +243,15 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 		
 		keepAliveTimer.cancel();
 		
+		if (streamServer != null) {
+			try {
+				streamServer.close();
+			} catch (IOException e) {
+				// not expected to happen
+				MP.printError(EC.GENERAL, e);
+			}
+		}
+		
 		UnicastRemoteObject.unexportObject(TLCWorker.this, true);
 		
 		cdl.countDown();
@@ -237,6 +277,13 @@ public class TLCWorker extends UnicastRemoteObject implements TLCWorkerRMI {
 	public double getCacheRateRatio() throws RemoteException {
 		return this.cache.getHitRatio();
 	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.TLCWorkerRMI#getStreamAddress()
+	 */
+	public InetSocketAddress getStreamAddress() throws RemoteException {
+		return streamServer != null ? streamServer.getAddress(hostname) : null;
+	}
 	
 	private int getPort() {
 		try {
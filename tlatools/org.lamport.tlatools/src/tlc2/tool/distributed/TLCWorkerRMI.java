@@ -5,6 +5,7 @@
 
 package tlc2.tool.distributed;
 
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -48,4 +49,12 @@ public interface TLCWorkerRMI extends Remote {
 	 * @return The ratio of cache hits to cache misses
 	 */
 	public double getCacheRateRatio() throws RemoteException;
+
+	/**
+	 * @return The address at which this worker accepts
+	 *         {@link TLCWorkerRMI#getNextStates(TLCState[])} over the streaming
+	 *         transport or null if it only accepts RMI.
+	 * @see tlc2.tool.distributed.transport.StreamTransport
+	 */
+	public InetSocketAddress getStreamAddress() throws RemoteException;
 }
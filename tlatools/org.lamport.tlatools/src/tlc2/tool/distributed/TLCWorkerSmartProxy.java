@@ -1,5 +1,6 @@
 package tlc2.tool.distributed;
 
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.rmi.RemoteException;
 
@@ -19,6 +20,16 @@ public class TLCWorkerSmartProxy implements TLCWorkerRMI {
 	 * Network overhead for a getNextStates method invocation
 	 */
 	private double networkOverhead = Double.MAX_VALUE;
+	/**
+	 * Exponentially weighted moving average of the states per millisecond the
+	 * remote worker processes (measured as round trip time of getNextStates).
+	 * Zero until the first invocation returns.
+	 */
+	private volatile double throughput = 0d;
+	/**
+	 * Weight of the most recent measurement in {@link #throughput}.
+	 */
+	private static final double ALPHA = 0.3d;
 
 	public TLCWorkerSmartProxy(final TLCWorkerRMI aWorker) {
 		worker = aWorker;
@@ -45,6 +56,10 @@ public class TLCWorkerSmartProxy implements TLCWorkerRMI {
 		// network overhead per state
 		networkOverhead = percentageNetworkOverhead / states.length;
 		
+		// states processed per millisecond
+		final double current = states.length / (double) roundTripTime;
+		throughput = throughput > 0d ? ALPHA * current + (1d - ALPHA) * throughput : current;
+		
 		return nextStates;
 	}
 	
@@ -60,6 +75,15 @@ public class TLCWorkerSmartProxy implements TLCWorkerRMI {
 		return networkOverhead;
 	}
 	
+	/**
+	 * @return The (smoothed) amount of states per millisecond the remote worker
+	 *         processes including network overhead or zero if no measurement
+	 *         is available yet.
+	 */
+	public double getThroughput() {
+		return throughput;
+	}
+	
 	/* All other methods just delegate */
 
 	/* (non-Javadoc)
@@ -89,4 +113,8 @@ public class TLCWorkerSmartProxy implements TLCWorkerRMI {
 	public double getCacheRateRatio() throws RemoteException {
 		return worker.getCacheRateRatio();
 	}
+
+	public InetSocketAddress getStreamAddress() throws RemoteException {
+		return worker.getStreamAddress();
+	}
 }
@@ -14,6 +14,8 @@ import tlc2.output.EC;
 import tlc2.output.MP;
 import tlc2.tool.distributed.TLCServer;
 import tlc2.tool.distributed.TLCServerRMI;
+import tlc2.tool.distributed.transport.StreamServer;
+import tlc2.tool.distributed.transport.StreamTransport;
 import tlc2.tool.fp.FPSet;
 import tlc2.tool.fp.FPSetConfiguration;
 import tlc2.tool.fp.FPSetFactory;
@@ -69,6 +71,10 @@ public class DistributedFPSet  {
 
 			// Register this with the FPSetManager
 			final String hostname = InetAddress.getLocalHost().getHostName();
+			final StreamServer streamServer = StreamTransport.ENABLED ? StreamTransport.export(fpSet, hostname) : null;
+			if (streamServer != null) {
+				fpSet.setStreamAddress(streamServer.getAddress(hostname));
+			}
 			try {
 				tlcServer.registerFPSet(fpSet, hostname);
 			} catch (FPSetManagerException e) {
@@ -76,6 +82,9 @@ public class DistributedFPSet  {
 				// exit main thread. Do not System.exit(int) as worker thread might 
 				// run in this VM instance.
 				fpSet.unexportObject(false);
+				if (streamServer != null) {
+					streamServer.close();
+				}
 				ToolIO.out.println(e.getMessage());
 				return;
 			}
@@ -93,6 +102,9 @@ public class DistributedFPSet  {
 				
 				// exit if signal received
 				fpSet.unexportObject(false);
+				if (streamServer != null) {
+					streamServer.close();
+				}
 				ToolIO.out.println("Exiting TLC Distributed FP Server");
 			}
 		} catch (Throwable e) {
@@ -112,8 +124,15 @@ public class DistributedFPSet  {
 	public static void shutdown() {
 		running = false;
 	}
+
+	/**
+	 * @return false iff {@link DistributedFPSet#shutdown()} has been called.
+	 */
+	public static boolean isRunning() {
+		return running;
+	}
 	
-	private static TLCServerRMI lookupTLCServer(final String serverName) throws MalformedURLException, RemoteException, NotBoundException, InterruptedException {
+	public static TLCServerRMI lookupTLCServer(final String serverName) throws MalformedURLException, RemoteException, NotBoundException, InterruptedException {
 		String url = "//" + serverName + ":" + TLCServer.Port
 				+ "/" + TLCServer.SERVER_NAME;
 
@@ -32,6 +32,7 @@ import tlc2.tool.distributed.fp.callable.CheckFPsCallable;
 import tlc2.tool.distributed.fp.callable.CheckInvariantCallable;
 import tlc2.tool.distributed.fp.callable.ContainsBlockCallable;
 import tlc2.tool.distributed.fp.callable.PutBlockCallable;
+import tlc2.tool.distributed.transport.StreamTransport;
 import tlc2.util.BitVector;
 import tlc2.util.LongVec;
 import util.Assert;
@@ -640,6 +641,12 @@ public abstract class FPSetManager implements IFPSetManager {
 		 * and cannot be used anymore.
 		 */
 		private boolean isAvailable = true;
+		/**
+		 * The fingerprint set to send lookups to, which is fpset itself unless
+		 * fpset offers the streaming transport. Created lazily by the receiver
+		 * of this (serialized) object.
+		 */
+		private transient volatile FPSetRMI lookup;
 
 		public FPSets(FPSetRMI fpset, String hostname) {
 			this.fpset = fpset;
@@ -679,19 +686,30 @@ public abstract class FPSetManager implements IFPSetManager {
 		}
 
 		public BitVector containsBlock(LongVec longVec) throws IOException {
-			return fpset.containsBlock(longVec);
+			return lookup().containsBlock(longVec);
 		}
 
 		public BitVector putBlock(LongVec longVec) throws IOException {
-			return fpset.putBlock(longVec);
+			return lookup().putBlock(longVec);
 		}
 
 		public boolean put(long fp) throws IOException {
-			return fpset.put(fp);
+			return lookup().put(fp);
 		}
 
 		public boolean contains(long fp) throws IOException {
-			return fpset.contains(fp);
+			return lookup().contains(fp);
+		}
+
+		private FPSetRMI lookup() throws IOException {
+			if (lookup == null) {
+				synchronized (this) {
+					if (lookup == null) {
+						lookup = StreamTransport.wrap(fpset);
+					}
+				}
+			}
+			return lookup;
 		}
 		
 		public String getHostname() {
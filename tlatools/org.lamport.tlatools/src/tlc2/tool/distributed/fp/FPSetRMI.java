@@ -5,6 +5,7 @@
 package tlc2.tool.distributed.fp;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 
@@ -114,4 +115,12 @@ public interface FPSetRMI extends Remote {
 	 *         states found overall).
 	 */
 	long size() throws IOException;
+
+	/**
+	 * @return The address at which this {@link FPSet} accepts fingerprint
+	 *         lookups over the streaming transport or null if it only accepts
+	 *         RMI.
+	 * @see tlc2.tool.distributed.transport.StreamTransport
+	 */
+	InetSocketAddress getStreamAddress() throws RemoteException;
 }
@@ -7,6 +7,8 @@ import java.util.concurrent.ExecutorService;
 import tlc2.output.EC;
 import tlc2.output.MP;
 import tlc2.tool.TLCTrace;
+import tlc2.tool.distributed.transport.StreamTransport;
+import tlc2.tool.fp.FPSet;
 import tlc2.util.BitVector;
 import tlc2.util.LongVec;
 
@@ -16,6 +18,12 @@ public class NonDistributedFPSetManager implements IFPSetManager {
 	private final FPSetRMI fpSet;
 	private final String hostname;
 	private final transient TLCTrace trace; // Do not serialize trace and send it over the wire. Recovery executes on the master, not on the workers.
+	/**
+	 * The fingerprint set to send block lookups to, which is fpSet itself unless
+	 * this is a worker's copy and the master's fpSet offers the streaming
+	 * transport.
+	 */
+	private transient volatile FPSetRMI lookup;
 
 	public NonDistributedFPSetManager(final FPSetRMI fpSet,
 			final String hostname, TLCTrace trace) throws IOException {
@@ -89,12 +97,24 @@ public class NonDistributedFPSetManager implements IFPSetManager {
 	/* (non-Javadoc)
 	 * @see tlc2.tool.distributed.fp.FPSetManager#putBlock(tlc2.util.LongVec[])
 	 */
+	private FPSetRMI lookup() throws IOException {
+		if (lookup == null) {
+			synchronized (this) {
+				if (lookup == null) {
+					// The master accesses its (local) fpSet directly.
+					lookup = fpSet instanceof FPSet ? fpSet : StreamTransport.wrap(fpSet);
+				}
+			}
+		}
+		return lookup;
+	}
+
 	public BitVector[] putBlock(LongVec[] fps) {
 		final BitVector[] res = new BitVector[fps.length];
 		for (int i = 0; i < fps.length; i++) {
 			LongVec longVec = fps[i];
 			try {
-				res[i] = this.fpSet.putBlock(longVec);
+				res[i] = lookup().putBlock(longVec);
 			} catch (IOException e) {
 				// not expected to happen
 				MP.printError(EC.GENERAL, e);
@@ -119,7 +139,7 @@ public class NonDistributedFPSetManager implements IFPSetManager {
 		for (int i = 0; i < fps.length; i++) {
 			LongVec longVec = fps[i];
 			try {
-				res[i] = this.fpSet.containsBlock(longVec);
+				res[i] = lookup().containsBlock(longVec);
 			} catch (IOException e) {
 				// not expected to happen
 				MP.printError(EC.GENERAL, e);
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.selector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import tlc2.tool.TLCState;
+import tlc2.tool.distributed.TLCServer;
+import tlc2.tool.distributed.TLCServerThread;
+import tlc2.tool.distributed.TLCWorkerRMI;
+import tlc2.tool.distributed.TLCWorkerSmartProxy;
+import tlc2.tool.queue.IStateQueue;
+
+/**
+ * Sizes blocks according to the throughput measured for each individual worker
+ * (see {@link TLCWorkerSmartProxy#getThroughput()}) such that a single
+ * {@link TLCWorkerRMI#getNextStates(TLCState[])} invocation takes roughly
+ * {@link #TARGET_LATENCY} milliseconds. A block never exceeds the worker's
+ * throughput-proportional share of the outstanding work, which prevents a fast
+ * worker from taking the remainder of a BFS level while slow workers idle.
+ * <p>
+ * When refilling, a worker reserves up to one additional block which it is
+ * handed out on its next request without touching the global
+ * {@link IStateQueue}. A worker that finds the global queue empty steals half
+ * of the largest reservation of another worker (a straggler) before it blocks
+ * on the queue.
+ * <p>
+ * A worker only ever calls {@link IStateQueue#sDequeue(int)} with an empty
+ * reservation. Thus, when all workers wait on the queue (termination or
+ * checkpoint), no states are held back by this selector.
+ */
+public class AdaptiveBlockSelector extends LimitingBlockSelector {
+
+	/**
+	 * The intended duration of a single round trip in milliseconds.
+	 */
+	static final long TARGET_LATENCY = Long.getLong(AdaptiveBlockSelector.class.getName() + ".latency", 250L);
+
+	/**
+	 * States reserved for (but not yet sent to) a worker. Keyed by identity of
+	 * the {@link TLCWorkerSmartProxy} a {@link TLCServerThread} hands to
+	 * {@link #getBlocks(IStateQueue, TLCWorkerRMI)}. Guarded by this.
+	 */
+	private final Map<TLCWorkerRMI, Deque<TLCState>> reservations = new IdentityHashMap<TLCWorkerRMI, Deque<TLCState>>();
+
+	/**
+	 * Total number of states in all reservations. Guarded by this.
+	 */
+	private long reserved = 0L;
+
+	AdaptiveBlockSelector(final TLCServer aTLCServer) {
+		super(aTLCServer);
+	}
+
+	AdaptiveBlockSelector(final TLCServer aTLCServer, final int aMaximum) {
+		super(aTLCServer, aMaximum);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.selector.BlockSelector#getBlocks(tlc2.tool.queue.IStateQueue, tlc2.tool.distributed.TLCWorkerRMI)
+	 */
+	public TLCState[] getBlocks(final IStateQueue stateQueue, final TLCWorkerRMI worker) {
+		TLCState[] states;
+		synchronized (this) {
+			final Deque<TLCState> own = getReservation(worker);
+			if (!own.isEmpty()) {
+				// 1) Serve from what has been reserved for the worker earlier.
+				states = take(own, worker);
+			} else if (stateQueue.isEmpty()) {
+				// 2) No global work, help a straggler.
+				states = steal(worker, own);
+			} else {
+				states = null;
+			}
+		}
+		if (states == null) {
+			// 3) Refill from the global queue which blocks until work becomes
+			// available or all work is done (legacy behavior).
+			states = refill(stateQueue, worker);
+		}
+		setAverageBlockCnt(states != null ? states.length : 0);
+		return states;
+	}
+
+	private TLCState[] refill(final IStateQueue stateQueue, final TLCWorkerRMI worker) {
+		final long size = stateQueue.size();
+		final long blockSize = getBlockSize(size, worker);
+		// Reserve at most one additional block and never more than the
+		// worker's share.
+		final long share = getShare(size, worker);
+		final long request = Math.min(Integer.MAX_VALUE, Math.max(1L, Math.min(2L * blockSize, share)));
+		final TLCState[] dequeued = stateQueue.sDequeue((int) request);
+		if (dequeued == null || dequeued.length <= blockSize) {
+			return dequeued;
+		}
+		final TLCState[] states = new TLCState[(int) blockSize];
+		System.arraycopy(dequeued, 0, states, 0, states.length);
+		synchronized (this) {
+			final Deque<TLCState> own = getReservation(worker);
+			for (int i = states.length; i < dequeued.length; i++) {
+				own.addLast(dequeued[i]);
+			}
+			reserved += dequeued.length - states.length;
+		}
+		return states;
+	}
+
+	/**
+	 * Moves half of the largest reservation of another worker into the given
+	 * worker's reservation and hands out one block of it.
+	 *
+	 * @return null if there is nothing to steal
+	 */
+	private TLCState[] steal(final TLCWorkerRMI thief, final Deque<TLCState> own) {
+		Deque<TLCState> victim = null;
+		for (final Map.Entry<TLCWorkerRMI, Deque<TLCState>> entry : reservations.entrySet()) {
+			final Deque<TLCState> candidate = entry.getValue();
+			if (entry.getKey() != thief && (victim == null || candidate.size() > victim.size())) {
+				victim = candidate;
+			}
+		}
+		if (victim == null || victim.isEmpty()) {
+			return null;
+		}
+		// Steal from the tail, the victim consumes its reservation from the
+		// head.
+		final int amount = (victim.size() + 1) / 2;
+		for (int i = 0; i < amount; i++) {
+			own.addFirst(victim.pollLast());
+		}
+		return take(own, thief);
+	}
+
+	/**
+	 * Hands out one block from the given reservation. The reservation has
+	 * already been bounded by the worker's share when it was made, thus only
+	 * the latency target applies.
+	 */
+	private TLCState[] take(final Deque<TLCState> own, final TLCWorkerRMI worker) {
+		final double throughput = getThroughput(worker);
+		final long blockSize = Math.min(getMaximum(),
+				throughput > 0d ? (long) Math.ceil(throughput * TARGET_LATENCY) : own.size());
+		final TLCState[] states = new TLCState[(int) Math.max(1L, Math.min(blockSize, own.size()))];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = own.pollFirst();
+		}
+		reserved -= states.length;
+		return states;
+	}
+
+	private Deque<TLCState> getReservation(final TLCWorkerRMI worker) {
+		Deque<TLCState> own = reservations.get(worker);
+		if (own == null) {
+			own = new ArrayDeque<TLCState>();
+			reservations.put(worker, own);
+		}
+		return own;
+	}
+
+	/**
+	 * @return The block size which lets the worker finish within
+	 *         {@link #TARGET_LATENCY}, bounded by its share of the outstanding
+	 *         work and the maximum transfer size. Without a throughput
+	 *         measurement, falls back to 1/N of the outstanding work.
+	 */
+	protected long getBlockSize(final long size, final TLCWorkerRMI aWorker) {
+		final double throughput = getThroughput(aWorker);
+		final long share = getShare(size, aWorker);
+		long blockSize = throughput > 0d ? (long) Math.ceil(throughput * TARGET_LATENCY) : share;
+		blockSize = Math.min(blockSize, share);
+		return Math.max(1L, Math.min(blockSize, getMaximum()));
+	}
+
+	/**
+	 * @return The worker's throughput-proportional share of the global and
+	 *         reserved work.
+	 */
+	private synchronized long getShare(final long size, final TLCWorkerRMI aWorker) {
+		final long outstanding = size + reserved;
+		final double throughput = getThroughput(aWorker);
+		double total = 0d;
+		int measured = 0;
+		for (TLCWorkerRMI worker : reservations.keySet()) {
+			final double t = getThroughput(worker);
+			if (t > 0d) {
+				total += t;
+				measured++;
+			}
+		}
+		final int workerCount = Math.max(1, getWorkerCount());
+		if (throughput <= 0d || total <= 0d) {
+			return (long) Math.ceil(outstanding / (double) workerCount);
+		}
+		// Workers without measurement are assumed to be average.
+		total += (total / measured) * Math.max(0, workerCount - measured);
+		return (long) Math.ceil(outstanding * Math.min(1d, throughput / total));
+	}
+
+	private static double getThroughput(final TLCWorkerRMI aWorker) {
+		if (aWorker instanceof TLCWorkerSmartProxy) {
+			return ((TLCWorkerSmartProxy) aWorker).getThroughput();
+		}
+		return 0d;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.selector.BlockSelector#workerLost(tlc2.tool.queue.IStateQueue, tlc2.tool.distributed.TLCWorkerRMI)
+	 */
+	public void workerLost(final IStateQueue stateQueue, final TLCWorkerRMI worker) {
+		final Deque<TLCState> own;
+		synchronized (this) {
+			own = reservations.remove(worker);
+			if (own == null || own.isEmpty()) {
+				return;
+			}
+			reserved -= own.size();
+		}
+		stateQueue.sEnqueue(own.toArray(new TLCState[own.size()]));
+	}
+
+	/**
+	 * @return The number of states currently held back on behalf of workers.
+	 */
+	synchronized long getReserved() {
+		return reserved;
+	}
+}
@@ -66,10 +66,17 @@ public class BlockSelector implements IBlockSelector {
 	 * @return The intended block size.
 	 */
 	protected long getBlockSize(long size, final TLCWorkerRMI aWorker) {
-		final int workerCount = tlcServer.getWorkerCount();
+		final int workerCount = getWorkerCount();
 		return (long) Math.ceil(size * (1.0 / workerCount));
 	}
 
+	/**
+	 * @return The number of workers currently registered with the server
+	 */
+	protected int getWorkerCount() {
+		return tlcServer.getWorkerCount();
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.distributed.selector.IBlockSelector#setMaxTXSize(int)
 	 */
@@ -92,4 +99,11 @@ public class BlockSelector implements IBlockSelector {
 	public long getAverageBlockCnt() {
 		return averageBlockCnt;
 	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.distributed.selector.IBlockSelector#workerLost(tlc2.tool.queue.IStateQueue, tlc2.tool.distributed.TLCWorkerRMI)
+	 */
+	public void workerLost(final IStateQueue stateQueue, final TLCWorkerRMI worker) {
+		// nop, states are never held back
+	}
 }
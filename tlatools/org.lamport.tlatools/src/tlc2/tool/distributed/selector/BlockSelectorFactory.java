@@ -21,6 +21,10 @@ public class BlockSelectorFactory {
 	 * {@link LimitingBlockSelector} system property
 	 */
 	private static final String LIMITING_SELECTOR = System.getProperty("tlc2.tool.distributed.selector.bsf.limitingselector");
+	/**
+	 * {@link AdaptiveBlockSelector} system property
+	 */
+	private static final String ADAPTIVE_SELECTOR = System.getProperty("tlc2.tool.distributed.selector.bsf.adaptiveselector");
 	
 	/**
 	 * Creates an {@link IBlockSelector} for the given {@link TLCServer}.
@@ -72,6 +76,8 @@ public class BlockSelectorFactory {
 			return new BlockSelector(aTLCServer);
 		} else if (Boolean.parseBoolean(LIMITING_SELECTOR)) {
 			return new LimitingBlockSelector(aTLCServer);
+		} else if (Boolean.parseBoolean(ADAPTIVE_SELECTOR)) {
+			return new AdaptiveBlockSelector(aTLCServer);
 		}
 		// always return the default BlockSelector by default
 		return new StatisticalBlockSelector(aTLCServer);
@@ -34,4 +34,14 @@ public interface IBlockSelector {
 	 * @return The average block size handed out to workers
 	 */
 	public abstract long getAverageBlockCnt();
+
+	/**
+	 * Signals that the given worker has been lost. An {@link IBlockSelector}
+	 * which holds back states on behalf of a worker has to return them to the
+	 * given {@link IStateQueue}.
+	 * 
+	 * @param stateQueue The queue to return states to
+	 * @param worker The lost {@link TLCWorker}
+	 */
+	public abstract void workerLost(final IStateQueue stateQueue, final TLCWorkerRMI worker);
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.rmi.RemoteException;
+
+import tlc2.tool.TLCTrace;
+import tlc2.tool.distributed.fp.FPSetRMI;
+import tlc2.util.BitVector;
+import tlc2.util.LongVec;
+
+/**
+ * Sends the fingerprint lookups of {@link FPSetRMI} over a
+ * {@link StreamClient} and delegates everything else to the fingerprint set's
+ * RMI stub.
+ */
+final class FPSetStreamProxy implements FPSetRMI {
+
+	private final FPSetRMI fpSet;
+	private final StreamClient client;
+
+	FPSetStreamProxy(final FPSetRMI fpSet, final StreamClient client) {
+		this.fpSet = fpSet;
+		this.client = client;
+	}
+
+	private <T> T call(final byte op, final StreamTransport.Request request,
+			final StreamTransport.Response<T> response) throws IOException {
+		try {
+			return client.call(op, request, response);
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RemoteException(e.getMessage(), e);
+		}
+	}
+
+	public BitVector putBlock(final LongVec fpv) throws IOException {
+		return call(StreamTransport.PUT_BLOCK, vos -> StreamTransport.writeLongVec(vos, fpv),
+				StreamTransport::readBitVector);
+	}
+
+	public BitVector containsBlock(final LongVec fpv) throws IOException {
+		return call(StreamTransport.CONTAINS_BLOCK, vos -> StreamTransport.writeLongVec(vos, fpv),
+				StreamTransport::readBitVector);
+	}
+
+	public boolean put(final long fp) throws IOException {
+		return call(StreamTransport.PUT, vos -> vos.writeLong(fp), vis -> vis.readByte() != 0);
+	}
+
+	public boolean contains(final long fp) throws IOException {
+		return call(StreamTransport.CONTAINS, vos -> vos.writeLong(fp), vis -> vis.readByte() != 0);
+	}
+
+	public void addThread() throws IOException {
+		fpSet.addThread();
+	}
+
+	public void beginChkpt() throws IOException {
+		fpSet.beginChkpt();
+	}
+
+	public void beginChkpt(final String filename) throws IOException {
+		fpSet.beginChkpt(filename);
+	}
+
+	public long checkFPs() throws IOException {
+		return fpSet.checkFPs();
+	}
+
+	public boolean checkInvariant() throws IOException {
+		return fpSet.checkInvariant();
+	}
+
+	public void close() throws RemoteException {
+		try {
+			client.close();
+		} catch (IOException ignored) {
+		}
+		fpSet.close();
+	}
+
+	public void commitChkpt() throws IOException {
+		fpSet.commitChkpt();
+	}
+
+	public void commitChkpt(final String filename) throws IOException {
+		fpSet.commitChkpt(filename);
+	}
+
+	public void exit(final boolean cleanup) throws IOException {
+		try {
+			client.close();
+		} catch (IOException ignored) {
+		}
+		fpSet.exit(cleanup);
+	}
+
+	public long getStatesSeen() throws RemoteException {
+		return fpSet.getStatesSeen();
+	}
+
+	public void recover(final TLCTrace trace) throws IOException {
+		fpSet.recover(trace);
+	}
+
+	public void recover(final String filename) throws IOException {
+		fpSet.recover(filename);
+	}
+
+	public long size() throws IOException {
+		return fpSet.size();
+	}
+
+	public InetSocketAddress getStreamAddress() throws RemoteException {
+		return fpSet.getStreamAddress();
+	}
+}
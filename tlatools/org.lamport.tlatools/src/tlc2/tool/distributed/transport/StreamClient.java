@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import tlc2.tool.distributed.transport.StreamTransport.Request;
+import tlc2.tool.distributed.transport.StreamTransport.Response;
+
+/**
+ * A connection to a {@link StreamServer}. A {@link StreamClient} is
+ * thread-safe: concurrent callers share the connection and their requests are
+ * pipelined, i.e. a request is sent without waiting for the responses to the
+ * previous ones. At most {@link StreamTransport#WINDOW} requests are
+ * outstanding; further callers block until a response arrives.
+ */
+public final class StreamClient implements Closeable {
+
+	private final ConcurrentLinkedQueue<Call<?>> pending = new ConcurrentLinkedQueue<>();
+	private final SocketChannel channel;
+	private final Semaphore window;
+	private final InetSocketAddress address;
+	private volatile RemoteException failure;
+
+	public StreamClient(final InetSocketAddress address) throws IOException {
+		this(address, StreamTransport.WINDOW);
+	}
+
+	public StreamClient(final InetSocketAddress address, final int window) throws IOException {
+		this.address = address;
+		this.window = new Semaphore(window);
+		this.channel = SocketChannel.open(address);
+		this.channel.socket().setTcpNoDelay(true);
+
+		final Thread reader = new Thread(this::read, "StreamClient Reader [" + address + "]");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Sends the request without waiting for its response.
+	 */
+	public <T> CompletableFuture<T> submit(final byte op, final Request request, final Response<T> response)
+			throws IOException, InterruptedException {
+		// Encode outside of the lock.
+		final StreamTransport.Frame frame = StreamTransport.newFrame(op, request);
+		final Call<T> call = new Call<>(response);
+
+		window.acquire();
+		synchronized (this) {
+			if (failure != null) {
+				window.release();
+				throw failure;
+			}
+			// Enqueue before the request is written for the reader to find the call once
+			// the response arrives.
+			pending.add(call);
+			try {
+				StreamTransport.writeFrame(channel, frame);
+			} catch (IOException e) {
+				fail(e);
+				throw failure;
+			}
+		}
+		return call.future;
+	}
+
+	/**
+	 * Sends the request and waits for its response. Exceptions thrown by the
+	 * server are re-thrown; like RMI, a {@link RemoteException} thrown by the
+	 * server is wrapped in a {@link ServerException}.
+	 */
+	public <T> T call(final byte op, final Request request, final Response<T> response) throws Exception {
+		try {
+			return submit(op, request, response).get();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RemoteException && cause != failure) {
+				throw new ServerException("RemoteException occurred in server thread", (RemoteException) cause);
+			} else if (cause instanceof Exception) {
+				throw (Exception) cause;
+			} else if (cause instanceof Error) {
+				throw new ServerError("Error occurred in server thread", (Error) cause);
+			}
+			throw e;
+		}
+	}
+
+	private void read() {
+		try {
+			ByteBuffer frame;
+			while ((frame = StreamTransport.readFrame(channel)) != null) {
+				final Call<?> call = pending.poll();
+				window.release();
+				if (call == null) {
+					throw new IOException("Unsolicited response");
+				}
+				final byte status = frame.get();
+				if (status == StreamTransport.OK) {
+					call.complete(frame);
+				} else {
+					call.future.completeExceptionally(StreamTransport.readError(frame));
+				}
+			}
+			fail(new IOException("Connection closed by server"));
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	private synchronized void fail(final IOException e) {
+		if (failure == null) {
+			failure = new RemoteException("Lost connection to " + address, e);
+		}
+		Call<?> call;
+		while ((call = pending.poll()) != null) {
+			window.release();
+			call.future.completeExceptionally(failure);
+		}
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	public void close() throws IOException {
+		fail(new IOException("Connection closed by client"));
+	}
+
+	private static final class Call<T> {
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		private final Response<T> response;
+
+		Call(final Response<T> response) {
+			this.response = response;
+		}
+
+		void complete(final ByteBuffer frame) {
+			try {
+				future.complete(response.read(StreamTransport.payload(frame)));
+			} catch (IOException | RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tlc2.tool.distributed.transport.StreamTransport.Frame;
+import tlc2.value.IValueInputStream;
+import tlc2.value.IValueOutputStream;
+
+/**
+ * Accepts connections of {@link StreamClient}s and answers their requests by
+ * delegating to a {@link Handler}. Each connection is served by its own
+ * thread, which handles the connection's requests in order. While the handler
+ * is busy, the server does not read further requests from the connection;
+ * once the socket's buffers are full, the client blocks in TCP flow control.
+ */
+public final class StreamServer implements Closeable {
+
+	/**
+	 * Handles a single request by reading its payload from in and writing the
+	 * response's payload to out. An exception thrown by a handler is sent to
+	 * the client which re-throws it.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		void handle(byte op, IValueInputStream in, IValueOutputStream out) throws Exception;
+	}
+
+	private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+	private final ServerSocketChannel channel;
+	private final Handler handler;
+	private final String name;
+	private volatile boolean closed = false;
+
+	public StreamServer(final String name, final Handler handler) throws IOException {
+		this(name, handler, Integer.getInteger(StreamServer.class.getName() + ".port", 0));
+	}
+
+	/**
+	 * @param port The port to listen on or 0 for an ephemeral port.
+	 */
+	public StreamServer(final String name, final Handler handler, final int port) throws IOException {
+		this.name = name;
+		this.handler = handler;
+		this.channel = ServerSocketChannel.open();
+		this.channel.bind(new InetSocketAddress(port));
+
+		final Thread acceptor = new Thread(this::accept, "StreamServer Acceptor [" + name + "]");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * @return The port this server listens on.
+	 */
+	public int getPort() {
+		return this.channel.socket().getLocalPort();
+	}
+
+	/**
+	 * @return The address clients connect to, given the host name under which
+	 *         this host is known to the clients.
+	 */
+	public InetSocketAddress getAddress(final String hostname) {
+		return new InetSocketAddress(hostname, getPort());
+	}
+
+	private void accept() {
+		while (!closed) {
+			try {
+				final SocketChannel connection = this.channel.accept();
+				connection.socket().setTcpNoDelay(true);
+				connections.add(connection);
+
+				final Thread t = new Thread(() -> serve(connection),
+						"StreamServer [" + name + "-" + connection.socket().getRemoteSocketAddress() + "]");
+				t.setDaemon(true);
+				t.start();
+			} catch (IOException e) {
+				// The server channel has been closed.
+				return;
+			}
+		}
+	}
+
+	private void serve(final SocketChannel connection) {
+		try {
+			while (true) {
+				final ByteBuffer request = StreamTransport.readFrame(connection);
+				if (request == null) {
+					// The client has closed the connection.
+					return;
+				}
+				final byte op = request.get();
+				Frame response;
+				try {
+					response = StreamTransport.newFrame(StreamTransport.OK, out -> {
+						try {
+							handler.handle(op, StreamTransport.payload(request), out);
+						} catch (IOException | RuntimeException e) {
+							throw e;
+						} catch (Exception e) {
+							throw new HandlerException(e);
+						}
+					});
+				} catch (HandlerException e) {
+					response = StreamTransport.newErrorFrame(e.getCause());
+				} catch (Exception | Error e) {
+					response = StreamTransport.newErrorFrame(e);
+				}
+				StreamTransport.writeFrame(connection, response);
+			}
+		} catch (IOException e) {
+			// The client has gone away (or sent garbage). Either way, there is
+			// nobody to report to except the client that is responsible.
+		} finally {
+			connections.remove(connection);
+			try {
+				connection.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting connections and closes the open ones.
+	 */
+	public void close() throws IOException {
+		this.closed = true;
+		this.channel.close();
+		for (SocketChannel connection : connections) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Tunnels a checked exception of a {@link Handler} through
+	 * {@link StreamTransport.Request#write(IValueOutputStream)}.
+	 */
+	@SuppressWarnings("serial")
+	private static final class HandlerException extends IOException {
+		HandlerException(final Exception cause) {
+			super(cause);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.rmi.RemoteException;
+
+import tlc2.tool.TLCState;
+import tlc2.tool.TLCStateVec;
+import tlc2.tool.distributed.NextStateResult;
+import tlc2.tool.distributed.TLCWorkerRMI;
+import tlc2.tool.distributed.fp.FPSetRMI;
+import tlc2.util.BitVector;
+import tlc2.util.LongVec;
+import tlc2.value.IValueInputStream;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.ValueInputStream;
+import tlc2.value.ValueOutputStream;
+
+/**
+ * The (optional) streaming transport of distributed TLC. RMI remains in charge
+ * of the control plane (registration, liveness, checkpoints, ...), whereas the
+ * hot calls - {@link TLCWorkerRMI#getNextStates(TLCState[])} and
+ * {@link FPSetRMI#putBlock(LongVec)}/{@link FPSetRMI#containsBlock(LongVec)} -
+ * go over plain NIO socket channels if the remote object advertises a stream
+ * address (see {@link TLCWorkerRMI#getStreamAddress()} and
+ * {@link FPSetRMI#getStreamAddress()}). Whether a remote object advertises an
+ * address is decided by the JVM that exports it, i.e. the JVM started with
+ * -Dtlc2.tool.distributed.transport.StreamTransport.enabled=true.
+ * <p>
+ * A frame is a four byte length followed by a tag byte (the operation of a
+ * request or the status of a response) and the payload. Payloads are encoded
+ * with {@link ValueOutputStream} - the encoding TLC uses to swap states to disk
+ * - instead of Java serialization. Only exceptions, which are rare, are sent
+ * Java-serialized. A connection carries multiple outstanding requests
+ * (pipelining) whose responses arrive in request order. The number of
+ * outstanding requests per connection is bounded (back-pressure).
+ */
+public final class StreamTransport {
+
+	public static final boolean ENABLED = Boolean.getBoolean(StreamTransport.class.getName() + ".enabled");
+
+	/**
+	 * The maximum number of outstanding requests per connection.
+	 */
+	static final int WINDOW = Integer.getInteger(StreamTransport.class.getName() + ".window", 16);
+
+	// Operations
+	static final byte GET_NEXT_STATES = 1;
+	static final byte PUT_BLOCK = 2;
+	static final byte CONTAINS_BLOCK = 3;
+	static final byte PUT = 4;
+	static final byte CONTAINS = 5;
+
+	// Response status
+	static final byte OK = 0;
+	static final byte ERROR = 1;
+
+	private static final int HEADER = 5;
+
+	private StreamTransport() {
+		// no instantiation!
+	}
+
+	/**
+	 * @return A stream server that handles {@link TLCWorkerRMI#getNextStates(TLCState[])}
+	 *         for the given (local) worker.
+	 */
+	public static StreamServer export(final TLCWorkerRMI worker, final String name) throws IOException {
+		return new StreamServer(name, (op, in, out) -> {
+			if (op != GET_NEXT_STATES) {
+				throw new IllegalArgumentException("Unknown operation " + op);
+			}
+			writeNextStateResult(out, worker.getNextStates(readStates(in)));
+		});
+	}
+
+	/**
+	 * @return A stream server that handles the fingerprint lookups of the given
+	 *         (local) fingerprint set.
+	 */
+	public static StreamServer export(final FPSetRMI fpSet, final String name) throws IOException {
+		return new StreamServer(name, (op, in, out) -> {
+			switch (op) {
+			case PUT_BLOCK:
+				fpSet.putBlock(readLongVec(in)).write(out);
+				break;
+			case CONTAINS_BLOCK:
+				fpSet.containsBlock(readLongVec(in)).write(out);
+				break;
+			case PUT:
+				out.writeByte(fpSet.put(in.readLong()) ? (byte) 1 : (byte) 0);
+				break;
+			case CONTAINS:
+				out.writeByte(fpSet.contains(in.readLong()) ? (byte) 1 : (byte) 0);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown operation " + op);
+			}
+		});
+	}
+
+	/**
+	 * @return A proxy for the given remote worker that uses the streaming
+	 *         transport if the worker advertises a stream address or the remote
+	 *         worker itself otherwise.
+	 */
+	public static TLCWorkerRMI wrap(final TLCWorkerRMI worker) throws IOException {
+		final InetSocketAddress address = worker.getStreamAddress();
+		if (address == null) {
+			return worker;
+		}
+		return new TLCWorkerStreamProxy(worker, new StreamClient(address));
+	}
+
+	/**
+	 * @return A proxy for the given remote fingerprint set that uses the
+	 *         streaming transport if the fingerprint set advertises a stream
+	 *         address or the fingerprint set itself otherwise.
+	 */
+	public static FPSetRMI wrap(final FPSetRMI fpSet) throws IOException {
+		final InetSocketAddress address = fpSet.getStreamAddress();
+		if (address == null) {
+			return fpSet;
+		}
+		return new FPSetStreamProxy(fpSet, new StreamClient(address));
+	}
+
+	/* Framing */
+
+	/**
+	 * A {@link ByteArrayOutputStream} that reserves the frame's header so that
+	 * the frame can be written without copying the payload.
+	 */
+	static final class Frame extends ByteArrayOutputStream {
+
+		Frame(final byte tag) {
+			super(256);
+			this.count = HEADER;
+			this.buf[4] = tag;
+		}
+
+		ByteBuffer toByteBuffer() {
+			final int length = this.count - 4;
+			this.buf[0] = (byte) (length >>> 24);
+			this.buf[1] = (byte) (length >>> 16);
+			this.buf[2] = (byte) (length >>> 8);
+			this.buf[3] = (byte) length;
+			return ByteBuffer.wrap(this.buf, 0, this.count);
+		}
+	}
+
+	static Frame newFrame(final byte tag, final Request request) throws IOException {
+		final Frame frame = new Frame(tag);
+		final ValueOutputStream vos = new ValueOutputStream(frame, false);
+		request.write(vos);
+		vos.getOutputStream().flush();
+		return frame;
+	}
+
+	static Frame newErrorFrame(final Throwable t) throws IOException {
+		try {
+			return serialize(t);
+		} catch (NotSerializableException e) {
+			return serialize(new RemoteException(t.toString()));
+		}
+	}
+
+	private static Frame serialize(final Throwable t) throws IOException {
+		final Frame frame = new Frame(ERROR);
+		try (ObjectOutputStream oos = new ObjectOutputStream(frame)) {
+			oos.writeObject(t);
+		}
+		return frame;
+	}
+
+	static void writeFrame(final WritableByteChannel channel, final Frame frame) throws IOException {
+		final ByteBuffer buffer = frame.toByteBuffer();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * @return The frame's tag followed by its payload or null if the channel has
+	 *         been closed at a frame boundary.
+	 */
+	static ByteBuffer readFrame(final ReadableByteChannel channel) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(4);
+		if (!readFully(channel, header, true)) {
+			return null;
+		}
+		header.flip();
+		final int length = header.getInt();
+		if (length < 1) {
+			throw new IOException("Invalid frame length " + length);
+		}
+		final ByteBuffer frame = ByteBuffer.allocate(length);
+		readFully(channel, frame, false);
+		frame.flip();
+		return frame;
+	}
+
+	private static boolean readFully(final ReadableByteChannel channel, final ByteBuffer buffer, final boolean eofOk)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				if (eofOk && buffer.position() == 0) {
+					return false;
+				}
+				throw new EOFException();
+			}
+		}
+		return true;
+	}
+
+	static ValueInputStream payload(final ByteBuffer frame) throws IOException {
+		return new ValueInputStream(
+				new ByteArrayInputStream(frame.array(), frame.position(), frame.remaining()));
+	}
+
+	static Throwable readError(final ByteBuffer frame) throws IOException {
+		try (ObjectInputStream ois = new ObjectInputStream(
+				new ByteArrayInputStream(frame.array(), frame.position(), frame.remaining()))) {
+			return (Throwable) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			return new RemoteException(e.getMessage(), e);
+		}
+	}
+
+	/* Encoding of the payloads */
+
+	static void writeStates(final IValueOutputStream vos, final TLCState[] states) throws IOException {
+		vos.writeNat(states.length);
+		for (int i = 0; i < states.length; i++) {
+			states[i].write(vos);
+		}
+	}
+
+	static TLCState[] readStates(final IValueInputStream vis) throws IOException {
+		final TLCState[] states = new TLCState[vis.readNat()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = TLCState.Empty.createEmpty();
+			states[i].read(vis);
+		}
+		return states;
+	}
+
+	static void writeLongVec(final IValueOutputStream vos, final LongVec fps) throws IOException {
+		final int size = fps.size();
+		vos.writeNat(size);
+		for (int i = 0; i < size; i++) {
+			vos.writeLong(fps.elementAt(i));
+		}
+	}
+
+	static LongVec readLongVec(final IValueInputStream vis) throws IOException {
+		final int size = vis.readNat();
+		final LongVec fps = new LongVec(Math.max(1, size));
+		for (int i = 0; i < size; i++) {
+			fps.addElement(vis.readLong());
+		}
+		return fps;
+	}
+
+	static BitVector readBitVector(final IValueInputStream vis) throws IOException {
+		final BitVector bv = new BitVector();
+		bv.read(vis);
+		return bv;
+	}
+
+	static void writeNextStateResult(final IValueOutputStream vos, final NextStateResult result) throws IOException {
+		vos.writeLong(result.getComputationTime());
+		vos.writeLong(result.getStatesComputed());
+		final TLCStateVec[] states = result.getNextStates();
+		final LongVec[] fps = result.getNextFingerprints();
+		vos.writeNat(states.length);
+		for (int i = 0; i < states.length; i++) {
+			final int size = states[i].size();
+			vos.writeNat(size);
+			for (int j = 0; j < size; j++) {
+				states[i].elementAt(j).write(vos);
+			}
+			writeLongVec(vos, fps[i]);
+		}
+	}
+
+	static NextStateResult readNextStateResult(final IValueInputStream vis) throws IOException {
+		final long computationTime = vis.readLong();
+		final long statesComputed = vis.readLong();
+		final int len = vis.readNat();
+		final TLCStateVec[] states = new TLCStateVec[len];
+		final LongVec[] fps = new LongVec[len];
+		for (int i = 0; i < len; i++) {
+			final int size = vis.readNat();
+			states[i] = new TLCStateVec(Math.max(1, size));
+			for (int j = 0; j < size; j++) {
+				final TLCState state = TLCState.Empty.createEmpty();
+				state.read(vis);
+				states[i].addElement(state);
+			}
+			fps[i] = readLongVec(vis);
+		}
+		return new NextStateResult(states, fps, computationTime, statesComputed);
+	}
+
+	/**
+	 * Writes the payload of a request.
+	 */
+	@FunctionalInterface
+	public interface Request {
+		void write(IValueOutputStream vos) throws IOException;
+	}
+
+	/**
+	 * Reads the payload of a response.
+	 */
+	@FunctionalInterface
+	public interface Response<T> {
+		T read(IValueInputStream vis) throws IOException;
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.distributed.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.rmi.RemoteException;
+
+import tlc2.tool.TLCState;
+import tlc2.tool.WorkerException;
+import tlc2.tool.distributed.NextStateResult;
+import tlc2.tool.distributed.TLCWorkerRMI;
+
+/**
+ * Sends {@link TLCWorkerRMI#getNextStates(TLCState[])} over a
+ * {@link StreamClient} and delegates everything else to the worker's RMI stub.
+ */
+final class TLCWorkerStreamProxy implements TLCWorkerRMI {
+
+	private final TLCWorkerRMI worker;
+	private final StreamClient client;
+
+	TLCWorkerStreamProxy(final TLCWorkerRMI worker, final StreamClient client) {
+		this.worker = worker;
+		this.client = client;
+	}
+
+	public NextStateResult getNextStates(final TLCState[] states) throws RemoteException, WorkerException {
+		try {
+			return client.call(StreamTransport.GET_NEXT_STATES, vos -> StreamTransport.writeStates(vos, states),
+					StreamTransport::readNextStateResult);
+		} catch (RemoteException | WorkerException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RemoteException(e.getMessage(), e);
+		}
+	}
+
+	public boolean isAlive() throws RemoteException {
+		return worker.isAlive();
+	}
+
+	public void exit() throws RemoteException {
+		try {
+			client.close();
+		} catch (IOException ignored) {
+		}
+		worker.exit();
+	}
+
+	public URI getURI() throws RemoteException {
+		return worker.getURI();
+	}
+
+	public double getCacheRateRatio() throws RemoteException {
+		return worker.getCacheRateRatio();
+	}
+
+	public InetSocketAddress getStreamAddress() throws RemoteException {
+		return worker.getStreamAddress();
+	}
+}
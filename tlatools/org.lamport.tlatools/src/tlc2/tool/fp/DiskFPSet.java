@@ -10,6 +10,8 @@ import java.io.RandomAccessFile;
 import java.net.InetAddress;
 import java.rmi.RemoteException;
 import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
@@ -118,6 +120,31 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 	protected BufferedRandomAccessFile[] brafPool;
 	protected int poolIndex;
 
+	/**
+	 * Size (log base 2) of the segments in which the disk file is mapped into
+	 * memory.
+	 * 
+	 * @see MappedFPFile
+	 */
+	private static final int LogMappedSegmentSize = Integer.getInteger(DiskFPSet.class.getName() + ".mmapLogSegmentSize", 30);
+
+	/**
+	 * true iff lookups on disk read the disk file through a memory mapping
+	 * ({@link DiskFPSet#mapped}) instead of {@link DiskFPSet#braf}. The OS page
+	 * cache then serves the interpolated binary search directly, without
+	 * per-thread buffers that have to be refilled on each seek.
+	 * <p>
+	 * Not for Windows, which refuses to replace a file that is still mapped.
+	 */
+	private final boolean mmap;
+
+	/**
+	 * The current disk file mapped into memory or <code>null</code> if
+	 * {@link DiskFPSet#mmap} is false or no disk file exists yet. Replaced
+	 * whenever the disk file is re-written.
+	 */
+	protected MappedFPFile mapped;
+
 	/**
 	 * index of first fp on each disk page
 	 * special case: last entry is last fp in file
@@ -131,10 +158,14 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 	private LongAdder diskLookupCnt = new LongAdder();
 	protected LongAdder diskWriteCnt = new LongAdder();
 	private LongAdder diskSeekCnt = new LongAdder();
+	// Probes by workers on the same (local) or another (remote) NUMA node than
+	// the one owning this FPSet. Only counted when nested in a NUMAFPSet.
+	final LongAdder localProbeCnt = new LongAdder();
+	final LongAdder remoteProbeCnt = new LongAdder();
 	private LongAdder diskSeekCache = new LongAdder();
 	
 	// indicate how many cp or disk grow in put(long) has occurred
-	private int checkPointMark;
+	protected int checkPointMark;
 	protected int growDiskMark;
 
 	/**
@@ -194,6 +225,7 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		this.tblLoad = new LongAdder();
 		this.flusherChosen = new AtomicBoolean(false);
 		this.index = null;
+		this.mmap = Boolean.getBoolean(DiskFPSet.class.getName() + ".mmap");
 		
 		try {
 			diskFPSetMXWrapper = new DiskFPSetMXWrapper(this);
@@ -247,7 +279,9 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 
 		
 		try {
-			// create/truncate backing file:
+			// create/truncate backing file. Delete it first because it might be
+			// a hard link to a checkpoint (see OffHeapDiskFPSet#beginChkpt).
+			new File(this.fpFilename).delete();
 			FileOutputStream f = new FileOutputStream(this.fpFilename);
 			f.close();
 
@@ -435,6 +469,30 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		// no page is in between loPage and hiPage at this point
 		Assert.check(hiPage == loPage + 1, EC.SYSTEM_INDEX_ERROR);
 
+		final MappedFPFile m = this.mapped;
+		if (m != null) {
+			return diskLookupBinarySearch(m, null, fp, indexLength, loPage, hiPage, loVal, hiVal, dfp);
+		}
+
+		// b0) open file for reading that is associated with current thread
+		final int id = IdThread.GetId(this.braf.length);
+		final BufferedRandomAccessFile raf = id < this.braf.length ? this.braf[id] : poolOpen();
+
+		final boolean diskHit = diskLookupBinarySearch(null, raf, fp, indexLength, loPage, hiPage, loVal, hiVal, dfp);
+		
+		// b2) done doing disk search -> close file (finally candidate? => not really because if we exit with error, TLC exits)
+		if (id >= this.braf.length) {
+			poolClose(raf);
+		}
+		return diskHit;
+	}
+
+	/**
+	 * Reads from m unless null, from raf otherwise.
+	 */
+	private final boolean diskLookupBinarySearch(final MappedFPFile m, final BufferedRandomAccessFile raf,
+			final long fp, final int indexLength, final int loPage, final int hiPage, long loVal, long hiVal,
+			final double dfp) throws IOException {
 		boolean diskHit = false;
 		long midEntry = -1L;
 		// lower bound for the interval search in 
@@ -443,15 +501,6 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		long hiEntry = ((loPage == indexLength - 2) ? this.fileCnt - 1
 				: ((long) hiPage) * NumEntriesPerPage);
 		try {
-			// b0) open file for reading that is associated with current thread
-			BufferedRandomAccessFile raf;
-			final int id = IdThread.GetId(this.braf.length);
-			if (id < this.braf.length) {
-				raf = this.braf[id];
-			} else {
-				raf = poolOpen();
-			}
-			
 			// b1) do interpolated binary search on disk page determined by a)
 
 			while (loEntry < hiEntry) {
@@ -464,14 +513,19 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 
 				Assert.check(loEntry <= midEntry && midEntry < hiEntry,
 						EC.SYSTEM_INDEX_ERROR);
-				// midEntry calculation done on logical indices,
-				// addressing done on bytes, thus convert to long-addressing (* LongSize)
-				if (raf.seeek(midEntry * LongSize)) {
-					diskSeekCnt.increment();
+				final long v;
+				if (m != null) {
+					v = m.get(midEntry);
 				} else {
-					diskSeekCache.increment();
+					// midEntry calculation done on logical indices,
+					// addressing done on bytes, thus convert to long-addressing (* LongSize)
+					if (raf.seeek(midEntry * LongSize)) {
+						diskSeekCnt.increment();
+					} else {
+						diskSeekCache.increment();
+					}
+					v = raf.readLong();
 				}
-				final long v = raf.readLong();
 
 				if (fp < v) {
 					hiEntry = midEntry;
@@ -484,10 +538,6 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 					break;
 				}
 			}
-			// b2) done doing disk search -> close file (finally candidate? => not really because if we exit with error, TLC exits)
-			if (id >= this.braf.length) {
-				poolClose(raf);
-			}
 		} catch (final IOException e) {
 			if(midEntry * LongSize < 0) {
 			 // LL modified error message on 7 April 2012
@@ -501,6 +551,77 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		return diskHit;
 	}
 
+	/**
+	 * Looks up the given block of fingerprints on disk. The fingerprints have to
+	 * be in ascending order (msb zeroed). Instead of starting each lookup from
+	 * scratch (see {@link DiskFPSet#diskLookup(long)}), the page search resumes
+	 * from the page of the previous fingerprint and the whole block is resolved
+	 * by a single reader moving forward through the disk file. Consecutive
+	 * fingerprints that fall onto the same disk page are thus answered from the
+	 * reader's buffer instead of causing a seek each.
+	 * <p>
+	 * As with {@link DiskFPSet#diskLookup(long)}, the caller has to make sure
+	 * that the disk file is not re-written while the lookup is in progress.
+	 * 
+	 * @param fps
+	 *            Fingerprints sorted in ascending order
+	 * @param len
+	 *            Number of fingerprints in fps to lookup
+	 * @param hits
+	 *            The i-th bit is set iff fps[i] is on disk
+	 */
+	final void diskLookupBlock(final long[] fps, final int len, final BitSet hits) throws IOException {
+		if (this.index == null || len == 0) {
+			return;
+		}
+		this.diskLookupCnt.add(len);
+
+		final long[] idx = this.index;
+		final int indexLength = idx.length;
+		final long loVal = idx[0];
+		final long hiVal = idx[indexLength - 1];
+
+		final MappedFPFile m = this.mapped;
+		final int id = IdThread.GetId(this.braf.length);
+		final BufferedRandomAccessFile raf = m != null ? null : id < this.braf.length ? this.braf[id] : poolOpen();
+		
+		int page = 0;
+		for (int i = 0; i < len; i++) {
+			final long fp = fps[i];
+			if (fp < loVal) {
+				continue;
+			}
+			if (fp > hiVal) {
+				// fps is sorted, thus all remaining fingerprints are outside of
+				// the interval too.
+				break;
+			}
+			if (fp == hiVal) {
+				// fps might contain fp more than once.
+				hits.set(i);
+				continue;
+			}
+			// Find the page whose first fingerprint is the largest one smaller
+			// or equal to fp. Pages before the current one have been ruled
+			// out by the previous (smaller) fingerprints.
+			final int pos = Arrays.binarySearch(idx, page, indexLength - 1, fp);
+			if (pos >= 0) {
+				// given fp happens to be in index file
+				hits.set(i);
+				page = pos;
+				continue;
+			}
+			page = -pos - 2;
+			if (diskLookupBinarySearch(m, raf, fp, indexLength, page, page + 1, idx[page], idx[page + 1], (double) fp)) {
+				hits.set(i);
+			}
+		}
+
+		if (raf != null && id >= this.braf.length) {
+			poolClose(raf);
+		}
+	}
+
 	private final BufferedRandomAccessFile poolOpen() throws IOException {
 		synchronized (this.brafPool) {
 			if (this.poolIndex < this.brafPool.length) {
@@ -724,19 +845,31 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 					this.fpFilename, "r");
 		}
 		this.poolIndex = 0;
+		
+		remap();
+	}
+
+	/**
+	 * Maps the current disk file into memory if {@link DiskFPSet#mmap} is true.
+	 * The caller has to have exclusive access to the disk file.
+	 */
+	protected final void remap() throws IOException {
+		if (this.mmap) {
+			this.mapped = this.fileCnt > 0 ? new MappedFPFile(this.fpFilename, LogMappedSegmentSize) : null;
+		}
 	}
 
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.FPSet#beginChkpt()
 	 */
-	public final void beginChkpt() throws IOException {
+	public void beginChkpt() throws IOException {
 		// @see tlc2.tool.fp.DiskFPSet.commitChkpt()
 	}
 
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.FPSet#commitChkpt()
 	 */
-	public final void commitChkpt() throws IOException { 
+	public void commitChkpt() throws IOException { 
 		/* SKIP */
 		// DiskFPSet checkpointing is a no-op, because DiskFPSet recreates 
 		// the fingerprints from the TLCTrace file. Not from its own .fp file. 
@@ -781,7 +914,7 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.FPSet#recover()
 	 */
-	public final void recover(TLCTrace trace) throws IOException {
+	public void recover(TLCTrace trace) throws IOException {
 		final Enumerator elements = trace.elements();
 		while (elements.nextPos() != -1) {
 			long fp = elements.nextFP();
@@ -790,7 +923,7 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		elements.close();
 	}
 
-	private String getChkptName(String fname, String name) {
+	protected String getChkptName(String fname, String name) {
 		return this.metadir + FileUtil.separator + fname + ".fp." + name;
 	}
 
@@ -931,6 +1064,20 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 		return diskSeekCache.sum();
 	}
 
+	/**
+	 * @see NUMAFPSet
+	 */
+	public long getLocalProbeCnt() {
+		return localProbeCnt.sum();
+	}
+
+	/**
+	 * @see NUMAFPSet
+	 */
+	public long getRemoteProbeCnt() {
+		return remoteProbeCnt.sum();
+	}
+
 	/**
 	 * @return the growDiskMark
 	 */
@@ -1126,6 +1273,8 @@ public abstract class DiskFPSet extends FPSet implements FPSetStatistic {
 			assert checkFile(braf[0], index, fileCnt);
 			
 			poolIndex = 0;
+			
+			remap();
 		}
 		
 		protected abstract void mergeNewEntries(BufferedRandomAccessFile[] inRAFs, RandomAccessFile outRAF) throws IOException;
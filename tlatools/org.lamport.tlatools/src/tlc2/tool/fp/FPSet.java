@@ -6,9 +6,11 @@
 package tlc2.tool.fp;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.BitSet;
 
 import tlc2.tool.TLCTrace;
 import tlc2.tool.distributed.fp.DistributedFPSet;
@@ -37,6 +39,13 @@ public abstract class FPSet extends UnicastRemoteObject implements FPSetRMI
 	protected long statesSeen = 0L;
 
 	protected final FPSetConfiguration fpSetConfig;
+
+	/**
+	 * The address of the stream server exporting this {@link FPSet} or null.
+	 * 
+	 * @see FPSetRMI#getStreamAddress()
+	 */
+	private volatile InetSocketAddress streamAddress;
 	
     protected FPSet(final FPSetConfiguration fpSetConfig) throws RemoteException {
     	this.fpSetConfig = fpSetConfig;
@@ -65,6 +74,43 @@ public abstract class FPSet extends UnicastRemoteObject implements FPSetRMI
      */
     public abstract boolean put(long fp) throws IOException;
 
+	/**
+	 * Puts the block of fingerprints into this set. Semantically, this is
+	 * equivalent to calling {@link FPSet#put(long)} for fps[0] to fps[len - 1]
+	 * in this order: The i-th bit of seen is set iff {@link FPSet#put(long)}
+	 * would have returned true for fps[i]. In other words, a fingerprint that
+	 * occurs more than once in fps is reported as seen from its second
+	 * occurrence onward.
+	 * <p>
+	 * Subclasses that keep fingerprints on disk override this method to
+	 * resolve the lookups of the complete block with sequential instead of
+	 * random I/O.
+	 * 
+	 * @param fps
+	 *            The fingerprints to put into this set. Its content is not
+	 *            modified.
+	 * @param len
+	 *            The number of fingerprints in fps, starting at index 0.
+	 * @param seen
+	 *            Receives the result. Bits [0, len) are cleared prior to
+	 *            setting them.
+	 */
+	public void putBlock(final long[] fps, final int len, final BitSet seen) throws IOException {
+		seen.clear(0, len);
+		for (int i = 0; i < len; i++) {
+			if (this.put(fps[i])) {
+				seen.set(i);
+			}
+		}
+	}
+
+	/**
+	 * @see FPSet#putBlock(long[], int, BitSet)
+	 */
+	public final void putBlock(final long[] fps, final BitSet seen) throws IOException {
+		this.putBlock(fps, fps.length, seen);
+	}
+
     /* (non-Javadoc)
      * @see tlc2.tool.distributed.fp.FPSetRMI#contains(long)
      */
@@ -120,6 +166,17 @@ public abstract class FPSet extends UnicastRemoteObject implements FPSetRMI
 
     public abstract void recoverFP(long fp) throws IOException;
 
+	/**
+	 * Restores the set from a checkpoint of its own (see {@link #beginChkpt()})
+	 * instead of re-inserting each fingerprint of the trace.
+	 * 
+	 * @return false iff no such checkpoint is available. The caller then has to
+	 *         recover the set from the trace.
+	 */
+	protected boolean recoverChkpt() throws IOException {
+		return false;
+	}
+
     /* The set of checkpoint methods for remote checkpointing. */
     /* (non-Javadoc)
      * @see tlc2.tool.distributed.fp.FPSetRMI#beginChkpt(java.lang.String)
@@ -200,6 +257,17 @@ public abstract class FPSet extends UnicastRemoteObject implements FPSetRMI
     public long getStatesSeen() throws RemoteException {
     	return statesSeen;
     }
+
+    /* (non-Javadoc)
+     * @see tlc2.tool.distributed.fp.FPSetRMI#getStreamAddress()
+     */
+    public InetSocketAddress getStreamAddress() throws RemoteException {
+    	return streamAddress;
+    }
+
+    public void setStreamAddress(final InetSocketAddress address) {
+    	this.streamAddress = address;
+    }
     
     public FPSetConfiguration getConfiguration() {
     	return fpSetConfig;
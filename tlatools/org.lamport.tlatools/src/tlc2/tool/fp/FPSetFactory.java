@@ -102,6 +102,9 @@ public abstract class FPSetFactory {
 			// Pass physical memory instead of logical FP count to adhere to
 			// the general FPSet ctor contract.
 			// @see http://bugzilla.tlaplus.net/show_bug.cgi?id=290
+			if (NUMAFPSet.getNodeCount() > 1) {
+				return new NUMAFPSet(fpSetConfig);
+			}
 			return new MultiFPSet(fpSetConfig);
 		} else {
 			if (implClassname != null) {
@@ -76,6 +76,18 @@ public interface FPSetStatistic {
 	 */
 	public long getDiskSeekCache();
 	
+	/**
+	 * @return The number of probes (lookups and inserts) by workers on the NUMA
+	 *         node that owns this set (see {@link NUMAFPSet}).
+	 */
+	public long getLocalProbeCnt();
+	
+	/**
+	 * @return The number of probes (lookups and inserts) by workers on a NUMA
+	 *         node other than the one that owns this set (see {@link NUMAFPSet}).
+	 */
+	public long getRemoteProbeCnt();
+	
 	/**
 	 * @return the growDiskMark
 	 */
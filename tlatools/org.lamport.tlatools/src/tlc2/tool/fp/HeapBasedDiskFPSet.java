@@ -3,6 +3,8 @@ package tlc2.tool.fp;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 
@@ -283,9 +285,34 @@ public abstract class HeapBasedDiskFPSet extends DiskFPSet {
 		// interleaved. This is no problem though, because memInsert again
 		// checks existence for fp to be inserted
 		
+		return insert(fp0, null);
+	}
+
+	/**
+	 * Inserts fp0 into the in-memory buffer unless it is there already and
+	 * flushes the buffer to disk if needed.
+	 * 
+	 * @param fp0
+	 *            A fingerprint with its msb zeroed that has been looked up on
+	 *            disk without a hit.
+	 * @param idx
+	 *            The {@link DiskFPSet#index} against which the disk lookup was
+	 *            done or <code>null</code> if the disk lookup is known to be
+	 *            current.
+	 * @return true iff fp0 has been found.
+	 */
+	private final boolean insert(final long fp0, final long[] idx) throws IOException {
 		final Lock w = rwLock.getAt(getLockIndex(fp0)).writeLock();
 		w.lock();
 		
+		if (idx != null && idx != this.index) {
+			// The disk file has been re-written since fp0 has been looked up on
+			// disk. memInsert would not find fp0 if a concurrent put inserted
+			// it into memory and a flush moved it to disk since. Start over.
+			w.unlock();
+			return put(fp0);
+		}
+		
 		// if disk lookup failed, add to memory buffer
 		if (this.memInsert(fp0)) {
 			w.unlock();
@@ -326,6 +353,71 @@ public abstract class HeapBasedDiskFPSet extends DiskFPSet {
 		return false;
 	}
 
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.FPSet#putBlock(long[], int, java.util.BitSet)
+	 */
+	@Override
+	public void putBlock(final long[] fps, final int len, final BitSet seen) throws IOException {
+		// Without a disk file, there is nothing to be gained from sorting the
+		// block first.
+		if (this.index == null) {
+			super.putBlock(fps, len, seen);
+			return;
+		}
+		seen.clear(0, len);
+
+		// 1) Lookup in-memory buffer and remember the fingerprints that have
+		// to be looked up on disk.
+		final long[] misses = new long[len];
+		int m = 0;
+		for (int i = 0; i < len; i++) {
+			final long fp0 = checkValid(fps[i]) & 0x7FFFFFFFFFFFFFFFL;
+			final Lock readLock = rwLock.getAt(getLockIndex(fp0)).readLock();
+			readLock.lock();
+			if (this.memLookup(fp0)) {
+				this.memHitCnt.increment();
+				seen.set(i);
+			} else {
+				misses[m++] = fp0;
+			}
+			readLock.unlock();
+		}
+		if (m == 0) {
+			return;
+		}
+
+		// 2) Lookup the misses on disk in ascending order. Holding any one of
+		// the read locks prevents a flush from re-writing the disk file
+		// because flushing acquires all locks exclusively.
+		Arrays.sort(misses, 0, m);
+		final BitSet diskHits = new BitSet(m);
+		final long[] idx;
+		final Lock readLock = rwLock.getAt(getLockIndex(misses[0])).readLock();
+		readLock.lock();
+		try {
+			idx = this.index;
+			diskLookupBlock(misses, m, diskHits);
+		} finally {
+			readLock.unlock();
+		}
+
+		// 3) Insert what is neither in memory nor on disk in the original
+		// order of the block so that a fingerprint occurring more than once is
+		// only reported unseen the first time.
+		for (int i = 0; i < len; i++) {
+			if (seen.get(i)) {
+				continue;
+			}
+			final long fp0 = checkValid(fps[i]) & 0x7FFFFFFFFFFFFFFFL;
+			if (diskHits.get(Arrays.binarySearch(misses, 0, m, fp0))) {
+				this.diskHitCnt.increment();
+				seen.set(i);
+			} else if (insert(fp0, idx)) {
+				seen.set(i);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.DiskFPSet#memInsert(long)
 	 */
@@ -3,6 +3,9 @@ package tlc2.tool.fp;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -63,7 +66,7 @@ public final class LongArray {
 	 */
 	private static final int logAddressSize = 3;
 
-	LongArray(final long positions) {
+	public LongArray(final long positions) {
 		this.length = positions;
 		this.unsafe = getUnsafe();
 		
@@ -134,7 +137,22 @@ public final class LongArray {
 	 */
 	public final void zeroMemory()
 			throws IOException {
-		this.unsafe.setMemory(baseAddress, length * 8L, (byte) 0); // times 8L because it only writes a single byte.
+		setMemory((byte) 0);
+	}
+
+	/**
+	 * Sets each byte of the memory to the given value. With
+	 * <code>(byte) -1</code>, every position subsequently reads as -1L.
+	 */
+	public final void setMemory(final byte value) {
+		this.unsafe.setMemory(baseAddress, length * 8L, value); // times 8L because it only writes a single byte.
+	}
+
+	/**
+	 * Releases the memory. This array must not be accessed afterwards.
+	 */
+	public final void free() {
+		this.unsafe.freeMemory(baseAddress);
 	}
 	
 	/**
@@ -188,6 +206,56 @@ public final class LongArray {
 		}
 	}
 
+	/**
+	 * Copies the content of the given array, which has to be of the same size,
+	 * into this array.
+	 */
+	public final void copyFrom(final LongArray from) {
+		Assert.check(from.length == this.length, EC.GENERAL);
+		this.unsafe.copyMemory(from.baseAddress, this.baseAddress, length << logAddressSize);
+	}
+
+	/**
+	 * The size in bytes of the (heap) buffer with which the memory is
+	 * transferred to and from a channel.
+	 */
+	private static final int TRANSFER_SIZE = 1 << 22;
+
+	/**
+	 * Writes the memory to the given channel in native byte order.
+	 */
+	public final void write(final WritableByteChannel channel) throws IOException {
+		final long bytes = length << logAddressSize;
+		final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TRANSFER_SIZE, bytes));
+		for (long offset = 0L; offset < bytes; offset += buffer.capacity()) {
+			final int len = (int) Math.min(buffer.capacity(), bytes - offset);
+			this.unsafe.copyMemory(null, baseAddress + offset, buffer.array(), Unsafe.ARRAY_BYTE_BASE_OFFSET, len);
+			buffer.clear().limit(len);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Fills the memory from the given channel which is expected to provide
+	 * the content written by {@link #write(WritableByteChannel)}.
+	 */
+	public final void read(final ReadableByteChannel channel) throws IOException {
+		final long bytes = length << logAddressSize;
+		final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TRANSFER_SIZE, bytes));
+		for (long offset = 0L; offset < bytes; offset += buffer.capacity()) {
+			final int len = (int) Math.min(buffer.capacity(), bytes - offset);
+			buffer.clear().limit(len);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new IOException("Unexpected end of channel after " + (offset + buffer.position()) + " bytes.");
+				}
+			}
+			this.unsafe.copyMemory(buffer.array(), Unsafe.ARRAY_BYTE_BASE_OFFSET, null, baseAddress + offset, len);
+		}
+	}
+
 	/**
 	 * Converts from logical positions to 
 	 * physical memory addresses.
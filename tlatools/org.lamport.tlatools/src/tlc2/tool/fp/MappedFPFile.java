@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.fp;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A read-only view of a (sorted) fingerprint file written by a
+ * {@link DiskFPSet}, which maps the file into memory. A single
+ * {@link MappedByteBuffer} can address at most 2^31 bytes, hence the file is
+ * mapped in segments of 2^logSegmentSize bytes. Segments are a multiple of
+ * {@link FPSet#LongSize}, thus a fingerprint never straddles two segments.
+ * <p>
+ * Reads are absolute (see {@link MappedByteBuffer#getLong(int)}) which do not
+ * modify the state of the buffers. Consequently, a single instance can be used
+ * by all threads concurrently without synchronization.
+ * <p>
+ * The mapping remains valid even after the underlying file has been replaced
+ * with a new one. It is released when the instance gets garbage collected.
+ */
+final class MappedFPFile {
+
+	private final MappedByteBuffer[] segments;
+	
+	private final int logSegmentSize;
+	
+	private final long segmentMask;
+	
+	private final long fpCnt;
+
+	MappedFPFile(final String filename, final int logSegmentSize) throws IOException {
+		// A segment has to hold at least one fingerprint and must not exceed
+		// Integer.MAX_VALUE bytes.
+		if (logSegmentSize < 3 || logSegmentSize > 30) {
+			throw new IllegalArgumentException("Segment size has to be in [2^3, 2^30] bytes.");
+		}
+		this.logSegmentSize = logSegmentSize;
+		this.segmentMask = (1L << logSegmentSize) - 1L;
+
+		try (RandomAccessFile raf = new RandomAccessFile(filename, "r"); FileChannel channel = raf.getChannel()) {
+			final long length = channel.size();
+			this.fpCnt = length / FPSet.LongSize;
+			
+			final int segmentCnt = (int) ((length + segmentMask) >>> logSegmentSize);
+			this.segments = new MappedByteBuffer[segmentCnt];
+			for (int i = 0; i < segmentCnt; i++) {
+				final long position = ((long) i) << logSegmentSize;
+				final long size = Math.min(1L << logSegmentSize, length - position);
+				this.segments[i] = channel.map(MapMode.READ_ONLY, position, size);
+			}
+		}
+	}
+
+	/**
+	 * @param entry
+	 *            The (zero-based) position of the fingerprint in the file.
+	 * @return The fingerprint at the given position.
+	 */
+	long get(final long entry) {
+		final long offset = entry * FPSet.LongSize;
+		return this.segments[(int) (offset >>> logSegmentSize)].getLong((int) (offset & segmentMask));
+	}
+
+	/**
+	 * @return The number of fingerprints in the file.
+	 */
+	long size() {
+		return this.fpCnt;
+	}
+}
@@ -9,6 +9,8 @@ import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -103,11 +105,14 @@ public class MultiFPSet extends FPSet {
 	 * @return Partition given fp into the {@link FPSet} space 
 	 */
 	protected FPSet getFPSet(long fp) {
+		return this.sets.get(getFPSetIndex(fp));
+	}
+
+	protected final int getFPSetIndex(final long fp) {
 		// determine corresponding fpset (using unsigned right shift)
 		// shifts a zero into the leftmost (msb) position of the first operand for right operand times
 		// and cast it to int loosing the leftmost 32 bit
-		final int idx = (int) (fp >>> this.fpbits);
-		return this.sets.get(idx);
+		return (int) (fp >>> this.fpbits);
 	}
 
 	/**
@@ -121,6 +126,50 @@ public class MultiFPSet extends FPSet {
 		return getFPSet(fp).put(fp);
 	}
 
+	/**
+	 * Partitions the block into sub-blocks, one for each nested {@link FPSet},
+	 * to retain the (disk) locality the nested {@link FPSet}s exploit.
+	 * 
+	 * @see tlc2.tool.fp.FPSet#putBlock(long[], int, java.util.BitSet)
+	 */
+	@Override
+	public void putBlock(final long[] fps, final int len, final BitSet seen) throws IOException {
+		seen.clear(0, len);
+		
+		// Counting sort of the indices of fps by nested FPSet.
+		final int[] offsets = new int[this.sets.size() + 1];
+		for (int i = 0; i < len; i++) {
+			offsets[getFPSetIndex(fps[i]) + 1]++;
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		final int[] indices = new int[len];
+		final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i = 0; i < len; i++) {
+			indices[next[getFPSetIndex(fps[i])]++] = i;
+		}
+
+		final BitSet subSeen = new BitSet();
+		for (int j = 0; j < this.sets.size(); j++) {
+			final int from = offsets[j];
+			final int subLen = offsets[j + 1] - from;
+			if (subLen == 0) {
+				continue;
+			}
+			// Indices of a sub-block are ascending, thus its fingerprints are
+			// in the order of the original block.
+			final long[] sub = new long[subLen];
+			for (int k = 0; k < subLen; k++) {
+				sub[k] = fps[indices[from + k]];
+			}
+			this.sets.get(j).putBlock(sub, subLen, subSeen);
+			for (int k = subSeen.nextSetBit(0); k >= 0 && k < subLen; k = subSeen.nextSetBit(k + 1)) {
+				seen.set(indices[from + k]);
+			}
+		}
+	}
+
 	/**
 	 * Returns <code>true</code> iff the fingerprint <code>fp</code> is in this
 	 * set.
@@ -208,10 +257,29 @@ public class MultiFPSet extends FPSet {
 	 * @see tlc2.tool.fp.FPSet#recover()
 	 */
 	public final void recover(TLCTrace trace) throws IOException {
+		// Sets that have a checkpoint of their own restore it concurrently.
+		final boolean[] recovered = new boolean[this.sets.size()];
+		IntStream.range(0, this.sets.size()).parallel().forEach(i -> {
+			try {
+				recovered[i] = sets.get(i).recoverChkpt();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		boolean replay = false;
+		for (boolean b : recovered) {
+			replay |= !b;
+		}
+		if (!replay) {
+			return;
+		}
+		
 		final Enumerator elements = trace.elements();
 		while (elements.nextPos() != -1) {
 			long fp = elements.nextFP();
-			getFPSet(fp).recoverFP(fp);
+			if (!recovered[getFPSetIndex(fp)]) {
+				getFPSet(fp).recoverFP(fp);
+			}
 		}
 		elements.close();
 	}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.fp;
+
+import java.io.File;
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.util.BitSet;
+
+import tlc2.util.IdThread;
+
+/**
+ * A {@link MultiFPSet} whose nested {@link FPSet}s (partitions) are owned by
+ * the nodes of a NUMA machine. Partitions are keyed by the most significant
+ * bits of a fingerprint (like with {@link MultiFPSet}) and assigned to nodes in
+ * contiguous ranges: With n nodes and 2^k partitions, node i owns the
+ * partitions i * 2^k / n up to (i + 1) * 2^k / n - 1. Worker i is assigned to
+ * node i mod n.
+ * <p>
+ * Java can neither pin a thread to a node nor place memory on a node. Thus,
+ * whether a probe is actually local depends on running TLC such that the
+ * operating system's scheduler and first-touch policy agree with the above
+ * assignment (e.g. one JVM per node with numactl). What this class provides is
+ * the instrumentation: Every probe of a worker is counted as local or remote in
+ * the partition's {@link FPSetStatistic} and thus shows up in the partition's
+ * {@link tlc2.tool.fp.management.DiskFPSetMXBean}.
+ * <p>
+ * Remote inserts are batched when workers insert successors in blocks (see
+ * tlc2.tool.Worker.blockSize): {@link #putBlock(long[], int, BitSet)} hands
+ * each partition its sub-block in a single call instead of one call per
+ * fingerprint.
+ * <p>
+ * NUMAFPSet is used instead of {@link MultiFPSet} if the system property
+ * tlc2.tool.fp.NUMAFPSet.nodes is set to a number of nodes greater than one or
+ * to "auto", in which case the number of nodes is read from
+ * /sys/devices/system/node (Linux only).
+ */
+@SuppressWarnings("serial")
+public class NUMAFPSet extends MultiFPSet {
+
+	static final String NODES_PROPERTY = NUMAFPSet.class.getName() + ".nodes";
+	
+	/**
+	 * @return The number of NUMA nodes as configured by the system property
+	 *         {@link #NODES_PROPERTY} or 1 if it is not set.
+	 */
+	public static int getNodeCount() {
+		final String nodes = System.getProperty(NODES_PROPERTY);
+		if (nodes == null) {
+			return 1;
+		}
+		if ("auto".equalsIgnoreCase(nodes)) {
+			final File[] files = new File("/sys/devices/system/node")
+					.listFiles((dir, name) -> name.matches("node[0-9]+"));
+			return files == null ? 1 : Math.max(1, files.length);
+		}
+		return Math.max(1, Integer.parseInt(nodes));
+	}
+
+	private final int nodes;
+	
+	/**
+	 * The node owning the partition with the given index.
+	 */
+	private final int[] owners;
+	
+	public NUMAFPSet(final FPSetConfiguration fpSetConfiguration) throws RemoteException {
+		this(fpSetConfiguration, getNodeCount());
+	}
+
+	public NUMAFPSet(final FPSetConfiguration fpSetConfiguration, final int nodes) throws RemoteException {
+		super(fpSetConfiguration);
+		// Each node owns at least one partition.
+		this.nodes = Math.max(1, Math.min(nodes, this.sets.size()));
+		this.owners = new int[this.sets.size()];
+		for (int i = 0; i < this.owners.length; i++) {
+			this.owners[i] = (int) ((long) i * this.nodes / this.owners.length);
+		}
+	}
+
+	public int getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * @return The node that owns the partition of the given fingerprint.
+	 */
+	public int getNode(final long fp) {
+		return this.owners[getFPSetIndex(fp)];
+	}
+
+	/**
+	 * @return The node of the given worker.
+	 */
+	public int getWorkerNode(final int workerId) {
+		return workerId % this.nodes;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.MultiFPSet#getFPSet(long)
+	 */
+	@Override
+	protected FPSet getFPSet(final long fp) {
+		final int idx = getFPSetIndex(fp);
+		final FPSet fpSet = this.sets.get(idx);
+		count(fpSet, idx, 1);
+		return fpSet;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.MultiFPSet#putBlock(long[], int, java.util.BitSet)
+	 */
+	@Override
+	public void putBlock(final long[] fps, final int len, final BitSet seen) throws IOException {
+		final int[] cnts = new int[this.sets.size()];
+		for (int i = 0; i < len; i++) {
+			cnts[getFPSetIndex(fps[i])]++;
+		}
+		for (int i = 0; i < cnts.length; i++) {
+			if (cnts[i] > 0) {
+				count(this.sets.get(i), i, cnts[i]);
+			}
+		}
+		super.putBlock(fps, len, seen);
+	}
+	
+	private void count(final FPSet fpSet, final int idx, final int n) {
+		if (!(fpSet instanceof DiskFPSet)) {
+			return;
+		}
+		// Only count probes by workers. Other threads, e.g. the one generating the
+		// initial states, belong to no node.
+		final int id = IdThread.GetId(-1);
+		if (id < 0) {
+			return;
+		}
+		final DiskFPSet diskFPSet = (DiskFPSet) fpSet;
+		if (getWorkerNode(id) == this.owners[idx]) {
+			diskFPSet.localProbeCnt.add(n);
+		} else {
+			diskFPSet.remoteProbeCnt.add(n);
+		}
+	}
+}
@@ -4,8 +4,16 @@ package tlc2.tool.fp;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -21,22 +29,25 @@ import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 
 import tlc2.TLCGlobals;
 import tlc2.output.EC;
 import tlc2.output.MP;
+import tlc2.tool.TLCTrace;
 import tlc2.tool.fp.LongArrays.LongComparator;
 import tlc2.tool.fp.management.DiskFPSetMXWrapper;
 import tlc2.util.BufferedRandomAccessFile;
 import util.Assert;
+import util.FileUtil;
 
 /**
  * see OpenAddressing.tla
  */
 @SuppressWarnings({ "serial" })
-public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implements FPSetStatistic {
+public final class OffHeapDiskFPSet extends DiskFPSet implements FPSetStatistic {
 	
 	private static class OffHeapSynchronizer {
 		
@@ -112,6 +123,14 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 	private static final int PROBE_LIMIT = Integer.getInteger(OffHeapDiskFPSet.class.getName() + ".probeLimit", 1024);
 	static final long EMPTY = 0L;
 	
+	/**
+	 * Evict asynchronously (see {@link #evictAsync()}): The memory is split into
+	 * two tables of which one (the active table) takes insertions while the other
+	 * (frozen) one is merged into the disk file in the background. Workers then
+	 * only pause to swap the tables instead of for the whole eviction.
+	 */
+	static final boolean ASYNC = Boolean.getBoolean(OffHeapDiskFPSet.class.getName() + ".async");
+	
 
 	/**
 	 * @see LongArray#isSupported()
@@ -120,7 +139,52 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 		return LongArray.isSupported();
 	}
 
-	private final transient LongArray array;
+	/**
+	 * The (active) table. Only replaced by {@link #evictAsync()} while all
+	 * workers wait for the eviction to be done.
+	 */
+	private transient LongArray array;
+	
+	/**
+	 * The table that is merged into the disk file in the background, or null.
+	 * Lookups check it after the active table and before disk.
+	 */
+	private transient volatile LongArray frozen;
+	
+	/**
+	 * The number of fingerprints in frozen.
+	 */
+	private transient long frozenCnt;
+
+	/**
+	 * The zeroed table that replaces the active table on the next eviction, or
+	 * null while the previous one has not been merged into the disk file.
+	 */
+	private transient LongArray spare;
+	
+	/**
+	 * Guards the disk file, its index and its readers that are replaced by the
+	 * background eviction. Unused without {@link #ASYNC}, in which case workers
+	 * are suspended while the disk file is replaced.
+	 */
+	private final transient ReentrantReadWriteLock diskLock = new ReentrantReadWriteLock();
+	
+	private transient ExecutorService evictor;
+	
+	private transient Future<?> eviction;
+	
+	/**
+	 * Writes the table checkpoint in the background (see
+	 * {@link #beginChkpt(String)}), or null.
+	 */
+	private transient Future<?> chkpt;
+	
+	/**
+	 * The file name handed to {@link #init(int, String, String)} from which the
+	 * checkpoint methods without a file name argument derive the names of the
+	 * checkpoint files.
+	 */
+	private transient String chkptName;
 	
 	/**
 	 * The indexer maps a fingerprint to a in-memory bucket and the associated lock
@@ -132,7 +196,14 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 	protected OffHeapDiskFPSet(final FPSetConfiguration fpSetConfig) throws RemoteException {
 		super(fpSetConfig);
 		
-		final long positions = fpSetConfig.getMemoryInFingerprintCnt();
+		// With async eviction, the memory is divided between the active and the
+		// spare/frozen table.
+		final long positions = ASYNC ? fpSetConfig.getMemoryInFingerprintCnt() / 2L
+				: fpSetConfig.getMemoryInFingerprintCnt();
+		if (ASYNC) {
+			this.maxTblCnt = positions;
+			this.spare = new LongArray(positions);
+		}
 		
 		// Determine base address which varies depending on machine architecture.
 		this.array = new LongArray(positions);
@@ -167,8 +238,17 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 			throws IOException {
 		super.init(numThreads, aMetadir, filename);
 		this.numThreads = numThreads;
+		this.chkptName = filename;
 		
 		array.zeroMemory(numThreads);
+		if (ASYNC) {
+			spare.zeroMemory(numThreads);
+			evictor = Executors.newSingleThreadExecutor(r -> {
+				final Thread t = new Thread(r, "TLC OffHeapDiskFPSet evictor " + filename);
+				t.setDaemon(true);
+				return t;
+			});
+		}
 		return this;
 	}
 	
@@ -181,6 +261,11 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 	}
 
 	public void evict() {
+		if (ASYNC) {
+			evictAsync();
+			return;
+		}
+		
 		// statistics
 		growDiskMark++;
 		final long timestamp = System.currentTimeMillis();
@@ -218,6 +303,157 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 						System.currentTimeMillis(), insertions, lf, PROBE_LIMIT });
 	}
 
+	/**
+	 * Freezes the active table and replaces it with the spare one. The frozen
+	 * table is then merged into the disk file by the evictor thread while
+	 * workers continue to insert into the new active table. Workers only wait
+	 * for a previous eviction if it has not finished by now, i.e. if the disk is
+	 * slower than the workers filling the active table.
+	 * <p>
+	 * Called while all workers wait in {@link OffHeapSynchronizer}, which is
+	 * why a worker never inserts into a table that has been frozen.
+	 */
+	private void evictAsync() {
+		awaitEviction();
+		
+		final long insertions = tblCnt.sum();
+		if (insertions == 0L) {
+			return;
+		}
+		growDiskMark++;
+		
+		this.frozenCnt = insertions;
+		this.frozen = this.array;
+		this.array = this.spare;
+		this.spare = null;
+		this.flusher = new OffHeapMSBFlusher(this.array);
+		tblCnt.reset();
+		tblLoad.reset();
+		forceFlush = false;
+		
+		final LongArray f = this.frozen;
+		this.eviction = evictor.submit(() -> {
+			final long timestamp = System.currentTimeMillis();
+			try {
+				mergeFrozen(f, insertions);
+			} catch (IOException e) {
+				throw new OffHeapRuntimeException(e);
+			}
+			flushTime += System.currentTimeMillis() - timestamp;
+			LOGGER.log(Level.FINE, "Finished asynchronous eviction of disk {0} the {1}. time in {2} ms after {3} insertions.",
+					new Object[] { ((DiskFPSetMXWrapper) diskFPSetMXWrapper).getObjectName(), getGrowDiskMark(),
+							System.currentTimeMillis() - timestamp, insertions });
+			return null;
+		});
+	}
+
+	/**
+	 * Blocks until the background eviction, if any, has finished.
+	 */
+	private void awaitEviction() {
+		final Future<?> e = this.eviction;
+		if (e == null) {
+			return;
+		}
+		try {
+			e.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new OffHeapRuntimeException(ie);
+		} catch (ExecutionException ee) {
+			throw new OffHeapRuntimeException(ee);
+		}
+		this.eviction = null;
+	}
+	
+	/**
+	 * Merges the (unsorted) frozen table and the disk file into a new disk file
+	 * which then replaces the current one.
+	 */
+	private void mergeFrozen(final LongArray f, final long insertions) throws IOException {
+		final long diskCnt = this.fileCnt;
+		final File tmpFile = new File(tmpFilename);
+		tmpFile.delete();
+		final BufferedRandomAccessFile outRAF = new BufferedRandomAccessFile(tmpFile, "rw");
+		outRAF.setLength((insertions + diskCnt) * FPSet.LongSize);
+		
+		// Workers read the disk file concurrently through braf. Thus, read it
+		// with a reader of its own.
+		final BufferedRandomAccessFile inRAF = diskCnt > 0L ? new BufferedRandomAccessFile(fpFilename, "r") : null;
+		final SortingIterator itr = new SortingIterator(f, indexer, PROBE_LIMIT);
+		
+		long diskReads = diskCnt;
+		long value = diskReads > 0L ? inRAF.readLong() : 0L;
+		long tableReads = insertions;
+		long fp = itr.next();
+		while (tableReads > 0L || diskReads > 0L) {
+			if (tableReads > 0L && (diskReads == 0L || fp < value)) {
+				outRAF.writeLong(fp);
+				diskWriteCnt.increment();
+				if (--tableReads > 0L) {
+					final long next = itr.next();
+					assert next > fp : next + " > " + fp;
+					fp = next;
+				}
+			} else {
+				if (value == fp && tableReads > 0L) {
+					MP.printWarning(EC.TLC_FP_VALUE_ALREADY_ON_DISK, String.valueOf(value));
+				}
+				outRAF.writeLong(value);
+				diskWriteCnt.increment();
+				if (--diskReads > 0L) {
+					value = inRAF.readLong();
+				}
+			}
+		}
+		assert !itr.hasNext() : "Missed element during eviction.";
+		if (inRAF != null) {
+			inRAF.close();
+		}
+		
+		final long[] newIndex = new long[calculateIndexLen(insertions)];
+		writeIndex(newIndex, outRAF, (outRAF.length() / LongSize) - 1L);
+		outRAF.close();
+		
+		// Replace the disk file, its index, and its readers.
+		diskLock.writeLock().lock();
+		try {
+			for (int i = 0; i < braf.length; i++) {
+				braf[i].close();
+			}
+			for (int i = 0; i < brafPool.length; i++) {
+				brafPool[i].close();
+			}
+			try {
+				FileUtil.replaceFile(tmpFilename, fpFilename);
+			} catch (IOException e) {
+				Assert.fail(EC.SYSTEM_UNABLE_NOT_RENAME_FILE, e);
+			}
+			for (int i = 0; i < braf.length; i++) {
+				braf[i] = new BufferedRandomAccessFile(fpFilename, "r");
+			}
+			for (int i = 0; i < brafPool.length; i++) {
+				brafPool[i] = new BufferedRandomAccessFile(fpFilename, "r");
+			}
+			poolIndex = 0;
+			
+			this.index = newIndex;
+			this.fileCnt = diskCnt + insertions;
+			this.frozenCnt = 0L;
+			remap();
+		} finally {
+			diskLock.writeLock().unlock();
+		}
+		assert checkIndex(index) : "Broken disk index.";
+		
+		// All fingerprints of the frozen table can now be found on disk. A
+		// lookup that still reads the frozen table while it gets zeroed below
+		// falls back to disk.
+		this.frozen = null;
+		f.zeroMemory();
+		this.spare = f;
+	}
+
 	private Flusher getFlusher(final int numThreads, final long insertions) {
 		if (array.size() >= 8192 && Math.floor(array.size() / (double) numThreads) > 2 * PROBE_LIMIT) {
 			return new ConcurrentOffHeapMSBFlusher(array, PROBE_LIMIT, numThreads, insertions);
@@ -276,6 +512,10 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 	}
 
 	final int memLookup0(final long fp0) {
+		return memLookup0(array, fp0);
+	}
+
+	private final int memLookup0(final LongArray array, final long fp0) {
 		int free = PROBE_LIMIT;
 		for (int i = 0; i <= PROBE_LIMIT; i++) {
 			final long position = indexer.getIdx(fp0, i);
@@ -303,6 +543,7 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 	final boolean memInsert0(final long fp0, final int start) throws IOException {
 		// See OffHeapDiskFPSetJPFTest for a (verbatim) version that has
 		// additionally been verified with JPF.
+		final LongArray array = this.array;
 		for (int i = start; i < PROBE_LIMIT; i++) {
 			final long position = indexer.getIdx(fp0, i);
 			final long expected = array.get(position);
@@ -347,6 +588,9 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 		if (checkEvictPending()) {
 			return put(fp);
 		}
+		if (ASYNC) {
+			return putAsync(fp);
+		}
 
 		// zeros the msb
 		final long fp0 = fp & FLUSHED_MASK;
@@ -372,6 +616,106 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 		return memInsert0(fp0, start);
 	}
 
+	/**
+	 * Like {@link #put(long)} but the frozen table is looked up after the active
+	 * table, and the disk file is looked up while holding {@link #diskLock}.
+	 */
+	private final boolean putAsync(final long fp) throws IOException {
+		final long fp0 = fp & FLUSHED_MASK;
+		
+		final int start;
+		if ((start = memLookup0(fp0)) == FOUND) {
+			this.memHitCnt.increment();
+			return true;
+		}
+		final LongArray f = this.frozen;
+		if (f != null && memLookup0(f, fp0) == FOUND) {
+			this.memHitCnt.increment();
+			return true;
+		}
+		if (diskLookupAsync(fp0)) {
+			this.diskHitCnt.increment();
+			return true;
+		}
+		
+		return memInsert0(fp0, start);
+	}
+	
+	private final boolean diskLookupAsync(final long fp0) throws IOException {
+		diskLock.readLock().lock();
+		try {
+			return this.diskLookup(fp0);
+		} finally {
+			diskLock.readLock().unlock();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.FPSet#putBlock(long[], int, java.util.BitSet)
+	 */
+	@Override
+	public final void putBlock(final long[] fps, final int len, final BitSet seen) throws IOException {
+		if (checkEvictPending()) {
+			putBlock(fps, len, seen);
+			return;
+		}
+		seen.clear(0, len);
+		
+		// Without a disk file, there is nothing to be gained from sorting the
+		// block first. With async eviction, the disk file might be replaced
+		// between the steps below.
+		if (index == null || ASYNC) {
+			super.putBlock(fps, len, seen);
+			return;
+		}
+		
+		// 1) Lookup primary memory and remember the fingerprints (and the
+		// position where probing for a free slot can resume) that have to be
+		// looked up on disk.
+		final long[] misses = new long[len];
+		final int[] starts = new int[len];
+		int m = 0;
+		for (int i = 0; i < len; i++) {
+			final long fp0 = fps[i] & FLUSHED_MASK;
+			if ((starts[i] = memLookup0(fp0)) == FOUND) {
+				this.memHitCnt.increment();
+				seen.set(i);
+			} else {
+				misses[m++] = fp0;
+			}
+		}
+
+		// 2) Lookup the misses on disk in ascending order. Eviction cannot
+		// happen concurrently because it waits for this thread to arrive at
+		// the barrier.
+		Arrays.sort(misses, 0, m);
+		final BitSet diskHits = new BitSet(m);
+		final long[] idx = index;
+		diskLookupBlock(misses, m, diskHits);
+
+		// 3) Insert what is neither in primary nor on disk in the original
+		// order of the block so that a fingerprint occurring more than once is
+		// only reported unseen the first time.
+		for (int i = 0; i < len; i++) {
+			if (seen.get(i)) {
+				continue;
+			}
+			final long fp0 = fps[i] & FLUSHED_MASK;
+			if (diskHits.get(Arrays.binarySearch(misses, 0, m, fp0))) {
+				this.diskHitCnt.increment();
+				seen.set(i);
+			} else if (idx != index) {
+				// An eviction (triggered by memInsert0 below) has moved primary
+				// to disk in the meantime. The results of 1) and 2) are stale.
+				if (put(fp0)) {
+					seen.set(i);
+				}
+			} else if (memInsert0(fp0, starts[i])) {
+				seen.set(i);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.FPSet#contains(long)
 	 */
@@ -390,6 +734,18 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 			return true;
 		}
 		
+		if (ASYNC) {
+			final LongArray f = this.frozen;
+			if (f != null && memLookup0(f, fp0) == FOUND) {
+				return true;
+			}
+			if (diskLookupAsync(fp0)) {
+				diskHitCnt.increment();
+				return true;
+			}
+			return false;
+		}
+		
 		// Lookup on secondary/disk
 		if (this.diskLookup(fp0)) {
 			diskHitCnt.increment();
@@ -450,11 +806,273 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 		return PROBE_LIMIT;
 	}
 	
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#size()
+	 */
+	@Override
+	public long size() {
+		if (ASYNC) {
+			// Read fileCnt and frozenCnt consistently.
+			diskLock.readLock().lock();
+			try {
+				return getTblCnt() + this.frozenCnt + this.fileCnt;
+			} finally {
+				diskLock.readLock().unlock();
+			}
+		}
+		return super.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#exit(boolean)
+	 */
+	@Override
+	public void exit(boolean cleanup) throws IOException {
+		if (ASYNC) {
+			awaitEviction();
+			evictor.shutdown();
+		}
+		super.exit(cleanup);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#beginChkpt()
+	 */
+	@Override
+	public void beginChkpt() throws IOException {
+		beginChkpt(this.chkptName);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#commitChkpt()
+	 */
+	@Override
+	public void commitChkpt() throws IOException {
+		commitChkpt(this.chkptName);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#recover(tlc2.tool.TLCTrace)
+	 */
+	@Override
+	public void recover(final TLCTrace trace) throws IOException {
+		if (!recoverChkpt()) {
+			super.recover(trace);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.FPSet#recoverChkpt()
+	 */
+	@Override
+	protected boolean recoverChkpt() throws IOException {
+		return recoverChkpt(this.chkptName);
+	}
+
+	/**
+	 * Identifies (the version of) a table checkpoint.
+	 */
+	private static final long CHKPT_MAGIC = 0x4F484446500001L;
+
+	/**
+	 * A checkpoint consists of the disk file (fname.fp.chkpt) and the table
+	 * (fname.fp.tbl.chkpt). The disk file is hard-linked if the file system
+	 * supports it, which is safe because the disk file is only ever replaced
+	 * and never modified in place. The table is dumped verbatim so that
+	 * {@link #recoverChkpt(String)} does not have to re-insert fingerprints.
+	 * <p>
+	 * Has to be called while no worker accesses the set. With {@link #ASYNC},
+	 * workers only wait for the table to be copied into the spare table, which
+	 * is then written by the evictor thread. The next eviction waits for it.
+	 */
+	@Override
+	public void beginChkpt(final String fname) throws IOException {
+		final String tblName = getChkptName(fname, "tbl.tmp");
+		if (ASYNC) {
+			// The disk file has to include the frozen table and must not be
+			// replaced while it gets linked.
+			awaitEviction();
+			linkOrCopy(fpFilename, getChkptName(fname, "tmp"));
+			
+			final LongArray copy = this.spare;
+			copy.copyFrom(this.array);
+			final long cnt = getTblCnt();
+			final long diskCnt = this.fileCnt;
+			final long[] idx = this.index;
+			this.chkpt = this.eviction = evictor.submit(() -> {
+				writeTable(tblName, copy, cnt, diskCnt, idx);
+				copy.zeroMemory();
+				return null;
+			});
+		} else {
+			linkOrCopy(fpFilename, getChkptName(fname, "tmp"));
+			writeTable(tblName, this.array, getTblCnt(), this.fileCnt, this.index);
+		}
+		checkPointMark++;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#commitChkpt(java.lang.String)
+	 */
+	@Override
+	public void commitChkpt(final String fname) throws IOException {
+		final Future<?> c = this.chkpt;
+		if (c != null) {
+			try {
+				c.get();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new IOException(ie);
+			} catch (ExecutionException ee) {
+				throw new IOException(ee.getCause());
+			}
+			this.chkpt = null;
+		}
+		FileUtil.replaceFile(getChkptName(fname, "tmp"), getChkptName(fname, "chkpt"));
+		FileUtil.replaceFile(getChkptName(fname, "tbl.tmp"), getChkptName(fname, "tbl.chkpt"));
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#recover(java.lang.String)
+	 */
+	@Override
+	public void recover(final String fname) throws IOException {
+		if (!recoverChkpt(fname)) {
+			throw new IOException("OffHeapDiskFPSet.recover: no valid checkpoint " + getChkptName(fname, "chkpt"));
+		}
+	}
+
+	/**
+	 * Restores the checkpoint written by {@link #beginChkpt(String)} with
+	 * sequential reads of the table and a hard link (or copy) of the disk
+	 * file.
+	 * 
+	 * @return false iff the checkpoint does not exist or does not fit this set
+	 *         (e.g. because the table size has changed).
+	 */
+	private boolean recoverChkpt(final String fname) throws IOException {
+		final File tbl = new File(getChkptName(fname, "tbl.chkpt"));
+		final File disk = new File(getChkptName(fname, "chkpt"));
+		if (!tbl.exists() || !disk.exists()) {
+			return false;
+		}
+		
+		final long cnt;
+		final long diskCnt;
+		final long[] idx;
+		try (FileChannel channel = FileChannel.open(tbl.toPath(), StandardOpenOption.READ)) {
+			final ByteBuffer header = readFully(channel, (int) (5 * LongSize));
+			if (header.getLong() != CHKPT_MAGIC) {
+				MP.printWarning(EC.GENERAL, "Ignoring fingerprint set checkpoint " + tbl + " of unknown format.");
+				return false;
+			}
+			final long positions = header.getLong();
+			cnt = header.getLong();
+			diskCnt = header.getLong();
+			final int indexLen = (int) header.getLong();
+			if (positions != this.array.size() || disk.length() != diskCnt * LongSize) {
+				MP.printWarning(EC.GENERAL, "Ignoring fingerprint set checkpoint " + tbl
+						+ " because it does not match the fingerprint set's size.");
+				return false;
+			}
+			if (indexLen >= 0) {
+				idx = new long[indexLen];
+				readFully(channel, (int) (indexLen * LongSize)).asLongBuffer().get(idx);
+			} else {
+				idx = null;
+			}
+			this.array.read(channel);
+		}
+		
+		for (int i = 0; i < braf.length; i++) {
+			braf[i].close();
+		}
+		for (int i = 0; i < brafPool.length; i++) {
+			brafPool[i].close();
+		}
+		linkOrCopy(disk.getPath(), fpFilename);
+		for (int i = 0; i < braf.length; i++) {
+			braf[i] = new BufferedRandomAccessFile(fpFilename, "r");
+		}
+		for (int i = 0; i < brafPool.length; i++) {
+			brafPool[i] = new BufferedRandomAccessFile(fpFilename, "r");
+		}
+		poolIndex = 0;
+		
+		this.index = idx;
+		this.fileCnt = diskCnt;
+		this.tblCnt.reset();
+		this.tblCnt.add(cnt);
+		remap();
+		return true;
+	}
+
+	private static void writeTable(final String fname, final LongArray table, final long cnt, final long diskCnt,
+			final long[] idx) throws IOException {
+		final int indexLen = idx == null ? 0 : idx.length;
+		final ByteBuffer header = ByteBuffer.allocate((int) ((5 + indexLen) * LongSize));
+		header.putLong(CHKPT_MAGIC).putLong(table.size()).putLong(cnt).putLong(diskCnt)
+				.putLong(idx == null ? -1L : idx.length);
+		for (int i = 0; i < indexLen; i++) {
+			header.putLong(idx[i]);
+		}
+		header.flip();
+		try (FileChannel channel = FileChannel.open(Paths.get(fname), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			table.write(channel);
+			channel.force(false);
+		}
+	}
+
+	private static ByteBuffer readFully(final FileChannel channel, final int len) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(len);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Truncated fingerprint set checkpoint.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Creates the file to as a hard link of the file from, or as a copy if the
+	 * file system does not support hard links.
+	 */
+	private static void linkOrCopy(final String from, final String to) throws IOException {
+		final Path target = Paths.get(to);
+		Files.deleteIfExists(target);
+		try {
+			Files.createLink(target, Paths.get(from));
+		} catch (UnsupportedOperationException | IOException e) {
+			FileUtil.copyFile(from, to);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.DiskFPSet#checkInvariant()
+	 */
+	@Override
+	public boolean checkInvariant() throws IOException {
+		if (ASYNC) {
+			// The (synchronous) flusher of the active table must not replace the disk
+			// file while the evictor thread merges into it.
+			awaitEviction();
+		}
+		return super.checkInvariant();
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.DiskFPSet#checkFPs()
 	 */
 	@Override
 	public long checkFPs() throws IOException {
+		if (ASYNC) {
+			awaitEviction();
+		}
 		if (getTblCnt() <= 0) {
 			return Long.MAX_VALUE;
 		}
@@ -1179,6 +1797,127 @@ public final class OffHeapDiskFPSet extends NonCheckpointableDiskFPSet implement
 		}
 	}
 	
+	/**
+	 * A non-thread safe iterator that returns the fingerprints of an unsorted
+	 * table in ascending order without modifying the table (unlike the flushers,
+	 * which sort the table in place while workers are suspended). A fingerprint
+	 * is stored at most r - 1 positions after its home position (see
+	 * memInsert0), and home positions increase with the fingerprints. Thus, once
+	 * the scan has passed position h + r - 1, all fingerprints with home
+	 * position h or lower have been seen. The fingerprints seen but not yet
+	 * returned are kept in a min-heap, which holds O(r) elements.
+	 */
+	static class SortingIterator {
+		
+		private final LongArray a;
+		private final Indexer indexer;
+		private final long r;
+		private final long n;
+		
+		/**
+		 * The next logical position to scan. Positions [n, n + r - 1) are the ones
+		 * the fingerprints with a home position close to n wrapped around to.
+		 */
+		private long pos = 0L;
+		private long[] heap = new long[64];
+		private int size = 0;
+		
+		SortingIterator(final LongArray a, final Indexer indexer, final int r) {
+			this.a = a;
+			this.indexer = indexer;
+			this.n = a.size();
+			if (this.n <= 2L * r) {
+				// Fingerprints might wrap around more than once in tiny tables, which
+				// are thus scanned completely before the first element is returned.
+				this.r = this.n + 1L;
+				for (long i = 0L; i < this.n; i++) {
+					final long fp = a.get(i);
+					if (fp > EMPTY) {
+						push(fp);
+					}
+				}
+				this.pos = Long.MAX_VALUE;
+			} else {
+				this.r = r;
+			}
+		}
+
+		boolean hasNext() {
+			fill();
+			return size > 0;
+		}
+		
+		long next() {
+			fill();
+			if (size == 0) {
+				throw new NoSuchElementException();
+			}
+			return poll();
+		}
+
+		private void fill() {
+			final long end = n + r - 1L;
+			while (pos < end && (size == 0 || indexer.getIdx(heap[0]) + r - 1L >= pos)) {
+				scan(pos++);
+			}
+		}
+		
+		private void scan(final long p) {
+			final long fp = a.get(p < n ? p : p - n);
+			if (fp <= EMPTY) {
+				return;
+			}
+			final long home = indexer.getIdx(fp);
+			if (p < n) {
+				// A fingerprint whose home is after its position wrapped around and
+				// is scanned again at p + n.
+				if (home <= p) {
+					push(fp);
+				}
+			} else if (home > p - n) {
+				push(fp);
+			}
+		}
+
+		private void push(final long fp) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (heap[parent] <= fp) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = fp;
+		}
+
+		private long poll() {
+			final long min = heap[0];
+			final long last = heap[--size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && heap[child + 1] < heap[child]) {
+					child++;
+				}
+				if (last <= heap[child]) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			return min;
+		}
+	}
+
 	/**
 	 * A non-thread safe Iterator whose next method returns the next largest
 	 * element.
@@ -43,6 +43,19 @@ public interface DiskFPSetMXBean {
 	 */
 	long getDiskWriteCnt();
 
+	/**
+	 * @see DiskFPSet#getLocalProbeCnt()
+	 */
+	long getLocalProbeCnt();
+	/**
+	 * @see DiskFPSet#getRemoteProbeCnt()
+	 */
+	long getRemoteProbeCnt();
+	/**
+	 * @return The ratio of local to all probes.
+	 */
+	double getLocalProbeRate();
+
 	/**
 	 * @see DiskFPSet#getMemHitCnt()
 	 */
@@ -104,6 +104,29 @@ public class DiskFPSetMXWrapper extends TLCStandardMBean implements DiskFPSetMXB
 		return diskSeekCache / (double) (diskSeekCache + diskSeekCnt);
 	}
 	
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.management.DiskFPSetMXBean#getLocalProbeCnt()
+	 */
+	public long getLocalProbeCnt() {
+		return fpset.getLocalProbeCnt();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.management.DiskFPSetMXBean#getRemoteProbeCnt()
+	 */
+	public long getRemoteProbeCnt() {
+		return fpset.getRemoteProbeCnt();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.fp.management.DiskFPSetMXBean#getLocalProbeRate()
+	 */
+	public double getLocalProbeRate() {
+		final long local = getLocalProbeCnt();
+		final long remote = getRemoteProbeCnt();
+		return local / (double) (local + remote);
+	}
+	
 	/* (non-Javadoc)
 	 * @see tlc2.tool.fp.management.DiskFPSetSamplerMXBean#getCheckPointMark()
 	 */
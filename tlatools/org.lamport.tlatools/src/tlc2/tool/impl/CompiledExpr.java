@@ -0,0 +1,640 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+
+import tla2sany.semantic.ASTConstants;
+import tla2sany.semantic.ExprNode;
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.LabelNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.module.Integers;
+import tlc2.module.Naturals;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.EvalControl;
+import tlc2.tool.TLCState;
+import tlc2.tool.ToolGlobals;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.Context;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntValue;
+import tlc2.value.impl.LazyValue;
+import tlc2.value.impl.MethodValue;
+import tlc2.value.impl.OpValue;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+/**
+ * A state or action predicate (e.g. an invariant or a constraint) compiled
+ * into a tree of specialized nodes. Compilation happens once for an
+ * expression and its (fixed) context: Definitions of zero arity are inlined,
+ * constants are folded, state variables are read directly from the (primed)
+ * state, and the boolean connectives, (in)equality, set membership and the
+ * integer operators of the Naturals and Integers modules are evaluated
+ * without going through Tool's switch over the operator's opcode, the
+ * operator lookup in the context, or the MethodHandle of the module override.
+ * All other expressions, as well as the error cases such as a non-boolean
+ * conjunct, are delegated to the interpreter, which is why evaluation
+ * preserves the interpreter's semantics including its error messages.
+ * <p>
+ * Compiled expressions are immutable and thus shared by all workers.
+ * 
+ * @see Tool#COMPILE
+ */
+abstract class CompiledExpr implements ToolGlobals {
+
+	/**
+	 * @return The value of the expression in the state s0 and its successor s1
+	 *         (s1 is {@link TLCState#Empty} for state predicates).
+	 */
+	abstract Value eval(TLCState s0, TLCState s1);
+
+	/**
+	 * @return true if this expression is evaluated by the interpreter.
+	 */
+	boolean isInterpreted() {
+		return false;
+	}
+
+	/**
+	 * The maximum nesting of inlined definitions. Beyond, the definition is
+	 * evaluated by the interpreter.
+	 */
+	private static final int MAX_DEPTH = 64;
+
+	static CompiledExpr compile(final Tool tool, final SemanticNode expr, final Context c) {
+		return compile(tool, expr, c, 0);
+	}
+
+	private static CompiledExpr compile(final Tool tool, final SemanticNode expr, final Context c, final int depth) {
+		if (depth > MAX_DEPTH) {
+			return new Interpreted(tool, expr, c);
+		}
+		switch (expr.getKind()) {
+		case ASTConstants.LabelKind:
+			return compile(tool, ((LabelNode) expr).getBody(), c, depth);
+		case ASTConstants.NumeralKind:
+		case ASTConstants.StringKind: {
+			final Object val = expr.getToolObject(Tool.toolId);
+			if (val instanceof Value) {
+				return new Constant((Value) val);
+			}
+			return new Interpreted(tool, expr, c);
+		}
+		case ASTConstants.OpApplKind:
+			return compileAppl(tool, (OpApplNode) expr, c, depth);
+		default:
+			return new Interpreted(tool, expr, c);
+		}
+	}
+
+	private static CompiledExpr compileAppl(final Tool tool, final OpApplNode expr, final Context c, final int depth) {
+		final ExprOrOpArgNode[] args = expr.getArgs();
+		final SymbolNode opNode = expr.getOperator();
+		final int opcode = BuiltInOPs.getOpCode(opNode.getName());
+
+		if (opcode == 0) {
+			final Object raw = opNode.getToolObject(Tool.toolId);
+			if (raw instanceof WorkerValue) {
+				// The value differs between workers.
+				return new Interpreted(tool, expr, c);
+			}
+			final Object val = tool.lookup(opNode, c, false);
+			if (args.length == 0) {
+				if (val == opNode && opNode.getKind() == ASTConstants.VariableDeclKind) {
+					return new Variable(opNode.getName(), new Interpreted(tool, expr, c));
+				}
+				if (val instanceof OpDefNode) {
+					final OpDefNode opDef = (OpDefNode) val;
+					if (opDef.getArity() == 0 && BuiltInOPs.getOpCode(opDef.getName()) == 0) {
+						// Inline the definition (its context is the one of expr).
+						return compile(tool, opDef.getBody(), c, depth + 1);
+					}
+				} else if (val instanceof Value && !(val instanceof OpValue) && !(val instanceof LazyValue)
+						&& !(val instanceof WorkerValue)) {
+					return new Constant((Value) val);
+				}
+				return new Interpreted(tool, expr, c);
+			}
+			if (val instanceof MethodValue) {
+				final CompiledExpr[] operands = compileArgs(tool, args, c, depth);
+				if (operands == null) {
+					return new Interpreted(tool, expr, c);
+				}
+				if (operands.length == 2) {
+					final IntOp op = IntOp.of(((MethodValue) val).getMethod());
+					if (op != null) {
+						return new Arithmetic(op, (MethodValue) val, operands[0], operands[1]);
+					}
+				}
+				return new Method(tool, expr, c, (MethodValue) val, operands);
+			}
+			return new Interpreted(tool, expr, c);
+		}
+
+		final CompiledExpr[] operands = compileArgs(tool, args, c, depth);
+		if (operands == null) {
+			return new Interpreted(tool, expr, c);
+		}
+		final Interpreted fallback = new Interpreted(tool, expr, c);
+		switch (opcode) {
+		case OPCODE_cl:
+		case OPCODE_land:
+			return new Conjunction(operands, fallback);
+		case OPCODE_dl:
+		case OPCODE_lor:
+			return new Disjunction(operands, fallback);
+		case OPCODE_lnot:
+			return new Negation(operands[0], fallback);
+		case OPCODE_implies:
+			return new Implication(operands[0], operands[1], fallback);
+		case OPCODE_equiv:
+			return new Equivalence(operands[0], operands[1], fallback);
+		case OPCODE_eq:
+			return new Equality(operands[0], operands[1], true);
+		case OPCODE_noteq:
+			return new Equality(operands[0], operands[1], false);
+		case OPCODE_in:
+			return new Membership(operands[0], operands[1], true);
+		case OPCODE_notin:
+			return new Membership(operands[0], operands[1], false);
+		case OPCODE_ite:
+			return new IfThenElse(operands[0], operands[1], operands[2], fallback);
+		case OPCODE_prime:
+			return new Prime(operands[0]);
+		case OPCODE_nop:
+			return operands[0];
+		default:
+			return fallback;
+		}
+	}
+
+	/**
+	 * @return null if an argument is an operator argument (e.g. Op in F(Op)).
+	 */
+	private static CompiledExpr[] compileArgs(final Tool tool, final ExprOrOpArgNode[] args, final Context c,
+			final int depth) {
+		final CompiledExpr[] operands = new CompiledExpr[args.length];
+		for (int i = 0; i < args.length; i++) {
+			if (!(args[i] instanceof ExprNode)) {
+				return null;
+			}
+			operands[i] = compile(tool, args[i], c, depth);
+		}
+		return operands;
+	}
+
+	/**
+	 * @return The number of nodes in this tree that are evaluated by the
+	 *         interpreter.
+	 */
+	int getInterpretedCount() {
+		return isInterpreted() ? 1 : 0;
+	}
+
+	static int count(final CompiledExpr... exprs) {
+		int cnt = 0;
+		for (CompiledExpr e : exprs) {
+			cnt += e.getInterpretedCount();
+		}
+		return cnt;
+	}
+
+	private static final class Interpreted extends CompiledExpr {
+		private final Tool tool;
+		private final SemanticNode expr;
+		private final Context c;
+
+		Interpreted(final Tool tool, final SemanticNode expr, final Context c) {
+			this.tool = tool;
+			this.expr = expr;
+			this.c = c;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			return tool.eval(expr, c, s0, s1, EvalControl.Clear, CostModel.DO_NOT_RECORD);
+		}
+
+		@Override
+		boolean isInterpreted() {
+			return true;
+		}
+	}
+
+	private static final class Constant extends CompiledExpr {
+		private final Value value;
+
+		Constant(final Value value) {
+			this.value = value;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			return value;
+		}
+	}
+
+	private static final class Variable extends CompiledExpr {
+		private final UniqueString name;
+		private final CompiledExpr fallback;
+
+		Variable(final UniqueString name, final CompiledExpr fallback) {
+			this.name = name;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = (Value) s0.lookup(name);
+			if (v == null) {
+				// Let the interpreter report the unassigned variable.
+				return fallback.eval(s0, s1);
+			}
+			return v;
+		}
+	}
+
+	private static final class Prime extends CompiledExpr {
+		private final CompiledExpr e;
+
+		Prime(final CompiledExpr e) {
+			this.e = e;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			return e.eval(s1, null);
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(e);
+		}
+	}
+
+	private static final class Conjunction extends CompiledExpr {
+		private final CompiledExpr[] es;
+		private final CompiledExpr fallback;
+
+		Conjunction(final CompiledExpr[] es, final CompiledExpr fallback) {
+			this.es = es;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			for (int i = 0; i < es.length; i++) {
+				final Value v = es[i].eval(s0, s1);
+				if (v == BoolValue.ValFalse) {
+					return BoolValue.ValFalse;
+				} else if (v != BoolValue.ValTrue && !(v instanceof BoolValue)) {
+					return fallback.eval(s0, s1);
+				} else if (!((BoolValue) v).val) {
+					return BoolValue.ValFalse;
+				}
+			}
+			return BoolValue.ValTrue;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(es);
+		}
+	}
+
+	private static final class Disjunction extends CompiledExpr {
+		private final CompiledExpr[] es;
+		private final CompiledExpr fallback;
+
+		Disjunction(final CompiledExpr[] es, final CompiledExpr fallback) {
+			this.es = es;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			for (int i = 0; i < es.length; i++) {
+				final Value v = es[i].eval(s0, s1);
+				if (!(v instanceof BoolValue)) {
+					return fallback.eval(s0, s1);
+				} else if (((BoolValue) v).val) {
+					return BoolValue.ValTrue;
+				}
+			}
+			return BoolValue.ValFalse;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(es);
+		}
+	}
+
+	private static final class Negation extends CompiledExpr {
+		private final CompiledExpr e;
+		private final CompiledExpr fallback;
+
+		Negation(final CompiledExpr e, final CompiledExpr fallback) {
+			this.e = e;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = e.eval(s0, s1);
+			if (!(v instanceof BoolValue)) {
+				return fallback.eval(s0, s1);
+			}
+			return ((BoolValue) v).val ? BoolValue.ValFalse : BoolValue.ValTrue;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(e);
+		}
+	}
+
+	private static final class Implication extends CompiledExpr {
+		private final CompiledExpr p;
+		private final CompiledExpr q;
+		private final CompiledExpr fallback;
+
+		Implication(final CompiledExpr p, final CompiledExpr q, final CompiledExpr fallback) {
+			this.p = p;
+			this.q = q;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = p.eval(s0, s1);
+			if (!(v instanceof BoolValue)) {
+				return fallback.eval(s0, s1);
+			}
+			if (!((BoolValue) v).val) {
+				return BoolValue.ValTrue;
+			}
+			final Value w = q.eval(s0, s1);
+			if (!(w instanceof BoolValue)) {
+				return fallback.eval(s0, s1);
+			}
+			return w;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(p, q);
+		}
+	}
+
+	private static final class Equivalence extends CompiledExpr {
+		private final CompiledExpr p;
+		private final CompiledExpr q;
+		private final CompiledExpr fallback;
+
+		Equivalence(final CompiledExpr p, final CompiledExpr q, final CompiledExpr fallback) {
+			this.p = p;
+			this.q = q;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = p.eval(s0, s1);
+			final Value w = q.eval(s0, s1);
+			if (!(v instanceof BoolValue) || !(w instanceof BoolValue)) {
+				return fallback.eval(s0, s1);
+			}
+			return ((BoolValue) v).val == ((BoolValue) w).val ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(p, q);
+		}
+	}
+
+	private static final class Equality extends CompiledExpr {
+		private final CompiledExpr l;
+		private final CompiledExpr r;
+		private final boolean eq;
+
+		Equality(final CompiledExpr l, final CompiledExpr r, final boolean eq) {
+			this.l = l;
+			this.r = r;
+			this.eq = eq;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = l.eval(s0, s1);
+			final Value w = r.eval(s0, s1);
+			final boolean equal;
+			if (v instanceof IntValue && w instanceof IntValue) {
+				equal = ((IntValue) v).val == ((IntValue) w).val;
+			} else {
+				equal = v.equals(w);
+			}
+			return equal == eq ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(l, r);
+		}
+	}
+
+	private static final class Membership extends CompiledExpr {
+		private final CompiledExpr elem;
+		private final CompiledExpr set;
+		private final boolean in;
+
+		Membership(final CompiledExpr elem, final CompiledExpr set, final boolean in) {
+			this.elem = elem;
+			this.set = set;
+			this.in = in;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = elem.eval(s0, s1);
+			final Value s = set.eval(s0, s1);
+			return s.member(v) == in ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(elem, set);
+		}
+	}
+
+	private static final class IfThenElse extends CompiledExpr {
+		private final CompiledExpr cond;
+		private final CompiledExpr then;
+		private final CompiledExpr other;
+		private final CompiledExpr fallback;
+
+		IfThenElse(final CompiledExpr cond, final CompiledExpr then, final CompiledExpr other,
+				final CompiledExpr fallback) {
+			this.cond = cond;
+			this.then = then;
+			this.other = other;
+			this.fallback = fallback;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = cond.eval(s0, s1);
+			if (!(v instanceof BoolValue)) {
+				return fallback.eval(s0, s1);
+			}
+			return ((BoolValue) v).val ? then.eval(s0, s1) : other.eval(s0, s1);
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(cond, then, other);
+		}
+	}
+
+	/**
+	 * An operator implemented by a Java method (a module override).
+	 */
+	private static class Method extends CompiledExpr {
+		protected final MethodValue mv;
+		protected final CompiledExpr[] args;
+		private final Tool tool;
+		private final SemanticNode expr;
+		private final Context c;
+
+		Method(final Tool tool, final SemanticNode expr, final Context c, final MethodValue mv,
+				final CompiledExpr[] args) {
+			this.tool = tool;
+			this.expr = expr;
+			this.c = c;
+			this.mv = mv;
+			this.args = args;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value[] vals = new Value[args.length];
+			for (int i = 0; i < args.length; i++) {
+				vals[i] = args[i].eval(s0, s1);
+			}
+			return mv.apply(vals, EvalControl.Clear);
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(args);
+		}
+	}
+
+	/**
+	 * The integer operators of the standard modules Naturals and Integers.
+	 */
+	private enum IntOp {
+		PLUS, MINUS, TIMES, LT, LE, GT, GEQ;
+
+		static IntOp of(final java.lang.reflect.Method m) {
+			if (m.getDeclaringClass() != Naturals.class && m.getDeclaringClass() != Integers.class) {
+				return null;
+			}
+			switch (m.getName()) {
+			case "Plus":
+				return PLUS;
+			case "Minus":
+				return MINUS;
+			case "Times":
+				return TIMES;
+			case "LT":
+				return LT;
+			case "LE":
+				return LE;
+			case "GT":
+				return GT;
+			case "GEQ":
+				return GEQ;
+			default:
+				return null;
+			}
+		}
+	}
+
+	private static final class Arithmetic extends CompiledExpr {
+		private final IntOp op;
+		private final MethodValue mv;
+		private final CompiledExpr l;
+		private final CompiledExpr r;
+
+		Arithmetic(final IntOp op, final MethodValue mv, final CompiledExpr l, final CompiledExpr r) {
+			this.op = op;
+			this.mv = mv;
+			this.l = l;
+			this.r = r;
+		}
+
+		@Override
+		Value eval(final TLCState s0, final TLCState s1) {
+			final Value v = l.eval(s0, s1);
+			final Value w = r.eval(s0, s1);
+			if (!(v instanceof IntValue) || !(w instanceof IntValue)) {
+				// Let the module override report the error.
+				return mv.apply(new Value[] { v, w }, EvalControl.Clear);
+			}
+			final IntValue x = (IntValue) v;
+			final IntValue y = (IntValue) w;
+			switch (op) {
+			case PLUS:
+				return Naturals.Plus(x, y);
+			case MINUS:
+				return Naturals.Minus(x, y);
+			case TIMES:
+				return Naturals.Times(x, y);
+			case LT:
+				return x.val < y.val ? BoolValue.ValTrue : BoolValue.ValFalse;
+			case LE:
+				return x.val <= y.val ? BoolValue.ValTrue : BoolValue.ValFalse;
+			case GT:
+				return x.val > y.val ? BoolValue.ValTrue : BoolValue.ValFalse;
+			case GEQ:
+				return x.val >= y.val ? BoolValue.ValTrue : BoolValue.ValFalse;
+			default:
+				throw new IllegalStateException(op.toString());
+			}
+		}
+
+		@Override
+		int getInterpretedCount() {
+			return count(l, r);
+		}
+	}
+}
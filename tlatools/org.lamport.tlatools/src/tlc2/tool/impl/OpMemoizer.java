@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import tla2sany.explorer.ExploreNode;
+import tla2sany.explorer.ExplorerVisitor;
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.FormalParamNode;
+import tla2sany.semantic.LevelConstants;
+import tla2sany.semantic.ModuleNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpDeclNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.EvalControl;
+import tlc2.tool.ITool;
+import tlc2.tool.TLCState;
+import tlc2.tool.ToolGlobals;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.Context;
+import tlc2.util.FP64;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+/**
+ * Memoizes the applications of (state-level) user-defined operators across
+ * states. Level analysis (the parameters that appear in an operator's
+ * definition, see LevelNode#getAllParams) determines the state variables an
+ * operator depends on, its footprint. The memoized value of an application
+ * is keyed by the fingerprints of the arguments and of the footprint's values
+ * in the current state. Each worker has its own bounded LRU cache.
+ * <p>
+ * Only applications of operators that
+ * <ul>
+ * <li>are at most state-level, i.e. neither action nor temporal formulas,</li>
+ * <li>depend on nothing but their own parameters and the constants and
+ * variables of the root module (which excludes LET definitions and
+ * definitions of instantiated modules),</li>
+ * <li>are not (mutually) recursive,</li>
+ * <li>do not (transitively) contain ENABLED, primes, or other action and
+ * temporal operators because the evaluation of their arguments depends on the
+ * argument expressions, not just their values (e.g. ENABLED A' = x + 1),</li>
+ * <li>and do not (transitively) call operators with side effects (TLCSet,
+ * Print, RandomElement, ...),</li>
+ * </ul>
+ * evaluated with {@link EvalControl#Clear}, are memoized. The arguments of a
+ * memoized application are evaluated eagerly. If this fails, e.g. because an
+ * argument cannot be fingerprinted, the application is evaluated as usual.
+ */
+public final class OpMemoizer {
+
+	public static final boolean ENABLED = Boolean.getBoolean(OpMemoizer.class.getName() + ".enabled");
+
+	/**
+	 * The maximum number of memoized values per worker.
+	 */
+	static final int SIZE = Integer.getInteger(OpMemoizer.class.getName() + ".size", 4096);
+
+	/**
+	 * Optional comma-separated list of operator names to restrict memoization
+	 * to, e.g. -Dtlc2.tool.impl.OpMemoizer.operators=Quorums,TC
+	 */
+	private static final Set<String> OPERATORS = parse(System.getProperty(OpMemoizer.class.getName() + ".operators"));
+
+	private static Set<String> parse(final String names) {
+		if (names == null || names.trim().isEmpty()) {
+			return null;
+		}
+		final Set<String> set = new HashSet<>();
+		for (String name : names.split(",")) {
+			set.add(name.trim());
+		}
+		return set;
+	}
+
+	/**
+	 * Operators of the standard modules whose values are not a function of
+	 * their arguments.
+	 */
+	private static final Set<String> IMPURE_MODULES = new HashSet<>(
+			Arrays.asList("TLCExt", "Randomization", "IOUtils"));
+	private static final Set<String> IMPURE_TLC_OPERATORS = new HashSet<>(
+			Arrays.asList("Print", "PrintT", "JavaTime", "TLCGet", "TLCSet", "RandomElement"));
+
+	private static final Memo NOT_MEMOIZABLE = new Memo(null, null);
+
+	private final Tool tool;
+	private final Set<SymbolNode> variables;
+	private final Set<SymbolNode> constants;
+	private final Map<OpDefNode, Memo> memos = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<Map<Long, Value>> caches = new ThreadLocal<Map<Long, Value>>() {
+		@Override
+		protected Map<Long, Value> initialValue() {
+			return new LinkedHashMap<Long, Value>(SIZE, .75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Long, Value> eldest) {
+					return size() > SIZE;
+				}
+			};
+		}
+	};
+
+	OpMemoizer(final Tool tool) {
+		this.tool = tool;
+		final SpecProcessor sp = tool.getSpecProcessor();
+		this.variables = new HashSet<>(Arrays.asList(sp.getVariablesNodes()));
+		this.constants = new HashSet<>(Arrays.asList(sp.getRootModule().getConstantDecls()));
+	}
+
+	/**
+	 * @return The value of the application of opDef to args or null if the
+	 *         application cannot be memoized, in which case the caller has
+	 *         to evaluate it.
+	 */
+	Value eval(final OpDefNode opDef, final ExprOrOpArgNode[] args, final Context c, final TLCState s0,
+			final TLCState s1, final int control, final CostModel cm) {
+		if (control != EvalControl.Clear || s0 == null) {
+			return null;
+		}
+		final Memo memo = getMemo(opDef);
+		if (memo == NOT_MEMOIZABLE) {
+			return null;
+		}
+
+		long fp = FP64.Extend(FP64.New(), opDef.getUid());
+		final Value[] argVals = new Value[args.length];
+		try {
+			for (int i = 0; i < args.length; i++) {
+				argVals[i] = tool.eval(args[i], c, s0, s1, control, cm);
+				fp = argVals[i].fingerPrint(fp);
+			}
+			for (int i = 0; i < memo.footprint.length; i++) {
+				final Value val = (Value) s0.lookup(memo.footprint[i]);
+				if (val == null) {
+					// Not (yet) assigned.
+					return null;
+				}
+				fp = val.fingerPrint(fp);
+			}
+		} catch (RuntimeException e) {
+			// Let the caller evaluate (lazily) and report the error (if any).
+			return null;
+		}
+
+		final Map<Long, Value> cache = caches.get();
+		final Long key = fp;
+		Value res = cache.get(key);
+		if (res != null) {
+			memo.hits.increment();
+			return res;
+		}
+		memo.misses.increment();
+
+		final FormalParamNode[] formals = opDef.getParams();
+		Context c1 = c;
+		for (int i = 0; i < argVals.length; i++) {
+			c1 = c1.cons(formals[i], argVals[i]);
+		}
+		res = tool.eval(opDef.getBody(), c1, s0, s1, control, cm);
+		cache.put(key, res);
+		return res;
+	}
+
+	private Memo getMemo(final OpDefNode opDef) {
+		Memo memo = memos.get(opDef);
+		if (memo == null) {
+			memo = createMemo(opDef);
+			final Memo other = memos.putIfAbsent(opDef, memo);
+			if (other != null) {
+				memo = other;
+			}
+		}
+		return memo;
+	}
+
+	private Memo createMemo(final OpDefNode opDef) {
+		if (OPERATORS != null && !OPERATORS.contains(opDef.getName().toString())) {
+			return NOT_MEMOIZABLE;
+		}
+		if (opDef.getInRecursive() || opDef.getBody().getLevel() > LevelConstants.VariableLevel) {
+			return NOT_MEMOIZABLE;
+		}
+		for (FormalParamNode arg : opDef.getParams()) {
+			if (arg.getArity() > 0) {
+				// Higher-order operator.
+				return NOT_MEMOIZABLE;
+			}
+		}
+		final Set<FormalParamNode> formals = new HashSet<>(Arrays.asList(opDef.getParams()));
+		final Set<UniqueString> footprint = new HashSet<>();
+		for (SymbolNode param : opDef.getBody().getAllParams()) {
+			if (param instanceof FormalParamNode && formals.contains(param)) {
+				continue;
+			} else if (param instanceof OpDeclNode && constants.contains(param)) {
+				continue;
+			} else if (param instanceof OpDeclNode && variables.contains(param)) {
+				footprint.add(param.getName());
+			} else {
+				return NOT_MEMOIZABLE;
+			}
+		}
+		if (!isPure(opDef)) {
+			return NOT_MEMOIZABLE;
+		}
+		final UniqueString[] fp = footprint.toArray(new UniqueString[footprint.size()]);
+		Arrays.sort(fp, Comparator.comparingInt(UniqueString::getVarLoc));
+		return new Memo(opDef, fp);
+	}
+
+	private static boolean isPure(final OpDefNode opDef) {
+		final boolean[] pure = { true };
+		opDef.getBody().walkGraph(new Hashtable<>(), new ExplorerVisitor() {
+			@Override
+			public void preVisit(final ExploreNode node) {
+				if (node instanceof OpApplNode) {
+					final int opcode = BuiltInOPs.getOpCode(((OpApplNode) node).getOperator().getName());
+					if (opcode == ToolGlobals.OPCODE_enabled
+							|| (opcode >= ToolGlobals.OPCODE_prime && opcode <= ToolGlobals.OPCODE_diamond)) {
+						pure[0] = false;
+					}
+				} else if (node instanceof OpDefNode) {
+					final OpDefNode def = (OpDefNode) node;
+					if (def.getInRecursive()) {
+						pure[0] = false;
+					}
+					final ModuleNode module = def.getOriginallyDefinedInModuleNode();
+					if (module != null) {
+						final String name = module.getName().toString();
+						if (IMPURE_MODULES.contains(name)
+								|| ("TLC".equals(name) && IMPURE_TLC_OPERATORS.contains(def.getName().toString()))) {
+							pure[0] = false;
+						}
+					}
+				}
+			}
+		});
+		return pure[0];
+	}
+
+	/**
+	 * Prints the number of hits and misses of each memoized operator.
+	 */
+	public static void report(final ITool tool) {
+		if (!ENABLED || !(tool instanceof Tool) || ((Tool) tool).getMemoizer() == null) {
+			return;
+		}
+		final Memo[] memos = ((Tool) tool).getMemoizer().memos.values().stream().filter(m -> m != NOT_MEMOIZABLE)
+				.sorted(Comparator.comparing(m -> m.opDef.getLocation())).toArray(Memo[]::new);
+		MP.printMessage(EC.TLC_MEMOIZATION_START);
+		for (Memo memo : memos) {
+			MP.printMessage(EC.TLC_COVERAGE_VALUE_COST, new String[] {
+					String.format("<%s %s>", memo.opDef.getName(), memo.opDef.getLocation()),
+					String.valueOf(memo.hits.sum()), String.valueOf(memo.misses.sum()) });
+		}
+		MP.printMessage(EC.TLC_COVERAGE_END);
+	}
+
+	private static final class Memo {
+		private final OpDefNode opDef;
+		/**
+		 * The state variables the operator depends on.
+		 */
+		private final UniqueString[] footprint;
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		Memo(final OpDefNode opDef, final UniqueString[] footprint) {
+			this.opDef = opDef;
+			this.footprint = footprint;
+		}
+	}
+}
@@ -40,6 +40,8 @@ import java.util.Set;
 
 import tla2sany.drivers.FrontEndException;
 import tla2sany.drivers.SANY;
+import tla2sany.explorer.ExploreNode;
+import tla2sany.explorer.ExplorerVisitor;
 import tla2sany.modanalyzer.SpecObj;
 import tla2sany.semantic.APSubstInNode;
 import tla2sany.semantic.AssumeNode;
@@ -47,6 +49,7 @@ import tla2sany.semantic.DecimalNode;
 import tla2sany.semantic.ExprNode;
 import tla2sany.semantic.ExprOrOpArgNode;
 import tla2sany.semantic.ExternalModuleTable;
+import tla2sany.semantic.FormalParamNode;
 import tla2sany.semantic.LabelNode;
 import tla2sany.semantic.LetInNode;
 import tla2sany.semantic.ModuleNode;
@@ -167,6 +170,8 @@ public class SpecProcessor implements ValueConstants, ToolGlobals {
 		// It takes care of all overrides.
 		processSpec(mode);
 
+		assignContextSlots();
+
 		snapshot = defns.snapshot();
 
 		if (opDefEvaluator != null) {
@@ -178,6 +183,44 @@ public class SpecProcessor implements ValueConstants, ToolGlobals {
 		processConfig();
 	}
 
+    /**
+     * Assigns a slot to every symbol that TLC binds in a Context during
+     * evaluation, i.e. formal parameters (including the bound identifiers of
+     * quantifiers, CHOOSE, set constructors, ...), LET definitions, and the
+     * constants and variables substituted by INSTANCE. All other symbols
+     * (top-level definitions, the root module's variables, ...) keep no slot,
+     * for which Context#lookup returns immediately.
+     * <p>
+     * Symbols bound at runtime that are not found here get their slot
+     * assigned by Context#cons.
+     */
+    private final void assignContextSlots() {
+		final ExplorerVisitor visitor = new ExplorerVisitor() {
+			@Override
+			public void preVisit(final ExploreNode exploreNode) {
+				if (exploreNode instanceof FormalParamNode) {
+					((FormalParamNode) exploreNode).assignContextSlot();
+				} else if (exploreNode instanceof LetInNode) {
+					for (OpDefNode let : ((LetInNode) exploreNode).getLets()) {
+						let.assignContextSlot();
+					}
+				} else if (exploreNode instanceof SubstInNode) {
+					for (Subst subst : ((SubstInNode) exploreNode).getSubsts()) {
+						subst.getOp().assignContextSlot();
+					}
+				} else if (exploreNode instanceof APSubstInNode) {
+					for (Subst subst : ((APSubstInNode) exploreNode).getSubsts()) {
+						subst.getOp().assignContextSlot();
+					}
+				}
+			}
+		};
+		final Hashtable<Integer, ExploreNode> visited = new Hashtable<>();
+		for (ModuleNode module : this.moduleTbl.getModuleNodes()) {
+			module.walkGraph(visited, visitor);
+		}
+    }
+
     /**
      * This method converts every definition that is constant into TLC
      * value. By doing this, TLC avoids evaluating the same expression
@@ -8,7 +8,9 @@ package tlc2.tool.impl;
 
 import java.io.File;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import tla2sany.parser.SyntaxTreeNode;
 import tla2sany.semantic.APSubstInNode;
@@ -40,6 +42,7 @@ import tlc2.tool.INextStateFunctor;
 import tlc2.tool.IStateFunctor;
 import tlc2.tool.ITool;
 import tlc2.tool.StateVec;
+import tlc2.tool.SuccessorSampler;
 import tlc2.tool.TLAPlusExecutorState;
 import tlc2.tool.TLCState;
 import tlc2.tool.TLCStateFun;
@@ -89,6 +92,7 @@ import tlc2.value.impl.UnionValue;
 import tlc2.value.impl.Value;
 import tlc2.value.impl.ValueEnumeration;
 import tlc2.value.impl.ValueExcept;
+import tlc2.value.impl.ValueInterner;
 import tlc2.value.impl.ValueVec;
 import util.Assert;
 import util.Assert.TLCRuntimeException;
@@ -109,24 +113,13 @@ public abstract class Tool
     implements ValueConstants, ToolGlobals, ITool
 {
 
-  	/*
-	 * Prototype, do *not* activate when checking safety or liveness!!!:
-	 * For simulation that is not meant as a substitute of exhaustive checking for too
-	 * large models, it can be useful to generate behaviors as quickly as possible,
-	 * i.e. without checking all successor states along the states of the behavior.
-	 * This flag activates the code path that efficiently generate only a single 
-	 * successor state during simulation.  It does not let the user parameterize
-	 * the code with a particular distribution, but instead draws from the uniform
-	 * distribution.  
-	 * 
-	 * In its current form, it only handles non-determinism expressed with opcode
-	 * OPCODE_be (bounded exist), i.e. (which simply happened to be the primary
-	 * expression that we encountered in the SWIM spec during this work):
-	 * 
-	 * VARIABLE x
-	 * \E n \in S: x' = n
-	 */
-  private static final boolean PROBABLISTIC = Boolean.getBoolean(Tool.class.getName() + ".probabilistic");
+  /*
+   * If true, the model and action constraints, the invariants, and the implied
+   * actions are compiled into trees of CompiledExpr that are evaluated instead
+   * of interpreting the predicates' semantic graph. Ignored if coverage is
+   * enabled because compiled expressions do not record costs.
+   */
+  static final boolean COMPILE = Boolean.getBoolean(Tool.class.getName() + ".compile") && !coverage;
 
   public enum Mode {
 	  Simulation, MC, Executor;
@@ -137,6 +130,16 @@ public abstract class Tool
   protected final Action[] actions;     // the list of TLA actions.
   private Vect<Action> actionVec = new Vect<>(10);
 
+  // The compiled model and action constraints and predicates (invariants and
+  // implied actions), or null if COMPILE is false.
+  private final CompiledExpr[] compiledModelConstraints;
+  private final CompiledExpr[] compiledActionConstraints;
+  private final Map<Action, CompiledExpr> compiledPredicates;
+
+  // Memoizes applications of state-level operators, or null if
+  // OpMemoizer.ENABLED is false.
+  private final OpMemoizer memoizer;
+
   /**
    * Creates a new tool handle
    */
@@ -192,12 +195,49 @@ public abstract class Tool
 				this.actions[i] = (Action) this.actionVec.elementAt(i);
 			}
 		}
+
+		if (COMPILE) {
+			this.compiledModelConstraints = compile(this.getModelConstraints());
+			this.compiledActionConstraints = compile(this.getActionConstraints());
+			this.compiledPredicates = new IdentityHashMap<>();
+			compile(this.compiledPredicates, this.getInvariants());
+			compile(this.compiledPredicates, this.getImpliedActions());
+		} else {
+			this.compiledModelConstraints = null;
+			this.compiledActionConstraints = null;
+			this.compiledPredicates = null;
+		}
+		this.memoizer = OpMemoizer.ENABLED ? new OpMemoizer(this) : null;
   }
 
   Tool(Tool other) {
 	  super(other);
 	  this.actions = other.actions;
 	  this.actionVec = other.actionVec;
+	  // CallStackTool records the evaluation of every (sub-)expression, which a
+	  // compiled expression does not do.
+	  this.compiledModelConstraints = null;
+	  this.compiledActionConstraints = null;
+	  this.compiledPredicates = null;
+	  this.memoizer = null;
+  }
+
+  final OpMemoizer getMemoizer() {
+	  return this.memoizer;
+  }
+
+  private final CompiledExpr[] compile(final ExprNode[] exprs) {
+	  final CompiledExpr[] compiled = new CompiledExpr[exprs.length];
+	  for (int i = 0; i < exprs.length; i++) {
+		  compiled[i] = CompiledExpr.compile(this, exprs[i], Context.Empty);
+	  }
+	  return compiled;
+  }
+
+  private final void compile(final Map<Action, CompiledExpr> compiled, final Action[] acts) {
+	  for (Action act : acts) {
+		  compiled.put(act, CompiledExpr.compile(this, act.pred, act.con));
+	  }
   }
 
 	/**
@@ -809,9 +849,17 @@ public abstract class Tool
     StateVec nss = new StateVec(0);
     this.getNextStates(action, action.pred, acts, ctx, state, s1, nss, action.cm);
     if (coverage) { action.cm.incInvocations(nss.size()); }
-    if (PROBABLISTIC && nss.size() > 1) {System.err.println("Simulator generated more than one next state");}
     return nss;
   }
+
+  @Override
+  public final TLCState getRandomNextState(final Action action, final TLCState state, final RandomGenerator rng) {
+    final SuccessorSampler sampler = new SuccessorSampler(rng);
+    this.getNextStates(action, action.pred, ActionItemList.Empty, action.con, state, TLCState.Empty.createEmpty(),
+        sampler, action.cm);
+    if (coverage) { action.cm.incInvocations(sampler.hasStates() ? 1 : 0); }
+    return sampler.getState();
+  }
   
   @Override
   public final boolean getNextStates(final INextStateFunctor functor, final TLCState state) {
@@ -1087,11 +1135,11 @@ public abstract class Tool
 	case OPCODE_dl:     // DisjList
 	case OPCODE_lor:
 	  {
-		if (PROBABLISTIC) {
-			// probabilistic (return after a state has been generated, ordered is randomized)
-			final tlc2.tool.SimulationWorker simWorker = (tlc2.tool.SimulationWorker) Thread.currentThread();
-			int index = (int) Math.floor(simWorker.getRNG().nextDouble() * alen);
-			final int p = simWorker.getRNG().nextPrime();
+		final RandomGenerator rng = nss.getRandomGenerator();
+		if (rng != null) {
+			// Sampling (return after a state has been generated, order is randomized).
+			int index = (int) Math.floor(rng.nextDouble() * alen);
+			final int p = rng.nextPrime();
 		    for (int i = 0; i < alen; i++) {
 			      resState = this.getNextStates(action, args[index], acts, c, s0, resState, nss, cm);
 				  if (nss.hasStates()) {
@@ -1110,10 +1158,10 @@ public abstract class Tool
 	  {
 	    SemanticNode body = args[0];
 	    
-	    if (PROBABLISTIC) {
-		    // probabilistic (return after a state has been generated, ordered is randomized)
-		    final tlc2.tool.SimulationWorker simWorker = (tlc2.tool.SimulationWorker) Thread.currentThread();
-			final RandomizingContextEnumerator Enum = this.randomizingContexts(simWorker.getRNG(), pred, c, s0, s1, EvalControl.Clear, cm);
+	    final RandomGenerator rng = nss.getRandomGenerator();
+	    if (rng != null) {
+		    // Sampling (return after a state has been generated, order is randomized).
+			final RandomizingContextEnumerator Enum = this.randomizingContexts(rng, pred, c, s0, s1, EvalControl.Clear, cm);
 			Context c1;
 		    while ((c1 = Enum.nextElement()) != null) {
 				resState = this.getNextStates(action, body, acts, c1, s0, resState, nss, cm);
@@ -1190,7 +1238,19 @@ public abstract class Tool
 	     */
 	      //    this.getNextStates(action, args[0], acts, c, s0, s1, nss);
 	      //    return this.processUnchanged(args[1], acts, c, s0, s1, nss);
+	    final RandomGenerator rng = nss.getRandomGenerator();
+	    if (rng != null && rng.nextBoolean()) {
+	    	// Sampling: Randomize the order of A and UNCHANGED e (see \/ above).
+	    	resState = this.processUnchanged(action, args[1], acts, c, s0, resState, nss, cm);
+	    	if (nss.hasStates()) {
+	    		return resState;
+	    	}
+	    	return this.getNextStates(action, args[0], acts, c, s0, resState, nss, cm);
+	    }
 	    resState = this.getNextStates(action, args[0], acts, c, s0, resState, nss, cm);
+	    if (rng != null && nss.hasStates()) {
+	    	return resState;
+	    }
 	    return this.processUnchanged(action, args[1], acts, c, s0, resState, nss, cm);
 	  }
 	case OPCODE_ite:    // IfThenElse
@@ -1211,11 +1271,6 @@ public abstract class Tool
 	case OPCODE_case:   // Case
 	  {
 	    SemanticNode other = null;
-		if (PROBABLISTIC) {
-			// See Bounded exists above!
-			throw new UnsupportedOperationException(
-							"Probabilistic evaluation of next-state relation not implemented for CASE yet.");
-		}
 	    for (int i = 0; i < alen; i++) {
 	      OpApplNode pair = (OpApplNode)args[i];
 	      ExprOrOpArgNode[] pairArgs = pair.getArgs();
@@ -1255,6 +1310,10 @@ public abstract class Tool
 	      IValue lval = s1.lookup(varName);
 	      Value rval = this.eval(args[1], c, s0, s1, EvalControl.Clear, cm);
 	      if (lval == null) {
+	        if (ValueInterner.ENABLED) {
+	          // Share structurally identical values across successor states.
+	          rval = ValueInterner.intern(rval);
+	        }
 	        resState.bind(varName, rval);
 	        resState = this.getNextStates(action, acts, s0, resState, nss, cm);
 	        resState.unbind(varName);
@@ -1286,11 +1345,21 @@ public abstract class Tool
 	                      " is not enumerable.\n" + pred);
 	        }
 	        
-			if (PROBABLISTIC) {
-				// See Bounded exists above!
-				throw new UnsupportedOperationException(
-								"Probabilistic evaluation of next-state relation not implemented for \\in yet.");
-			}
+	        final RandomGenerator rng = nss.getRandomGenerator();
+	        if (rng != null) {
+	          // Sampling (see bounded exists above).
+	          final ValueEnumeration Enum = ((Enumerable) rval).unorderedElements(rng.nextPrime());
+	          Value elem;
+	          while ((elem = Enum.nextElement()) != null) {
+	            resState.bind(varName, elem);
+	            resState = this.getNextStates(action, acts, s0, resState, nss, cm);
+	            resState.unbind(varName);
+	            if (nss.hasStates()) {
+	              return resState;
+	            }
+	          }
+	          return resState;
+	        }
 
 	        ValueEnumeration Enum = ((Enumerable)rval).elements();
 	        Value elem;
@@ -1788,8 +1857,13 @@ public abstract class Tool
             OpDefNode opDef = (OpDefNode)val;
             opcode = BuiltInOPs.getOpCode(opDef.getName());
             if (opcode == 0) {
-              Context c1 = this.getOpContext(opDef, args, c, true, cm, toolId);
-              res = this.eval(opDef.getBody(), c1, s0, s1, control, cm);
+              if (this.memoizer != null) {
+                res = this.memoizer.eval(opDef, args, c, s0, s1, control, cm);
+              }
+              if (res == null) {
+                Context c1 = this.getOpContext(opDef, args, c, true, cm, toolId);
+                res = this.eval(opDef.getBody(), c1, s0, s1, control, cm);
+              }
             }
           }
           else if (val instanceof Value) {
@@ -2023,7 +2097,12 @@ public abstract class Tool
           {
             int alen = args.length;
             Value result = this.eval(args[0], c, s0, s1, control, cm);
-            // SZ: variable not used ValueExcept[] expts = new ValueExcept[alen-1];
+            // Excepts are collected and taken together, which copies result
+            // only once. An except whose lhs overlaps the lhs of a collected
+            // one needs the value produced by the collected ones (its @ is
+            // selected from it), so they are taken first.
+            ValueExcept[] expts = new ValueExcept[alen-1];
+            int elen = 0;
             for (int i = 1; i < alen; i++) {
               OpApplNode pairNode = (OpApplNode)args[i];
               ExprOrOpArgNode[] pairArgs = pairNode.getArgs();
@@ -2033,6 +2112,13 @@ public abstract class Tool
               for (int j = 0; j < lhs.length; j++) {
                 lhs[j] = this.eval(cmpts[j], c, s0, s1, control,  coverage ? cm.get(pairNode).get(pairArgs[0]) : cm);
               }
+              for (int j = 0; j < elen; j++) {
+                if (expts[j].overlaps(lhs)) {
+                  result = this.takeExcepts(result, expts, elen);
+                  elen = 0;
+                  break;
+                }
+              }
               Value atVal = result.select(lhs);
               if (atVal == null) {
                 // Do nothing but warn:
@@ -2041,11 +2127,10 @@ public abstract class Tool
               else {
                 Context c1 = c.cons(EXCEPT_AT, atVal);
                 Value rhs = this.eval(pairArgs[1], c1, s0, s1, control,  coverage ? cm.get(pairNode) : cm);
-                ValueExcept vex = new ValueExcept(lhs, rhs);
-                result = (Value) result.takeExcept(vex);
+                expts[elen++] = new ValueExcept(lhs, rhs);
               }
             }
-            return result;
+            return this.takeExcepts(result, expts, elen);
           }
         case OPCODE_fa:     // FcnApply
           {
@@ -2555,6 +2640,22 @@ public abstract class Tool
         }
   }
 
+  /* Takes the first elen excepts of expts in order. */
+  private final Value takeExcepts(Value result, ValueExcept[] expts, int elen) {
+    if (elen == 0) {
+      return result;
+    }
+    if (elen == 1) {
+      return result.takeExcept(expts[0]);
+    }
+    if (elen < expts.length) {
+      ValueExcept[] exs = new ValueExcept[elen];
+      System.arraycopy(expts, 0, exs, 0, elen);
+      expts = exs;
+    }
+    return result.takeExcept(expts);
+  }
+
   protected abstract Value setSource(final SemanticNode expr, final Value value);
 
   /**
@@ -2573,7 +2674,9 @@ public abstract class Tool
     ExprNode[] constrs = this.getModelConstraints();
     for (int i = 0; i < constrs.length; i++) {
       final CostModel cm = coverage ? ((Action) constrs[i].getToolObject(toolId)).cm : CostModel.DO_NOT_RECORD;
-      IValue bval = this.eval(constrs[i], Context.Empty, state, cm);
+      IValue bval = this.compiledModelConstraints != null
+          ? this.compiledModelConstraints[i].eval(state, TLCState.Empty)
+          : this.eval(constrs[i], Context.Empty, state, cm);
       if (!(bval instanceof BoolValue)) {
         Assert.fail(EC.TLC_EXPECTED_VALUE, new String[]{"boolean", constrs[i].toString()});
       }
@@ -2597,7 +2700,9 @@ public abstract class Tool
     ExprNode[] constrs = this.getActionConstraints();
     for (int i = 0; i < constrs.length; i++) {
       final CostModel cm = coverage ? ((Action) constrs[i].getToolObject(toolId)).cm : CostModel.DO_NOT_RECORD;
-      Value bval = this.eval(constrs[i], Context.Empty, s1, s2, EvalControl.Clear, cm);
+      Value bval = this.compiledActionConstraints != null
+          ? this.compiledActionConstraints[i].eval(s1, s2)
+          : this.eval(constrs[i], Context.Empty, s1, s2, EvalControl.Clear, cm);
       if (!(bval instanceof BoolValue)) {
         Assert.fail(EC.TLC_EXPECTED_VALUE, new String[]{"boolean", constrs[i].toString()});
       }
@@ -3240,7 +3345,9 @@ public abstract class Tool
   /* This method determines if the action predicate is valid in (s0, s1). */
   @Override
   public final boolean isValid(Action act, TLCState s0, TLCState s1) {
-    Value val = this.eval(act.pred, act.con, s0, s1, EvalControl.Clear, act.cm);
+    final CompiledExpr compiled = this.compiledPredicates != null ? this.compiledPredicates.get(act) : null;
+    Value val = compiled != null ? compiled.eval(s0, s1)
+        : this.eval(act.pred, act.con, s0, s1, EvalControl.Clear, act.cm);
     if (!(val instanceof BoolValue)) {
       Assert.fail(EC.TLC_EXPECTED_VALUE, new String[]{"boolean", act.pred.toString()});
     }
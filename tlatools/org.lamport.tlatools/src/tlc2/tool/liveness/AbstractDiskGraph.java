@@ -85,6 +85,7 @@ public abstract class AbstractDiskGraph {
 	 */
 	protected final BufferedRandomAccessFile nodeRAF;
 	protected final BufferedRandomAccessFile nodePtrRAF;
+	private final String fnameForNodes;
 	protected final LongVec initNodes;
 	/**
 	 * In-memory cache
@@ -95,11 +96,31 @@ public abstract class AbstractDiskGraph {
 
 	private long sizeAtCheck = 1; // initialize with 1 to avoid div by zero
 
+	/*
+	 * Incremental liveness checking (see LiveCheck#INCREMENTAL): The positions
+	 * of nodeRAF and nodePtrRAF when the last check completed. A node whose
+	 * file pointer is below nodePosAtCheck has already been there during the
+	 * last check. Thus, all SCCs that consist exclusively of such nodes have
+	 * been checked by it.
+	 */
+	private long nodePosAtCheck = 0L;
+	private long nodePtrPosAtCheck = 0L;
+
+	/*
+	 * <<fp, tidx, ptr>> triples of the file pointers SCC search has replaced
+	 * with links. Replaying the log restores the nodePtrTbl without re-reading
+	 * the complete ptrs file (see makeNodePtrTbl). Null unless logging.
+	 */
+	private LongVec linkLog = null;
+	private boolean linkLogOverflow = false;
+	private static final int MAX_LINK_LOG = Integer.getInteger(AbstractDiskGraph.class.getName() + ".maxLinkLog",
+			1 << 24);
+
 	public AbstractDiskGraph(String metadir, int soln, IBucketStatistics graphStats) throws IOException {
 		this.metadir = metadir;
 		this.outDegreeGraphStats = graphStats;
 		this.chkptName = metadir + FileUtil.separator + "dgraph_" + soln;
-		String fnameForNodes = metadir + FileUtil.separator + "nodes_" + soln;
+		this.fnameForNodes = metadir + FileUtil.separator + "nodes_" + soln;
 		this.nodeRAF = new BufferedRandomAccessFile(fnameForNodes, "rw");
 		String fnameForPtrs = metadir + FileUtil.separator + "ptrs_" + soln;
 		this.nodePtrRAF = new BufferedRandomAccessFile(fnameForPtrs, "rw");
@@ -144,6 +165,27 @@ public abstract class AbstractDiskGraph {
 	public final void close() throws IOException {
 		this.nodeRAF.close();
 		this.nodePtrRAF.close();
+		this.freeNodePtrTbl();
+	}
+
+	/**
+	 * Releases memory of the node-pointer table that is not managed by the
+	 * garbage collector (see {@link OffHeapNodePtrTable}).
+	 */
+	protected void freeNodePtrTbl() {
+		// no-op
+	}
+
+	/**
+	 * Flushes the nodes file and opens an additional, read-only handle to it.
+	 * Unlike {@link #nodeRAF}, distinct handles can be read concurrently. The
+	 * caller is responsible for closing the returned handle.
+	 */
+	final BufferedRandomAccessFile openNodesForReading() throws IOException {
+		synchronized (this.nodeRAF) {
+			this.nodeRAF.flush();
+		}
+		return new BufferedRandomAccessFile(this.fnameForNodes, "r");
 	}
 
 	/**
@@ -423,7 +465,111 @@ public abstract class AbstractDiskGraph {
 
 	public void recordSize() {
 		this.sizeAtCheck = size();
+		this.nodePosAtCheck = this.nodeRAF.getFilePointer();
+		this.nodePtrPosAtCheck = this.nodePtrRAF.getFilePointer();
+	}
+
+	/* Incremental liveness checking */
+
+	/**
+	 * @return true iff a previous check has completed on this graph, i.e. the
+	 *         SCCs of a prefix of this graph are known to be OK.
+	 */
+	final boolean hasCheckedPrefix() {
+		return this.nodePtrPosAtCheck > 0L;
+	}
+
+	/**
+	 * @return The position of the nodes file when the last check completed.
+	 *         Nodes at or beyond this position have been added (or re-written)
+	 *         after the last check.
+	 */
+	final long getCheckedPrefix() {
+		return this.nodePosAtCheck;
+	}
+
+	/**
+	 * Forget about the last check, e.g. because the disk graph has been reset.
+	 */
+	protected final void resetCheckedPrefix() {
+		this.nodePosAtCheck = 0L;
+		this.nodePtrPosAtCheck = 0L;
+		this.linkLog = null;
+		this.linkLogOverflow = false;
 	}
+
+	/**
+	 * @return The &lt;&lt;fp, tidx, ptr&gt;&gt; triples of all nodes that have
+	 *         been added (or re-written) since the last check, omitting
+	 *         records superseded by a later one. Expects the nodePtrTbl to
+	 *         contain file pointers (no links).
+	 */
+	final LongVec getNodesSinceCheck() throws IOException {
+		final LongVec res = new LongVec();
+		final long pos = this.nodePtrRAF.getFilePointer();
+		final long len = this.nodePtrRAF.length();
+		this.nodePtrRAF.seek(this.nodePtrPosAtCheck);
+		while (this.nodePtrRAF.getFilePointer() < len) {
+			final long fp = this.nodePtrRAF.readLong();
+			final int tidx = this.nodePtrRAF.readInt();
+			final long loc = this.nodePtrRAF.readLongNat();
+			if (getLink(fp, tidx) == loc) {
+				res.addElement(fp);
+				res.addElement(tidx);
+				res.addElement(loc);
+			}
+		}
+		this.nodePtrRAF.seek(pos);
+		return res;
+	}
+
+	/**
+	 * Restores the file pointers in the nodePtrTbl which have been replaced by
+	 * links during the previous SCC search and starts logging the replacements
+	 * of the next search. Unlike {@link #makeNodePtrTbl()}, the cost is
+	 * proportional to the number of nodes the previous SCC search visited
+	 * rather than to the size of the graph. Falls back to
+	 * {@link #makeNodePtrTbl()} if the log has grown too large.
+	 */
+	public final void restoreNodePtrTbl() throws IOException {
+		if (this.linkLogOverflow) {
+			this.makeNodePtrTbl();
+			this.linkLogOverflow = false;
+		} else if (this.linkLog != null) {
+			for (int i = 0; i < this.linkLog.size(); i += 3) {
+				putPtr(this.linkLog.elementAt(i), (int) this.linkLog.elementAt(i + 1), this.linkLog.elementAt(i + 2));
+			}
+		}
+		this.linkLog = new LongVec();
+	}
+
+	protected final boolean isLoggingLinks() {
+		return this.linkLog != null;
+	}
+
+	/**
+	 * Records that the (file pointer) ptr of the node &lt;&lt;fp, tidx&gt;&gt;
+	 * is about to be replaced by a link.
+	 */
+	protected final void logLink(final long fp, final int tidx, final long ptr) {
+		if (this.linkLog == null || ptr < 0 || !isFilePointer(ptr)) {
+			return;
+		}
+		if (this.linkLog.size() >= 3 * MAX_LINK_LOG) {
+			// Give up on the log and re-read the ptrs file instead.
+			this.linkLog = null;
+			this.linkLogOverflow = true;
+			return;
+		}
+		this.linkLog.addElement(fp);
+		this.linkLog.addElement(tidx);
+		this.linkLog.addElement(ptr);
+	}
+
+	/**
+	 * Puts the file pointer of the given node back into the nodePtrTbl.
+	 */
+	protected abstract void putPtr(long fp, int tidx, long ptr);
 	
 	/**
 	 * Only useful for debugging.
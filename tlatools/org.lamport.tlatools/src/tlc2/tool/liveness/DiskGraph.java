@@ -8,6 +8,7 @@ import java.io.IOException;
 
 import tlc2.output.EC;
 import tlc2.output.MP;
+import tlc2.tool.fp.LongArray;
 import tlc2.util.LongVec;
 import tlc2.util.MemIntQueue;
 import tlc2.util.statistics.IBucketStatistics;
@@ -23,11 +24,34 @@ import tlc2.util.statistics.IBucketStatistics;
 // positions that need changing.
 public class DiskGraph extends AbstractDiskGraph {
 
-	private NodePtrTable nodePtrTbl;
+	/**
+	 * Iff true, the node-pointer table is kept off-heap (see
+	 * {@link OffHeapNodePtrTable}) which lifts the 2^31 limit on the number of
+	 * nodes and takes the table out of the garbage collector's way. The
+	 * native memory is in addition to what is reserved for the heap.
+	 */
+	static final boolean OFF_HEAP = Boolean.getBoolean(DiskGraph.class.getName() + ".offHeap")
+			&& LongArray.isSupported();
+
+	/**
+	 * The minimum length in bytes of a record in the ptrs file: the
+	 * fingerprint, the (unused) tableau idx and the location written with
+	 * writeLongNat which takes four or eight bytes.
+	 */
+	private static final int MIN_PTR_RECORD_LENGTH = 8 + 4 + 4;
+
+	private INodePtrTable nodePtrTbl;
 	
 	public DiskGraph(String metadir, int soln, IBucketStatistics graphStats) throws IOException {
 		super(metadir, soln, graphStats);
-		nodePtrTbl = new NodePtrTable(255);
+		nodePtrTbl = newNodePtrTable();
+	}
+
+	private static INodePtrTable newNodePtrTable() {
+		if (OFF_HEAP) {
+			return new OffHeapNodePtrTable(255);
+		}
+		return new NodePtrTable(255);
 	}
 
 	public final GraphNode getNode(long fp, int tidx) throws IOException {
@@ -61,7 +85,16 @@ public class DiskGraph extends AbstractDiskGraph {
 	public void reset() throws IOException {
 		this.nodePtrRAF.reset();
 		this.nodeRAF.reset();
-		this.nodePtrTbl = new NodePtrTable(255);
+		this.nodePtrTbl.free();
+		this.nodePtrTbl = newNodePtrTable();
+		this.resetCheckedPrefix();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.AbstractDiskGraph#freeNodePtrTbl()
+	 */
+	protected void freeNodePtrTbl() {
+		this.nodePtrTbl.free();
 	}
 	
 	/* (non-Javadoc)
@@ -90,11 +123,12 @@ public class DiskGraph extends AbstractDiskGraph {
 	 */
 	public long putLink(long state, int tidx, long link) {
 		assert MAX_PTR <= link && link < MAX_LINK; 
-		int loc = this.nodePtrTbl.getLoc(state);
+		long loc = this.nodePtrTbl.getLoc(state);
 		long oldLink = this.nodePtrTbl.getByLoc(loc);
 		if (!isFilePointer(oldLink)) {
 			return oldLink;
 		}
+		logLink(state, tidx, oldLink);
 		this.nodePtrTbl.putByLoc(state, link, loc);
 		return -1;
 	}
@@ -103,13 +137,27 @@ public class DiskGraph extends AbstractDiskGraph {
 	 * @see tlc2.tool.liveness.DiskGraph#setMaxLink(long, int)
 	 */
 	public void setMaxLink(long state, int tidx) {
+		if (isLoggingLinks()) {
+			logLink(state, tidx, this.nodePtrTbl.get(state));
+		}
 		this.nodePtrTbl.put(state, MAX_LINK);
 	}
 
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.AbstractDiskGraph#putPtr(long, int, long)
+	 */
+	protected void putPtr(long fp, int tidx, long ptr) {
+		this.nodePtrTbl.put(fp, ptr);
+	}
+
 	/* (non-Javadoc)
 	 * @see tlc2.tool.liveness.DiskGraph#makeNodePtrTbl(long)
 	 */
 	protected void makeNodePtrTbl(long ptr) throws IOException {
+		// Grow the table at most once upfront instead of repeatedly rehashing
+		// it while the records are added. The record count is an upper bound
+		// because a location takes up to eight bytes.
+		this.nodePtrTbl.ensureCapacity(ptr / MIN_PTR_RECORD_LENGTH);
 		this.nodePtrRAF.seek(0);
 		while (this.nodePtrRAF.getFilePointer() < ptr) {
 			long fp = this.nodePtrRAF.readLong();
@@ -273,7 +321,7 @@ public class DiskGraph extends AbstractDiskGraph {
 					// found a path to state: construct the path and return.
 					final LongVec res = new LongVec(2);
 					res.addElement(nextState);
-					int curLoc = this.nodePtrTbl.getLoc(curState);
+					long curLoc = this.nodePtrTbl.getLoc(curState);
 					while (true) {
 						res.addElement(curState);
 						final long ploc = this.nodePtrTbl.getByLoc(curLoc);
@@ -286,12 +334,12 @@ public class DiskGraph extends AbstractDiskGraph {
 						// Lookup the predecessor in the ptr table. (ploc -
 						// offset) is the index of the predecessor in the
 						// nodePtrTbl. See offset below at putByLoc(..).
-						curLoc = (int) (ploc - offset);
+						curLoc = ploc - offset;
 						curState = this.nodePtrTbl.getKeyByLoc(curLoc);
 					}
 					return res;
 				}
-				final int nextLoc = this.nodePtrTbl.getLoc(nextState);
+				final long nextLoc = this.nodePtrTbl.getLoc(nextState);
 				if (nextLoc == -1) {
 					// nextState is not on disk.
 					//
@@ -317,7 +365,7 @@ public class DiskGraph extends AbstractDiskGraph {
 					// nextState is not visited:
 					queue.enqueueLong(nextState);
 					queue.enqueueLong(nextPtr);
-					final int curLoc = this.nodePtrTbl.getLoc(curState);
+					final long curLoc = this.nodePtrTbl.getLoc(curState);
 					this.nodePtrTbl.putByLoc(nextState, offset + curLoc, nextLoc);
 				}
 			}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.liveness;
+
+/**
+ * A hash table from a node's fingerprint to its pointer (or link) as used by
+ * {@link DiskGraph}. Locations are long so that implementations are free to
+ * hold more than 2^31 nodes.
+ *
+ * @see NodePtrTable
+ * @see OffHeapNodePtrTable
+ */
+public interface INodePtrTable {
+
+	/**
+	 * Add <k, elem> into the table. If the table has already contained k,
+	 * overwrite the old value.
+	 */
+	void put(long k, long elem);
+
+	/* Return the value with key k. Otherwise, return -1. */
+	long get(long k);
+
+	/* Return k's location if the table contains k. Otherwise, return -1. */
+	long getLoc(long k);
+
+	long getByLoc(long loc);
+
+	long getKeyByLoc(long loc);
+
+	void putByLoc(long k, long elem, long loc);
+
+	/**
+	 * Grows the table once such that at least <code>expected</code> elements
+	 * can be added without any further growth. Growing invalidates
+	 * previously obtained locations.
+	 */
+	void ensureCapacity(long expected);
+
+	/* The number of elements in this table. */
+	long size();
+
+	/* The number of buckets of this table. */
+	long getSize();
+
+	/**
+	 * Releases the resources held by this table. The table must not be used
+	 * afterwards.
+	 */
+	void free();
+}
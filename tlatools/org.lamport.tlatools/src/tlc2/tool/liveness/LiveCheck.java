@@ -36,6 +36,14 @@ import util.Assert;
 
 public class LiveCheck implements ILiveCheck {
 
+	/**
+	 * Iff true, periodic (non-final) checks only search the SCCs reachable from
+	 * the nodes added to the behavior graphs since the previous check and only
+	 * check the SCCs which contain such a node. All other SCCs have been checked
+	 * by a previous check already. The final check remains exhaustive.
+	 */
+	static final boolean INCREMENTAL = Boolean.getBoolean(LiveCheck.class.getName() + ".incremental");
+
 	private final String metadir;
 	private final IBucketStatistics outDegreeGraphStats;
 	private final ILiveChecker[] checker;
@@ -273,7 +281,11 @@ public class LiveCheck implements ILiveCheck {
 		// Reset after checking unless it's the final check:
 		if (finalCheck == false) {
 			for (int i = 0; i < checker.length; i++) {
-				checker[i].getDiskGraph().makeNodePtrTbl();
+				if (INCREMENTAL) {
+					checker[i].getDiskGraph().restoreNodePtrTbl();
+				} else {
+					checker[i].getDiskGraph().makeNodePtrTbl();
+				}
 			}
 		}
 		MP.printMessage(EC.TLC_CHECKING_TEMPORAL_PROPS_END, TLC.convertRuntimeToHumanReadable(System.currentTimeMillis() - startTime));
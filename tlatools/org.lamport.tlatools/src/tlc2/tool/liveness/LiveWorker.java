@@ -48,6 +48,13 @@ public class LiveWorker implements Callable<Boolean> {
 	 */
 	private static final long SCC_MARKER = -42L;
 
+	/**
+	 * Iff true, the SCCs of a single liveness graph are searched with multiple
+	 * cores by {@link ParallelSccSearch} instead of the sequential Tarjan in
+	 * {@link #checkSccs(ITool)}.
+	 */
+	private static final boolean PARALLEL_SCCS = Boolean.getBoolean(LiveWorker.class.getName() + ".parallelSccs");
+
 	public static final IBucketStatistics STATS = new BucketStatistics("Histogram SCC sizes", LiveWorker.class
 			.getPackage().getName(), "StronglyConnectedComponent sizes");
 	
@@ -57,6 +64,12 @@ public class LiveWorker implements Callable<Boolean> {
 	private OrderOfSolution oos = null;
 	private AbstractDiskGraph dg = null;
 	private PossibleErrorModel pem = null;
+	/**
+	 * Incremental checking: Nodes with file pointers below checkedPrefix have
+	 * been checked by a previous check (see LiveCheck#INCREMENTAL). Zero if all
+	 * nodes have to be checked.
+	 */
+	private long checkedPrefix = 0L;
 	private final ILiveCheck liveCheck;
 	private final BlockingQueue<ILiveChecker> queue;
 	private final boolean isFinalCheck;
@@ -147,54 +160,75 @@ public class LiveWorker implements Callable<Boolean> {
 	 */
 	private final void checkSccs(final ITool tool) throws IOException, InterruptedException, ExecutionException {
 		// Initialize this.dg:
-		this.dg.makeNodePtrTbl();
+		if (LiveCheck.INCREMENTAL) {
+			this.dg.restoreNodePtrTbl();
+		} else {
+			this.dg.makeNodePtrTbl();
+		}
 		
-		// Initialize nodeQueue with initial states. The initial states stored 
-		// separately in the DiskGraph are resolved to their pointer location
-		// in the on-disk part of the DiskGraph.
-		// The pointer location generally is obviously used to:
-		// * Speed up disk lookups in the RandomAccessFile(s) backing up the DiskGraph
-		// * Is replaced by the SCC link number the moment the node's successors
-		//   are explored during DFS search. At this point the ptr location isn't
-		//   needed anymore. The successors have been resolved.
-		// 
-		// From each node in nodeQueue the SCC search is started down below,
-		// which can subsequently add additional nodes into nodeQueue.
-		// 
-		// Contrary to plain Tarjan, not all vertices are added to the
-		// nodeQueue of unexplored states, but only the initial states. Since we
-		// know that all non-initial states are reachable from the set of
-		// initial states, this is sufficient to start with.
-		final LongVec initNodes = this.dg.getInitNodes();
-		final int numOfInits = initNodes.size();
-		// Allocate space for all initial states, assuming the majority of
-		// initial nodes will be done. Multiplied by 5 because of
-		// <<long, int, long>> per "record.
-		final MemIntQueue nodeQueue = new MemIntQueue(liveCheck.getMetaDir(), "root", (numOfInits / 2) * 5);
-		for (int j = 0; j < numOfInits; j += 2) {
-			final long state = initNodes.elementAt(j);
-			final int tidx = (int) initNodes.elementAt(j + 1);
-			final long ptr = this.dg.getLink(state, tidx);
-			// Check if the node <<state, tidx>> s is done. A node s is undone
-			// if it is an initial state which hasn't been explored yet. This is
-			// the case if s has been added via LiveChecker#addInitState but not
-			// yet via LiveChecker#addNextState. LiveChecker#addNextState fully
-			// explores the given init state s because it has access to s'
-			// successors.
-			if (ptr >= 0) {
-				// Make sure none of the init states has already been assigned a
-				// link number. That would indicate a bug in makeNodePtrTbl
-				// which is supposed to reset all link numbers to file ptrs.
-				assert DiskGraph.isFilePointer(ptr);
-				nodeQueue.enqueueLong(state);
-				nodeQueue.enqueueInt(tidx);
-				nodeQueue.enqueueLong(ptr);
-			} else {
-				// If this is the final check on the complete graph, no node is
-				// allowed to be undone. If it's not the final check, ptr has to
-				// be UNDONE (a non-UNDONE negative pointer is probably a bug).
-				// isFinalCheck => ptr # UNDONE
-				assert !isFinalCheck || ptr != TableauNodePtrTable.UNDONE;
+		final MemIntQueue nodeQueue;
+		if (this.checkedPrefix > 0L) {
+			// Incremental check: An SCC which has not been checked by a previous
+			// check contains at least one node added since then. Such an SCC is
+			// reachable from each of its nodes, thus start SCC search from the
+			// new nodes instead of from the initial states. checkComponent
+			// skips the (old) SCCs that are reachable from the new nodes but do
+			// not contain any of them.
+			final LongVec nodes = this.dg.getNodesSinceCheck();
+			nodeQueue = new MemIntQueue(liveCheck.getMetaDir(), "root", (nodes.size() / 3) * 5);
+			for (int j = 0; j < nodes.size(); j += 3) {
+				nodeQueue.enqueueLong(nodes.elementAt(j));
+				nodeQueue.enqueueInt((int) nodes.elementAt(j + 1));
+				nodeQueue.enqueueLong(nodes.elementAt(j + 2));
+			}
+		} else {
+			// Initialize nodeQueue with initial states. The initial states stored 
+			// separately in the DiskGraph are resolved to their pointer location
+			// in the on-disk part of the DiskGraph.
+			// The pointer location generally is obviously used to:
+			// * Speed up disk lookups in the RandomAccessFile(s) backing up the DiskGraph
+			// * Is replaced by the SCC link number the moment the node's successors
+			//   are explored during DFS search. At this point the ptr location isn't
+			//   needed anymore. The successors have been resolved.
+			// 
+			// From each node in nodeQueue the SCC search is started down below,
+			// which can subsequently add additional nodes into nodeQueue.
+			// 
+			// Contrary to plain Tarjan, not all vertices are added to the
+			// nodeQueue of unexplored states, but only the initial states. Since we
+			// know that all non-initial states are reachable from the set of
+			// initial states, this is sufficient to start with.
+			final LongVec initNodes = this.dg.getInitNodes();
+			final int numOfInits = initNodes.size();
+			// Allocate space for all initial states, assuming the majority of
+			// initial nodes will be done. Multiplied by 5 because of
+			// <<long, int, long>> per "record.
+			nodeQueue = new MemIntQueue(liveCheck.getMetaDir(), "root", (numOfInits / 2) * 5);
+			for (int j = 0; j < numOfInits; j += 2) {
+				final long state = initNodes.elementAt(j);
+				final int tidx = (int) initNodes.elementAt(j + 1);
+				final long ptr = this.dg.getLink(state, tidx);
+				// Check if the node <<state, tidx>> s is done. A node s is undone
+				// if it is an initial state which hasn't been explored yet. This is
+				// the case if s has been added via LiveChecker#addInitState but not
+				// yet via LiveChecker#addNextState. LiveChecker#addNextState fully
+				// explores the given init state s because it has access to s'
+				// successors.
+				if (ptr >= 0) {
+					// Make sure none of the init states has already been assigned a
+					// link number. That would indicate a bug in makeNodePtrTbl
+					// which is supposed to reset all link numbers to file ptrs.
+					assert DiskGraph.isFilePointer(ptr);
+					nodeQueue.enqueueLong(state);
+					nodeQueue.enqueueInt(tidx);
+					nodeQueue.enqueueLong(ptr);
+				} else {
+					// If this is the final check on the complete graph, no node is
+					// allowed to be undone. If it's not the final check, ptr has to
+					// be UNDONE (a non-UNDONE negative pointer is probably a bug).
+					// isFinalCheck => ptr # UNDONE
+					assert !isFinalCheck || ptr != TableauNodePtrTable.UNDONE;
+				}
 			}
 		}
 
@@ -562,9 +596,11 @@ public class LiveWorker implements Callable<Boolean> {
 		// passed on to printTrace iff an error is found. The implementation
 		// here could use a simple java.util.Map or HashTable technically.)
 		final TableauNodePtrTable com = new TableauNodePtrTable(128);
+		long maxLoc = -1L;
 		while (true) {
 			// Add <state1, tidx1> into com:
 			com.put(state1, tidx1, loc1);
+			maxLoc = Math.max(maxLoc, loc1);
 			assert AbstractDiskGraph.isFilePointer(loc1);
 			this.dg.setMaxLink(state1, tidx1);
 
@@ -580,6 +616,12 @@ public class LiveWorker implements Callable<Boolean> {
 		// Just parameter node in com OR com subset of comStack
 		assert com.size() <= (comStackSize / 5);
 
+		if (maxLoc < this.checkedPrefix) {
+			// All nodes of this component are old, thus a previous check has
+			// checked the component already.
+			return true;
+		}
+
 		STATS.addSample(com.size());
 
 		// Check this component:
@@ -763,6 +805,42 @@ public class LiveWorker implements Callable<Boolean> {
 		return false;
 	}
 
+	/**
+	 * Searches the SCCs of this.dg with {@link ParallelSccSearch} and prints the
+	 * error trace if one of the SCCs violates this.pem.
+	 * 
+	 * @return false iff the parallel search is not applicable and the caller has
+	 *         to fall back to {@link #checkSccs(ITool)}.
+	 */
+	private boolean checkSccsInParallel(final ITool tool) throws IOException, InterruptedException, ExecutionException {
+		if (!PARALLEL_SCCS || !ParallelSccSearch.isApplicable(this.oos, this.pem)) {
+			return false;
+		}
+		// Split the cores among the LiveWorkers which check concurrently.
+		final int numThreads = Math.max(1, TLCGlobals.getNumWorkers() / numWorkers);
+		final ParallelSccSearch search = new ParallelSccSearch(this.dg, this.oos, this.pem, numThreads,
+				this.checkedPrefix);
+		final int[] scc;
+		try {
+			scc = search.search();
+		} catch (OutOfMemoryError e) {
+			// The in-memory copy of the graph does not fit into memory, the
+			// sequential search works off disk.
+			MP.printWarning(EC.GENERAL,
+					"Parallel SCC search ran out of memory, falling back to the sequential search.");
+			return false;
+		}
+		if (scc != null && setErrFound()) {
+			// Start the error trace from the node with the lowest id which, like
+			// with the sequential search, is close to the initial states.
+			final int min = ParallelSccSearch.min(scc);
+			// printTrace reads nodes by their file pointers, thus it does not
+			// matter that this.dg.nodePtrTbl has not been initialized.
+			this.printTrace(tool, search.getStateFP(min), search.getTidx(min), search.toNodePtrTable(scc));
+		}
+		return true;
+	}
+
 	/* Check if the node <state, tidx> stutters. */
 	private boolean isStuttering(long state, int tidx, long loc) throws IOException {
 		final int slen = this.oos.getCheckState().length;
@@ -1264,11 +1342,16 @@ public class LiveWorker implements Callable<Boolean> {
 			this.oos = checker.getSolution();
 			this.dg = checker.getDiskGraph();
 			this.dg.createCache();
+			this.checkedPrefix = LiveCheck.INCREMENTAL && !this.isFinalCheck && this.dg.hasCheckedPrefix()
+					? this.dg.getCheckedPrefix()
+					: 0L;
 			PossibleErrorModel[] pems = this.oos.getPems();
 			for (int i = 0; i < pems.length; i++) {
 				if (!hasErrFound()) {
 					this.pem = pems[i];
-					this.checkSccs(tool);
+					if (!this.checkSccsInParallel(tool)) {
+						this.checkSccs(tool);
+					}
 				}
 			}
 			this.dg.destroyCache();
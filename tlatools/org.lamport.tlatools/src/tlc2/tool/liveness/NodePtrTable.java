@@ -10,7 +10,7 @@ import tlc2.output.MP;
 /**
  * @see TableauNodePtrTable
  */
-public class NodePtrTable {
+public class NodePtrTable implements INodePtrTable {
 
 	private int count;
 	private int length;
@@ -57,7 +57,7 @@ public class NodePtrTable {
 	}
 
 	/* Return k's location if the table contains k. Otherwise, return -1. */
-	public final int getLoc(long k) {
+	public final long getLoc(long k) {
 		if (count >= thresh) {
 			this.grow();
 		}
@@ -90,17 +90,26 @@ public class NodePtrTable {
 		}
 	}
 
-	public final long getByLoc(int loc) {
-		return this.elems[loc];
+	public final long getByLoc(long loc) {
+		return this.elems[(int) loc];
 	}
 
-	public final long getKeyByLoc(int loc) {
-		return this.keys[loc];
+	public final long getKeyByLoc(long loc) {
+		return this.keys[(int) loc];
 	}
 
-	public final void putByLoc(long k, long elem, int loc) {
-		this.keys[loc] = k;
-		this.elems[loc] = elem;
+	public final void putByLoc(long k, long elem, long loc) {
+		this.keys[(int) loc] = k;
+		this.elems[(int) loc] = elem;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#ensureCapacity(long)
+	 */
+	public final void ensureCapacity(final long expected) {
+		if (expected >= this.thresh) {
+			grow((int) Math.min(Integer.MAX_VALUE - 8, (long) (expected / 0.75) + 1));
+		}
 	}
 
 	public void resetElems() {
@@ -165,11 +174,18 @@ public class NodePtrTable {
 		}
 	}
 
-	public final int size() {
+	public final long size() {
 		return this.count;
 	}
 
-	public final int getSize() {
+	public final long getSize() {
 		return this.length;
 	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#free()
+	 */
+	public void free() {
+		// Left to the garbage collector.
+	}
 }
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.liveness;
+
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.fp.LongArray;
+
+/**
+ * An {@link INodePtrTable} that - unlike {@link NodePtrTable} - keeps its
+ * buckets in a {@link LongArray} outside of the Java heap. Its capacity is thus
+ * neither bounded by Integer.MAX_VALUE nor does a large table add to the
+ * garbage collector's work.
+ * <p>
+ * A bucket takes two consecutive positions in the array, the key (fingerprint)
+ * followed by the elem. Like in {@link NodePtrTable}, an elem of -1 marks an
+ * empty bucket and collisions are resolved by linear probing.
+ * <p>
+ * The memory has to be released explicitly with {@link #free()}.
+ */
+public class OffHeapNodePtrTable implements INodePtrTable {
+
+	private long count;
+	private long length;
+	private long thresh;
+	private LongArray buckets;
+
+	public OffHeapNodePtrTable(final long size) {
+		this.count = 0L;
+		this.length = size;
+		this.thresh = (long) (size * 0.75);
+		this.buckets = allocate(size);
+	}
+
+	private static LongArray allocate(final long length) {
+		final LongArray array = new LongArray(length << 1);
+		// Every long of the memory reads as -1 after this.
+		array.setMemory((byte) -1);
+		return array;
+	}
+
+	private static long hash(final long k, final long length) {
+		return (k & 0x7FFFFFFFFFFFFFFFL) % length;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#put(long, long)
+	 */
+	public final void put(final long k, final long elem) {
+		if (this.count >= this.thresh) {
+			this.grow();
+		}
+		long loc = hash(k, this.length);
+		while (true) {
+			final long e = this.buckets.get((loc << 1) + 1);
+			if (e == -1) {
+				this.buckets.set(loc << 1, k);
+				this.buckets.set((loc << 1) + 1, elem);
+				this.count++;
+				return;
+			}
+			if (this.buckets.get(loc << 1) == k) {
+				this.buckets.set((loc << 1) + 1, elem);
+				return;
+			}
+			loc = (loc + 1) % this.length;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#getLoc(long)
+	 */
+	public final long getLoc(final long k) {
+		if (count >= thresh) {
+			this.grow();
+		}
+		long loc = hash(k, this.length);
+		while (true) {
+			if (this.buckets.get((loc << 1) + 1) == -1) {
+				return -1;
+			}
+			if (this.buckets.get(loc << 1) == k) {
+				return loc;
+			}
+			loc = (loc + 1) % this.length;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#get(long)
+	 */
+	public final long get(final long k) {
+		final long loc = getLoc(k);
+		if (loc == -1) {
+			return -1;
+		}
+		return this.buckets.get((loc << 1) + 1);
+	}
+
+	public final long getByLoc(final long loc) {
+		return this.buckets.get((loc << 1) + 1);
+	}
+
+	public final long getKeyByLoc(final long loc) {
+		return this.buckets.get(loc << 1);
+	}
+
+	public final void putByLoc(final long k, final long elem, final long loc) {
+		this.buckets.set(loc << 1, k);
+		this.buckets.set((loc << 1) + 1, elem);
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#ensureCapacity(long)
+	 */
+	public final void ensureCapacity(final long expected) {
+		if (expected >= this.thresh) {
+			grow((long) (expected / 0.75) + 1);
+		}
+	}
+
+	/* Double the table when the table is full by the threshhold. */
+	private final void grow() {
+		grow(2 * this.length + 1);
+	}
+
+	private final void grow(final long newLength) {
+		final LongArray newBuckets;
+		try {
+			newBuckets = allocate(newLength);
+		} catch (OutOfMemoryError t) {
+			// Unsafe#allocateMemory signals the lack of native memory with an
+			// OOM error. Like NodePtrTable, fall back to a smaller increment.
+			if (newLength <= this.length + 1) {
+				MP.printError(EC.SYSTEM_OUT_OF_MEMORY, t);
+				System.exit(1);
+			}
+			grow(newLength - ((newLength - this.length) >> 1));
+			return;
+		}
+		final LongArray oldBuckets = this.buckets;
+		for (long i = 0; i < this.length; i++) {
+			final long elem = oldBuckets.get((i << 1) + 1);
+			if (elem != -1) {
+				final long k = oldBuckets.get(i << 1);
+				long loc = hash(k, newLength);
+				while (newBuckets.get((loc << 1) + 1) != -1) {
+					loc = (loc + 1) % newLength;
+				}
+				newBuckets.set(loc << 1, k);
+				newBuckets.set((loc << 1) + 1, elem);
+			}
+		}
+		oldBuckets.free();
+		this.buckets = newBuckets;
+		this.length = newLength;
+		this.thresh = (long) (newLength * 0.75);
+	}
+
+	public final long size() {
+		return this.count;
+	}
+
+	public final long getSize() {
+		return this.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.INodePtrTable#free()
+	 */
+	public void free() {
+		if (this.buckets != null) {
+			this.buckets.free();
+			this.buckets = null;
+		}
+	}
+}
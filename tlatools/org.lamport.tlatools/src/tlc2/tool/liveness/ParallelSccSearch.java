@@ -0,0 +1,891 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.liveness;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tlc2.util.BufferedRandomAccessFile;
+
+/**
+ * {@link ParallelSccSearch} decomposes a <em>single</em> {@link AbstractDiskGraph}
+ * into its strongly connected components (SCC) using multiple cores and checks
+ * each SCC against one {@link PossibleErrorModel}. It is the multi-core
+ * counterpart of the sequential (Tarjan) search in LiveWorker#checkSccs. The
+ * latter can only parallelize across {@link OrderOfSolution}s which leaves all
+ * but one core idle for the common case of a single temporal property.
+ * <p>
+ * The search runs in three phases:
+ * <ol>
+ * <li>The nodes of the disk graph are read into a compact, int-indexed in-memory
+ * graph (compressed sparse rows). Only arcs that satisfy the PEM's EAAction are
+ * kept, exactly like Tarjan's DFS only follows such arcs. The (expensive) disk
+ * reads are partitioned across threads, each with its own
+ * {@link BufferedRandomAccessFile}. The check results that
+ * LiveWorker#checkComponent later needs (AEState, AEAction and promises) are
+ * condensed into one bit mask per node and arc respectively.</li>
+ * <li>The in-memory graph is decomposed with the FW-BW-Trim algorithm (see
+ * Fleischer, Hendrickson, Pinar "On identifying strongly connected components
+ * in parallel" and McLendon et al. "Finding strongly connected components in
+ * distributed graphs"). Trimming removes trivial SCCs, the forward and backward
+ * search from a pivot peel off the pivot's SCC, and the three remaining sets
+ * are independent sub-problems that are decomposed concurrently by a
+ * {@link ForkJoinPool}. Small sub-problems are decomposed with an iterative
+ * Tarjan.</li>
+ * <li>Each non-trivial SCC is checked by or'ing the bit masks of its nodes and
+ * internal arcs. This is equivalent to LiveWorker#checkComponent.</li>
+ * </ol>
+ * If a violating SCC has been found, it is returned in the format expected by
+ * LiveWorker#printTrace such that the error trace is constructed by the same
+ * code that constructs it for the sequential search.
+ * <p>
+ * The bit masks limit the number of AEState, AEAction and promises to 64
+ * each (see {@link #isApplicable(OrderOfSolution, PossibleErrorModel)}). The
+ * compact graph limits the number of nodes and arcs to 2^31.
+ */
+final class ParallelSccSearch {
+
+	/**
+	 * Sub-problems with fewer nodes are decomposed with a sequential Tarjan
+	 * rather than being split further by FW-BW.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = Integer
+			.getInteger(ParallelSccSearch.class.getName() + ".sequentialThreshold", 1 << 14);
+
+	/**
+	 * A breadth-first frontier with more nodes is expanded concurrently.
+	 */
+	private static final int PARALLEL_THRESHOLD = Integer
+			.getInteger(ParallelSccSearch.class.getName() + ".parallelThreshold", 1 << 13);
+
+	private static final int EMPTY = -1;
+
+	/**
+	 * The label of nodes removed by trimming (trivial SCCs).
+	 */
+	private static final int TRIMMED = -1;
+
+	private static final byte FWD = 1;
+	private static final byte BWD = 2;
+	private static final byte QUEUED = 4;
+	private static final byte ON_STACK = 8;
+
+	/**
+	 * @return true iff the checks of the given {@link PossibleErrorModel} fit
+	 *         into the bit masks used by {@link ParallelSccSearch}.
+	 */
+	static boolean isApplicable(final OrderOfSolution oos, final PossibleErrorModel pem) {
+		return pem.AEState.length <= Long.SIZE && pem.AEAction.length <= Long.SIZE
+				&& oos.getPromises().length <= Long.SIZE;
+	}
+
+	private final AbstractDiskGraph dg;
+	private final OrderOfSolution oos;
+	private final PossibleErrorModel pem;
+	private final int numThreads;
+	private final long checkedPrefix;
+
+	private final long aeStateGoal;
+	private final long aeActionGoal;
+	private final long promiseGoal;
+
+	/*
+	 * The compact in-memory graph. A node is identified by its id in [0, n).
+	 */
+	private int n;
+	private long[] fps;
+	private int[] tidxs;
+	private long[] ptrs;
+	// Open addressing hash table mapping <<fp, tidx>> to the node's id.
+	private int[] table;
+	private int mask;
+
+	private int[] outOffsets;
+	private int[] outTargets;
+	private long[] outActions;
+	private int[] inOffsets;
+	private int[] inSources;
+
+	private long[] stateMasks;
+	// Indexed by tableau idx.
+	private long[] promiseMasks;
+
+	/*
+	 * The state of the decomposition. Nodes with identical label belong to the
+	 * same sub-problem (or SCC once the SCC has been found). Sub-problems and
+	 * SCCs have pairwise disjoint labels which is why concurrent decompositions
+	 * of two sub-problems never interfere with each other.
+	 */
+	private int[] labels;
+	private byte[] marks;
+	// Scratch space used by trimming (degrees) and Tarjan (index & lowlink).
+	private int[] aux1;
+	private int[] aux2;
+	private final AtomicInteger nextLabel = new AtomicInteger(1);
+	// The violating SCC (if any) and the smallest id of its nodes.
+	private int[] violation;
+	private volatile int violationMin = Integer.MAX_VALUE;
+
+	ParallelSccSearch(final AbstractDiskGraph dg, final OrderOfSolution oos, final PossibleErrorModel pem,
+			final int numThreads) {
+		this(dg, oos, pem, numThreads, 0L);
+	}
+
+	/**
+	 * @param checkedPrefix
+	 *            SCCs whose nodes all have file pointers below checkedPrefix
+	 *            have been checked by a previous (incremental) check and are
+	 *            skipped (see LiveCheck#INCREMENTAL).
+	 */
+	ParallelSccSearch(final AbstractDiskGraph dg, final OrderOfSolution oos, final PossibleErrorModel pem,
+			final int numThreads, final long checkedPrefix) {
+		assert isApplicable(oos, pem);
+		this.checkedPrefix = checkedPrefix;
+		this.dg = dg;
+		this.oos = oos;
+		this.pem = pem;
+		this.numThreads = Math.max(1, numThreads);
+		this.aeStateGoal = goal(pem.AEState.length);
+		this.aeActionGoal = goal(pem.AEAction.length);
+		this.promiseGoal = goal(oos.getPromises().length);
+	}
+
+	private static long goal(final int len) {
+		return len == Long.SIZE ? -1L : (1L << len) - 1L;
+	}
+
+	/**
+	 * @return The nodes of an SCC that violates the {@link PossibleErrorModel}
+	 *         or null if no SCC violates it. If multiple SCCs violate it, the
+	 *         one returned is independent of the number of threads.
+	 */
+	int[] search() throws IOException, InterruptedException, ExecutionException {
+		final ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			readNodes();
+			if (n == 0) {
+				return null;
+			}
+			readArcs(pool);
+
+			labels = new int[n]; // All nodes start in the sub-problem labeled 0.
+			marks = new byte[n];
+			aux1 = new int[n];
+			aux2 = new int[n];
+			final int[] members = new int[n];
+			for (int i = 0; i < n; i++) {
+				members[i] = i;
+			}
+			pool.invoke(new Decomposition(0, members));
+			synchronized (this) {
+				return violation;
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/* Accessors to translate node ids back into liveness graph nodes. */
+
+	int size() {
+		return n;
+	}
+
+	long getStateFP(final int id) {
+		return fps[id];
+	}
+
+	int getTidx(final int id) {
+		return tidxs[id];
+	}
+
+	/**
+	 * @return The given component as the {@link TableauNodePtrTable} expected
+	 *         by LiveWorker#printTrace.
+	 */
+	TableauNodePtrTable toNodePtrTable(final int[] scc) {
+		final TableauNodePtrTable com = new TableauNodePtrTable(128);
+		for (int id : scc) {
+			com.put(fps[id], tidxs[id], ptrs[id]);
+		}
+		return com;
+	}
+
+	/* Phase 1: Read the disk graph. */
+
+	/**
+	 * Assigns an id to each node by reading the (smaller) ptrs file front to
+	 * end. The ptrs file is in the same order as the nodes file which is why
+	 * the ids are in (almost) ascending order of the nodes' file pointers.
+	 * Only done nodes are in the ptrs file.
+	 */
+	private void readNodes() throws IOException {
+		final BufferedRandomAccessFile nodePtrRAF = dg.nodePtrRAF;
+		final long pos = nodePtrRAF.getFilePointer();
+		final long len = nodePtrRAF.length();
+
+		// A record is at least <<long, int, int>>.
+		int capacity = (int) Math.min(Math.max(16L, len / 16L), Integer.MAX_VALUE - 8);
+		fps = new long[capacity];
+		tidxs = new int[capacity];
+		ptrs = new long[capacity];
+		allocateTable(capacity);
+
+		nodePtrRAF.seek(0);
+		while (nodePtrRAF.getFilePointer() < len) {
+			final long fp = nodePtrRAF.readLong();
+			final int tidx = nodePtrRAF.readInt();
+			final long loc = nodePtrRAF.readLongNat();
+
+			int slot = hash(fp, tidx) & mask;
+			int id;
+			while ((id = table[slot]) != EMPTY) {
+				if (fps[id] == fp && tidxs[id] == tidx) {
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+			if (id == EMPTY) {
+				// A node never seen before.
+				if (n == capacity) {
+					capacity = (int) Math.min(2L * capacity, Integer.MAX_VALUE - 8);
+					if (n == capacity) {
+						throw new OutOfMemoryError("Liveness graph exceeds " + n + " nodes.");
+					}
+					fps = Arrays.copyOf(fps, capacity);
+					tidxs = Arrays.copyOf(tidxs, capacity);
+					ptrs = Arrays.copyOf(ptrs, capacity);
+					allocateTable(capacity);
+					for (int i = 0; i < n; i++) {
+						insert(i);
+					}
+					// The table has been re-allocated; slot is stale.
+					id = n++;
+					fps[id] = fp;
+					tidxs[id] = tidx;
+					insert(id);
+				} else {
+					id = n++;
+					fps[id] = fp;
+					tidxs[id] = tidx;
+					table[slot] = id;
+				}
+			}
+			// A node is re-written if it gains additional successors (simulation),
+			// the last record in the file is the valid one (see makeNodePtrTbl).
+			ptrs[id] = loc;
+		}
+		nodePtrRAF.seek(pos);
+	}
+
+	private void allocateTable(final int capacity) {
+		// Load factor of at most 0.5.
+		final int size = Integer.highestOneBit(Math.max(capacity, 8)) << 2;
+		table = new int[size];
+		Arrays.fill(table, EMPTY);
+		mask = size - 1;
+	}
+
+	private void insert(final int id) {
+		int slot = hash(fps[id], tidxs[id]) & mask;
+		while (table[slot] != EMPTY) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = id;
+	}
+
+	private static int hash(final long fp, final int tidx) {
+		final long h = (fp ^ (tidx * 0x9E3779B97F4A7C15L)) * 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @return The id of the node <<fp, tidx>> or -1 if the node is not (done) in
+	 *         the liveness graph.
+	 */
+	private int getId(final long fp, final int tidx) {
+		int slot = hash(fp, tidx) & mask;
+		int id;
+		while ((id = table[slot]) != EMPTY) {
+			if (fps[id] == fp && tidxs[id] == tidx) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * Reads the successors of all nodes concurrently. Each task reads a range of
+	 * ids (thus approximately sequentially) from its own file handle.
+	 */
+	private void readArcs(final ForkJoinPool pool) throws IOException, InterruptedException, ExecutionException {
+		promiseMasks = computePromiseMasks();
+		stateMasks = new long[n];
+
+		final int chunks = Math.max(1, Math.min(numThreads * 4, n / 1024));
+		final List<ArcReader> readers = new ArrayList<ArcReader>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			readers.add(new ArcReader((int) ((long) n * i / chunks), (int) ((long) n * (i + 1) / chunks)));
+		}
+		try {
+			for (Future<Void> future : pool.invokeAll(readers)) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+
+		// Concatenate the arcs of all readers into compressed sparse rows.
+		long arcs = 0L;
+		for (ArcReader reader : readers) {
+			arcs += reader.size;
+		}
+		if (arcs > Integer.MAX_VALUE - 8) {
+			throw new OutOfMemoryError("Liveness graph exceeds " + (Integer.MAX_VALUE - 8) + " arcs.");
+		}
+		final int m = (int) arcs;
+		outOffsets = new int[n + 1];
+		outTargets = new int[m];
+		outActions = pem.AEAction.length > 0 ? new long[m] : null;
+		int offset = 0;
+		for (ArcReader reader : readers) {
+			for (int i = 0; i < reader.degrees.length; i++) {
+				outOffsets[reader.from + i] = offset;
+				offset += reader.degrees[i];
+			}
+			System.arraycopy(reader.targets, 0, outTargets, outOffsets[reader.from], reader.size);
+			if (outActions != null) {
+				System.arraycopy(reader.actions, 0, outActions, outOffsets[reader.from], reader.size);
+			}
+		}
+		outOffsets[n] = offset;
+		readers.clear();
+
+		// Transpose for the backward search and trimming.
+		inOffsets = new int[n + 1];
+		for (int i = 0; i < m; i++) {
+			inOffsets[outTargets[i] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			inOffsets[i + 1] += inOffsets[i];
+		}
+		inSources = new int[m];
+		final int[] cursor = Arrays.copyOf(inOffsets, n);
+		for (int v = 0; v < n; v++) {
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				inSources[cursor[outTargets[i]]++] = v;
+			}
+		}
+	}
+
+	private long[] computePromiseMasks() {
+		final LNEven[] promises = oos.getPromises();
+		if (promises.length == 0 || !oos.hasTableau()) {
+			return new long[0];
+		}
+		final TBGraph tableau = oos.getTableau();
+		final long[] res = new long[tableau.size()];
+		for (int t = 0; t < res.length; t++) {
+			final TBPar par = tableau.getNode(t).getPar();
+			for (int i = 0; i < promises.length; i++) {
+				if (par.isFulfilling(promises[i])) {
+					res[t] |= 1L << i;
+				}
+			}
+		}
+		return res;
+	}
+
+	private long getPromiseMask(final int id) {
+		final int tidx = tidxs[id];
+		return tidx >= 0 && tidx < promiseMasks.length ? promiseMasks[tidx] : 0L;
+	}
+
+	private class ArcReader implements Callable<Void> {
+
+		private final int from;
+		private final int[] degrees;
+		private int[] targets = new int[1024];
+		private long[] actions;
+		private int size = 0;
+
+		public ArcReader(final int from, final int to) {
+			this.from = from;
+			this.degrees = new int[to - from];
+			this.actions = pem.AEAction.length > 0 ? new long[1024] : null;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		public Void call() throws IOException {
+			final int slen = oos.getCheckState().length;
+			final int alen = oos.getCheckAction().length;
+			final int[] eaaction = pem.EAAction;
+			final int[] aeState = pem.AEState;
+			final int[] aeAction = pem.AEAction;
+
+			final BufferedRandomAccessFile nodeRAF = dg.openNodesForReading();
+			try {
+				for (int i = 0; i < degrees.length; i++) {
+					final int id = from + i;
+					final GraphNode gnode = new GraphNode(fps[id], tidxs[id]);
+					nodeRAF.seek(ptrs[id]);
+					gnode.read(nodeRAF);
+
+					long stateMask = 0L;
+					for (int j = 0; j < aeState.length; j++) {
+						if (gnode.getCheckState(aeState[j])) {
+							stateMask |= 1L << j;
+						}
+					}
+					stateMasks[id] = stateMask;
+
+					final int succCnt = gnode.succSize();
+					for (int j = 0; j < succCnt; j++) {
+						// Same as Tarjan in LiveWorker#checkSccs, arcs that do not
+						// satisfy the EAAction or lead to undone nodes are ignored.
+						final int target = getId(gnode.getStateFP(j), gnode.getTidx(j));
+						if (target == EMPTY || !gnode.getCheckAction(slen, alen, j, eaaction)) {
+							continue;
+						}
+						if (size == targets.length) {
+							targets = Arrays.copyOf(targets, grow(size));
+							if (actions != null) {
+								actions = Arrays.copyOf(actions, targets.length);
+							}
+						}
+						targets[size] = target;
+						if (actions != null) {
+							long actionMask = 0L;
+							for (int k = 0; k < aeAction.length; k++) {
+								if (gnode.getCheckAction(slen, alen, j, aeAction[k])) {
+									actionMask |= 1L << k;
+								}
+							}
+							actions[size] = actionMask;
+						}
+						size++;
+						degrees[i]++;
+					}
+				}
+			} finally {
+				nodeRAF.close();
+			}
+			return null;
+		}
+
+		private int grow(final int size) {
+			if (size >= Integer.MAX_VALUE - 8) {
+				throw new OutOfMemoryError("Liveness graph exceeds " + size + " arcs.");
+			}
+			return (int) Math.min(2L * size, Integer.MAX_VALUE - 8);
+		}
+	}
+
+	/* Phase 2: FW-BW-Trim decomposition. */
+
+	@SuppressWarnings("serial")
+	private class Decomposition extends RecursiveAction {
+
+		private final int label;
+		private final int[] members;
+
+		public Decomposition(final int label, final int[] members) {
+			this.label = label;
+			this.members = members;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		protected void compute() {
+			if (min(members) > violationMin) {
+				// No SCC of this sub-problem can replace the violating SCC.
+				return;
+			}
+			final int[] remaining = trim(label, members);
+			if (remaining.length == 0) {
+				return;
+			} else if (remaining.length < SEQUENTIAL_THRESHOLD) {
+				tarjan(label, remaining);
+				return;
+			}
+
+			final int pivot = remaining[0];
+			reach(label, pivot, FWD, outOffsets, outTargets);
+			reach(label, pivot, BWD, inOffsets, inSources);
+
+			// Partition the sub-problem into the pivot's SCC (reachable forward
+			// and backward) and three independent sub-problems.
+			int sccCnt = 0, fwdCnt = 0, bwdCnt = 0;
+			for (int v : remaining) {
+				final int m = marks[v] & (FWD | BWD);
+				if (m == (FWD | BWD)) {
+					sccCnt++;
+				} else if (m == FWD) {
+					fwdCnt++;
+				} else if (m == BWD) {
+					bwdCnt++;
+				}
+			}
+			final int[] scc = new int[sccCnt];
+			final int[] fwd = new int[fwdCnt];
+			final int[] bwd = new int[bwdCnt];
+			final int[] rest = new int[remaining.length - sccCnt - fwdCnt - bwdCnt];
+			final int sccLabel = nextLabel.getAndIncrement();
+			final int fwdLabel = nextLabel.getAndIncrement();
+			final int bwdLabel = nextLabel.getAndIncrement();
+			final int restLabel = nextLabel.getAndIncrement();
+			sccCnt = fwdCnt = bwdCnt = 0;
+			int restCnt = 0;
+			for (int v : remaining) {
+				final int m = marks[v] & (FWD | BWD);
+				marks[v] = 0;
+				if (m == (FWD | BWD)) {
+					labels[v] = sccLabel;
+					scc[sccCnt++] = v;
+				} else if (m == FWD) {
+					labels[v] = fwdLabel;
+					fwd[fwdCnt++] = v;
+				} else if (m == BWD) {
+					labels[v] = bwdLabel;
+					bwd[bwdCnt++] = v;
+				} else {
+					labels[v] = restLabel;
+					rest[restCnt++] = v;
+				}
+			}
+			check(sccLabel, scc);
+
+			final List<Decomposition> subs = new ArrayList<Decomposition>(3);
+			if (fwd.length > 0) {
+				subs.add(new Decomposition(fwdLabel, fwd));
+			}
+			if (bwd.length > 0) {
+				subs.add(new Decomposition(bwdLabel, bwd));
+			}
+			if (rest.length > 0) {
+				subs.add(new Decomposition(restLabel, rest));
+			}
+			invokeAll(subs);
+		}
+	}
+
+	/**
+	 * Removes all nodes of the sub-problem that have no predecessor or no
+	 * successor inside the sub-problem. Such nodes are trivial SCCs (a self-loop
+	 * counts as both predecessor and successor).
+	 *
+	 * @return The remaining nodes of the sub-problem.
+	 */
+	private int[] trim(final int label, final int[] members) {
+		final int[] in = aux1;
+		final int[] out = aux2;
+		final int[] queue = new int[members.length];
+		int head = 0, tail = 0;
+		for (int v : members) {
+			in[v] = degree(label, v, inOffsets, inSources);
+			out[v] = degree(label, v, outOffsets, outTargets);
+			if (in[v] == 0 || out[v] == 0) {
+				marks[v] |= QUEUED;
+				queue[tail++] = v;
+			}
+		}
+		while (head < tail) {
+			final int v = queue[head++];
+			labels[v] = TRIMMED;
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				final int w = outTargets[i];
+				if (labels[w] == label && --in[w] == 0 && (marks[w] & QUEUED) == 0) {
+					marks[w] |= QUEUED;
+					queue[tail++] = w;
+				}
+			}
+			for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+				final int w = inSources[i];
+				if (labels[w] == label && --out[w] == 0 && (marks[w] & QUEUED) == 0) {
+					marks[w] |= QUEUED;
+					queue[tail++] = w;
+				}
+			}
+		}
+		if (tail == 0) {
+			return members;
+		}
+		final int[] remaining = new int[members.length - tail];
+		int cnt = 0;
+		for (int v : members) {
+			marks[v] = 0;
+			if (labels[v] == label) {
+				remaining[cnt++] = v;
+			}
+		}
+		return remaining;
+	}
+
+	private int degree(final int label, final int v, final int[] offsets, final int[] adjacent) {
+		int degree = 0;
+		for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+			if (labels[adjacent[i]] == label) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	/**
+	 * Marks all nodes of the sub-problem reachable from pivot. Large frontiers
+	 * are expanded concurrently.
+	 */
+	private void reach(final int label, final int pivot, final byte mark, final int[] offsets, final int[] adjacent) {
+		marks[pivot] |= mark;
+		int[] frontier = new int[] { pivot };
+		while (frontier.length > 0) {
+			if (frontier.length < PARALLEL_THRESHOLD) {
+				frontier = new Expansion(label, mark, offsets, adjacent, frontier, 0, frontier.length).compute();
+			} else {
+				frontier = new Expansion(label, mark, offsets, adjacent, frontier, 0, frontier.length).invoke();
+			}
+		}
+	}
+
+	/**
+	 * Expands a range of a breadth-first frontier. Concurrent expansions may
+	 * race to mark the same node, in which case the node appears twice in the
+	 * next frontier. This is benign; the duplicate is expanded twice.
+	 */
+	@SuppressWarnings("serial")
+	private class Expansion extends RecursiveTask<int[]> {
+
+		private final int label;
+		private final byte mark;
+		private final int[] offsets;
+		private final int[] adjacent;
+		private final int[] frontier;
+		private final int from;
+		private final int to;
+
+		public Expansion(final int label, final byte mark, final int[] offsets, final int[] adjacent,
+				final int[] frontier, final int from, final int to) {
+			this.label = label;
+			this.mark = mark;
+			this.offsets = offsets;
+			this.adjacent = adjacent;
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		protected int[] compute() {
+			if (to - from > PARALLEL_THRESHOLD) {
+				final int mid = (from + to) >>> 1;
+				final Expansion left = new Expansion(label, mark, offsets, adjacent, frontier, from, mid);
+				left.fork();
+				final int[] right = new Expansion(label, mark, offsets, adjacent, frontier, mid, to).compute();
+				final int[] l = left.join();
+				final int[] res = Arrays.copyOf(l, l.length + right.length);
+				System.arraycopy(right, 0, res, l.length, right.length);
+				return res;
+			}
+			int[] next = new int[16];
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				final int v = frontier[i];
+				for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+					final int w = adjacent[j];
+					if (labels[w] == label && (marks[w] & mark) == 0) {
+						marks[w] |= mark;
+						if (size == next.length) {
+							next = Arrays.copyOf(next, size * 2);
+						}
+						next[size++] = w;
+					}
+				}
+			}
+			return Arrays.copyOf(next, size);
+		}
+	}
+
+	/**
+	 * An iterative Tarjan restricted to the nodes of the given sub-problem.
+	 */
+	private void tarjan(final int label, final int[] members) {
+		final int[] index = aux1;
+		final int[] lowLink = aux2;
+		for (int v : members) {
+			index[v] = 0;
+		}
+		final int[] callStack = new int[members.length];
+		final int[] cursor = new int[members.length];
+		final int[] sccStack = new int[members.length];
+		int counter = 0;
+
+		for (int root : members) {
+			if (index[root] != 0 || labels[root] != label) {
+				continue;
+			}
+			int csp = 0, ssp = 0;
+			index[root] = lowLink[root] = ++counter;
+			callStack[csp] = root;
+			cursor[csp++] = outOffsets[root];
+			sccStack[ssp++] = root;
+			marks[root] |= ON_STACK;
+
+			while (csp > 0) {
+				final int v = callStack[csp - 1];
+				if (cursor[csp - 1] < outOffsets[v + 1]) {
+					final int w = outTargets[cursor[csp - 1]++];
+					if (labels[w] != label) {
+						continue;
+					}
+					if (index[w] == 0) {
+						index[w] = lowLink[w] = ++counter;
+						callStack[csp] = w;
+						cursor[csp++] = outOffsets[w];
+						sccStack[ssp++] = w;
+						marks[w] |= ON_STACK;
+					} else if ((marks[w] & ON_STACK) != 0) {
+						lowLink[v] = Math.min(lowLink[v], index[w]);
+					}
+					continue;
+				}
+				csp--;
+				if (lowLink[v] == index[v]) {
+					int size = 0;
+					while (sccStack[ssp - 1 - size] != v) {
+						size++;
+					}
+					size++;
+					final int[] scc = Arrays.copyOfRange(sccStack, ssp - size, ssp);
+					ssp -= size;
+					final int sccLabel = nextLabel.getAndIncrement();
+					for (int w : scc) {
+						marks[w] = 0;
+						labels[w] = sccLabel;
+					}
+					check(sccLabel, scc);
+				}
+				if (csp > 0) {
+					final int u = callStack[csp - 1];
+					lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+				}
+			}
+		}
+	}
+
+	/* Phase 3: Check the SCCs. */
+
+	/**
+	 * Equivalent to LiveWorker#checkComponent: The SCC violates the PEM iff its
+	 * nodes and internal arcs satisfy all AEState, AEAction and promises. The
+	 * arcs have already been restricted to the EAAction while reading the graph.
+	 */
+	private void check(final int label, final int[] scc) {
+		if (scc.length == 1 && !hasSelfLoop(scc[0])) {
+			// Trivial SCC (no stuttering).
+			return;
+		}
+		if (checkedPrefix > 0L && isChecked(scc)) {
+			return;
+		}
+		synchronized (LiveWorker.STATS) {
+			LiveWorker.STATS.addSample(scc.length);
+		}
+
+		long aeState = 0L, aeAction = 0L, promise = 0L;
+		for (int v : scc) {
+			aeState |= stateMasks[v];
+			promise |= getPromiseMask(v);
+			if (outActions != null) {
+				for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+					if (labels[outTargets[i]] == label) {
+						aeAction |= outActions[i];
+					}
+				}
+			}
+		}
+		if (aeState == aeStateGoal && aeAction == aeActionGoal && promise == promiseGoal) {
+			setViolation(scc);
+		}
+	}
+
+	/**
+	 * The order in which the SCCs are found depends on thread scheduling. To
+	 * report the same counter-example for every run, prefer the SCC whose first
+	 * node has been added to the graph first. Nodes added early tend to be close
+	 * to the initial states, which keeps the error trace short.
+	 */
+	private synchronized void setViolation(final int[] scc) {
+		final int min = min(scc);
+		if (min < violationMin) {
+			violationMin = min;
+			violation = scc;
+		}
+	}
+
+	static int min(final int[] scc) {
+		int min = scc[0];
+		for (int v : scc) {
+			min = Math.min(min, v);
+		}
+		return min;
+	}
+
+	private boolean isChecked(final int[] scc) {
+		for (int v : scc) {
+			if (ptrs[v] >= checkedPrefix) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean hasSelfLoop(final int v) {
+		for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+			if (outTargets[i] == v) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
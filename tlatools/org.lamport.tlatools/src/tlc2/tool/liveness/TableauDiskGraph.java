@@ -181,6 +181,7 @@ public class TableauDiskGraph extends AbstractDiskGraph {
 		if (!isFilePointer(oldLink)) {
 			return oldLink;
 		}
+		logLink(state, tidx, oldLink);
 		TableauNodePtrTable.putElem(node, link, cloc);
 		return -1;
 	}
@@ -189,13 +190,24 @@ public class TableauDiskGraph extends AbstractDiskGraph {
 	 * @see tlc2.tool.liveness.AbstractDiskGraph#setMaxLink(long, int)
 	 */
 	public void setMaxLink(long state, int tidx) {
+		if (isLoggingLinks()) {
+			logLink(state, tidx, this.nodePtrTbl.get(state, tidx));
+		}
 		this.nodePtrTbl.put(state, tidx, MAX_LINK);
 	}
 
+	/* (non-Javadoc)
+	 * @see tlc2.tool.liveness.AbstractDiskGraph#putPtr(long, int, long)
+	 */
+	protected void putPtr(long fp, int tidx, long ptr) {
+		this.nodePtrTbl.put(fp, tidx, ptr);
+	}
+
 	public final void reset() throws IOException {
 		this.nodePtrRAF.setLength(0);
 		this.nodeRAF.setLength(0);
 		this.nodePtrTbl = new TableauNodePtrTable(255);
+		this.resetCheckedPrefix();
 	 }
 
 	/* (non-Javadoc)
@@ -13,8 +13,12 @@ import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.util.Arrays;
 
+import javax.management.NotCompliantMBeanException;
+
 import tlc2.output.EC;
 import tlc2.output.MP;
+import tlc2.tool.management.TLCStandardMBean;
+import tlc2.tool.queue.management.DiskByteArrayQueueMXWrapper;
 import tlc2.value.IValue;
 import tlc2.value.IValueInputStream;
 import tlc2.value.IValueOutputStream;
@@ -44,6 +48,10 @@ import util.WrongInvocationException;
 public class DiskByteArrayQueue extends ByteArrayQueue {
 	// TODO dynamic bufsize based on current VM parameters?
 	private final static int BufSize = Integer.getInteger(DiskStateQueue.class.getName() + ".BufSize", 8192);
+	/**
+	 * Delta-encode the pages written to disk (see {@link StatePageCodec}).
+	 */
+	private final static boolean Compress = Boolean.getBoolean(DiskByteArrayQueue.class.getName() + ".compress");
 
 	/*
 	 * Invariants: I1. Entries in deqBuf are in the indices: [deqIndex,
@@ -68,6 +76,8 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	 * files.
 	 */
 	protected final StatePoolCleaner cleaner;
+	private final StatePageCodec codec;
+	private TLCStandardMBean queueMXWrapper;
 	private int loPool, hiPool, lastLoPool, newLastLoPool;
 	private File loFile;
 	
@@ -87,16 +97,28 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		this.lastLoPool = 0;
 		this.filePrefix = diskdir + FileUtil.separator;
 		File rFile = new File(this.filePrefix + Integer.toString(0));
-		this.reader = new ByteArrayPoolReader(BufSize, rFile);
+		this.codec = new StatePageCodec(Compress);
+		this.reader = new ByteArrayPoolReader(BufSize, rFile, this.codec);
 		this.reader.setDaemon(true);
 		this.loFile = new File(this.filePrefix + Integer.toString(this.loPool));
 		this.reader.start();
-		this.writer = new ByteArrayPoolWriter(BufSize, this.reader);
+		this.writer = new ByteArrayPoolWriter(BufSize, this.reader, this.codec);
 		this.writer.setDaemon(true);
 		this.writer.start();
 		this.cleaner = new StatePoolCleaner();
 		this.cleaner.setDaemon(true);
 		this.cleaner.start();
+		
+		try {
+			this.queueMXWrapper = new DiskByteArrayQueueMXWrapper(this);
+		} catch (NotCompliantMBeanException e) {
+			// not expected to happen
+			// would cause JMX to be broken, hence just log and continue
+			MP.printWarning(EC.GENERAL,
+					"Failed to create MBean wrapper for DiskByteArrayQueue. No statistics/metrics will be avaiable.",
+					e);
+			this.queueMXWrapper = TLCStandardMBean.getNullTLCStandardMBean();
+		}
 	}
 
 	final void enqueueInner(byte[] state) {
@@ -310,12 +332,14 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	    private byte[][] buf;     
 	    private File poolFile;           // the file to be written
 	    private final ByteArrayPoolReader reader;  // the consumer if not null
+	    private final StatePageCodec codec;
 	    
-	  public ByteArrayPoolWriter(int bufSize, ByteArrayPoolReader reader) {
+	  public ByteArrayPoolWriter(int bufSize, ByteArrayPoolReader reader, StatePageCodec codec) {
 		  super("RawTLCStatePoolWriter");
 	    this.buf = new byte[bufSize][];
 	    this.poolFile = null;
 	    this.reader = reader;
+	    this.codec = codec;
 	  }
 	  
 	  /*
@@ -326,12 +350,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	  public final synchronized byte[][] doWork(byte[][] enqBuf, File file)
 	  throws IOException {
 	    if (this.poolFile != null) {
-	  	  final BufferedDataOutputStream vos = new BufferedDataOutputStream(this.poolFile);
-	  	  for (int i = 0; i < this.buf.length; i++) {
-	  		  vos.writeInt(this.buf[i].length);
-	  		  vos.write(this.buf[i]);
-	  	  }
-	      vos.close();
+	      this.codec.write(this.buf, this.poolFile);
 	    }
 	    byte[][] res = this.buf;
 	    this.buf = enqBuf;
@@ -396,12 +415,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		    	return;
 		    }
 		  }
-		  final BufferedDataOutputStream vos = new BufferedDataOutputStream(this.poolFile);
-		  for (int i = 0; i < this.buf.length; i++) {
-			  vos.writeInt(this.buf[i].length);
-			  vos.write(this.buf[i]);
-		  }
-		  vos.close();
+		  this.codec.write(this.buf, this.poolFile);
 		  this.poolFile = null;
 		  this.notify();
 		  if (this.reader != null) this.reader.wakeup();
@@ -418,14 +432,16 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	
 	private static final class ByteArrayPoolReader extends Thread {
 
-		  public ByteArrayPoolReader(int bufSize, File file) {
+		  public ByteArrayPoolReader(int bufSize, File file, StatePageCodec codec) {
 			  super("RawTLCStatePoolReader");
 		    this.buf = new byte[bufSize][];
 		    this.poolFile = file;
 		    this.isFull = false;
 		    this.canRead = false;
+		    this.codec = codec;
 		  }
 		  
+		  private final StatePageCodec codec;
 		  private byte[][] buf;
 		  private File poolFile;      // the file to be read
 		  private boolean isFull;     // true iff the buf is filled
@@ -462,24 +478,14 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		      return res;
 		    }
 		    else if (this.poolFile != null) {
-		  	  final BufferedDataInputStream vis = new BufferedDataInputStream(this.poolFile);
-		  	  for (int i = 0; i < deqBuf.length; i++) {
-		      	  deqBuf[i] = new byte[vis.readInt()];
-		      	  vis.read(deqBuf[i]);
-		  	  }
-		      vis.close();
+		      this.codec.read(deqBuf, this.poolFile);
 		      this.poolFile = file;     // <file, false>
 		      this.canRead = true;
 		      this.notify();
 		      return deqBuf;
 		    }
 		    else {
-		  	  final BufferedDataInputStream vis = new BufferedDataInputStream(this.poolFile);
-		  	  for (int i = 0; i < deqBuf.length; i++) {
-		  		  deqBuf[i] = new byte[vis.readInt()];
-		      	  vis.read(deqBuf[i]);
-		  	  }
-		      vis.close();              // <null, false>
+		      this.codec.read(deqBuf, this.poolFile); // <null, false>
 		      return deqBuf;
 		    }
 		  }
@@ -500,12 +506,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		    }
 		    else if (this.poolFile != null && this.canRead) {
 		      // this should seldom occur.
-		  	  final BufferedDataInputStream vis = new BufferedDataInputStream(this.poolFile);
-		  	  for (int i = 0; i < deqBuf.length; i++) {
-		  		  deqBuf[i] = new byte[vis.readInt()];
-		      	  vis.read(deqBuf[i]);
-		      }
-		      vis.close();
+		      this.codec.read(deqBuf, this.poolFile);
 		      // this.poolFile.delete();
 		      this.poolFile = file;    // <file, false>
 		      this.canRead = false;
@@ -565,12 +566,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 			    	return;
 			    }
 			  }
-			  final BufferedDataInputStream vis = new BufferedDataInputStream(this.poolFile);
-			  for (int i = 0; i < this.buf.length; i++) {
-		    	  this.buf[i] = new byte[vis.readInt()];
-		    	  vis.read(this.buf[i]);
-			  }
-			  vis.close();
+			  this.codec.read(this.buf, this.poolFile);
 			  this.poolFile = null;
 			  this.isFull = true;       // <null, true>
 			}
@@ -940,6 +936,49 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	@Override
 	public void delete() {
 		finishAll();
+		this.queueMXWrapper.unregister();
 		new File(this.filePrefix).delete();
 	}
+
+	/* Statistics (see StatePageCodec) */
+
+	public boolean isCompressing() {
+		return this.codec.isCompressing();
+	}
+
+	public long getPagesWritten() {
+		return this.codec.getPagesWritten();
+	}
+
+	public long getPagesRead() {
+		return this.codec.getPagesRead();
+	}
+
+	public long getUncompressedBytesWritten() {
+		return this.codec.getUncompressedBytesWritten();
+	}
+
+	public long getBytesWritten() {
+		return this.codec.getBytesWritten();
+	}
+
+	public double getCompressionRatio() {
+		return this.codec.getCompressionRatio();
+	}
+
+	public double getEncodeThroughput() {
+		return this.codec.getEncodeThroughput();
+	}
+
+	public double getDecodeThroughput() {
+		return this.codec.getDecodeThroughput();
+	}
+
+	public double getWriteThroughput() {
+		return this.codec.getWriteThroughput();
+	}
+
+	public double getReadThroughput() {
+		return this.codec.getReadThroughput();
+	}
 }
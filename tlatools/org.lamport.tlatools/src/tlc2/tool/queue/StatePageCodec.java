@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import util.BufferedDataInputStream;
+import util.BufferedDataOutputStream;
+
+/**
+ * Reads and writes the pages (swap files) of a {@link DiskByteArrayQueue}. A
+ * page is a sequence of serialized states and, by default, written as is: Each
+ * state is prefixed by its length.
+ * <p>
+ * If compression is enabled, each state is delta-encoded against the previous
+ * state of the same page: The encoding is a sequence of (match, literal) runs,
+ * where a match copies bytes from the same position of the previous state and
+ * the literals are the bytes that differ. Successor states usually differ from
+ * their predecessors in only a few variables, which is why this simple (and
+ * fast) encoding shrinks pages considerably. A compressed page starts with a
+ * negative marker (a state's length is never negative), thus pages are read
+ * correctly regardless of whether compression is enabled. This is why a
+ * checkpoint can be recovered with compression turned on or off.
+ * <p>
+ * Pages are encoded by the writer and decoded by the reader thread of the
+ * queue, i.e. the workers never pay for the (de-)compression.
+ */
+final class StatePageCodec {
+
+	private static final int COMPRESSED = -1;
+
+	/**
+	 * A literal run continues across matches shorter than this, because the
+	 * (match, literal) header of a new run would cost more than it saves.
+	 */
+	private static final int MIN_MATCH = 4;
+
+	private final boolean compress;
+
+	private final LongAdder pagesWritten = new LongAdder();
+	private final LongAdder rawBytesWritten = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder encodeNanos = new LongAdder();
+	private final LongAdder writeNanos = new LongAdder();
+
+	private final LongAdder pagesRead = new LongAdder();
+	private final LongAdder rawBytesRead = new LongAdder();
+	private final LongAdder decodeNanos = new LongAdder();
+	private final LongAdder readNanos = new LongAdder();
+
+	StatePageCodec(final boolean compress) {
+		this.compress = compress;
+	}
+
+	boolean isCompressing() {
+		return compress;
+	}
+
+	void write(final byte[][] buf, final File poolFile) throws IOException {
+		final long start = System.nanoTime();
+		long raw = 0L;
+		final BufferedDataOutputStream vos = new BufferedDataOutputStream(poolFile);
+		if (compress) {
+			final Encoder enc = new Encoder();
+			byte[] prev = new byte[0];
+			for (int i = 0; i < buf.length; i++) {
+				enc.encode(prev, buf[i]);
+				prev = buf[i];
+				raw += 4 + buf[i].length;
+			}
+			final long encoded = System.nanoTime();
+			encodeNanos.add(encoded - start);
+			vos.writeInt(COMPRESSED);
+			vos.writeInt(enc.idx);
+			vos.write(enc.bytes, 0, enc.idx);
+			bytesWritten.add(8 + enc.idx);
+		} else {
+			for (int i = 0; i < buf.length; i++) {
+				vos.writeInt(buf[i].length);
+				vos.write(buf[i]);
+				raw += 4 + buf[i].length;
+			}
+			bytesWritten.add(raw);
+		}
+		vos.close();
+		writeNanos.add(System.nanoTime() - start);
+		rawBytesWritten.add(raw);
+		pagesWritten.increment();
+	}
+
+	void read(final byte[][] buf, final File poolFile) throws IOException {
+		final long start = System.nanoTime();
+		long raw = 0L;
+		final BufferedDataInputStream vis = new BufferedDataInputStream(poolFile);
+		final int first = vis.readInt();
+		if (first == COMPRESSED) {
+			final byte[] bytes = new byte[vis.readInt()];
+			vis.readFully(bytes);
+			vis.close();
+			final long decoded = System.nanoTime();
+			final Decoder dec = new Decoder(bytes);
+			byte[] prev = new byte[0];
+			for (int i = 0; i < buf.length; i++) {
+				buf[i] = dec.decode(prev);
+				prev = buf[i];
+				raw += 4 + buf[i].length;
+			}
+			decodeNanos.add(System.nanoTime() - decoded);
+		} else {
+			for (int i = 0; i < buf.length; i++) {
+				buf[i] = new byte[i == 0 ? first : vis.readInt()];
+				vis.read(buf[i]);
+				raw += 4 + buf[i].length;
+			}
+			vis.close();
+		}
+		readNanos.add(System.nanoTime() - start);
+		rawBytesRead.add(raw);
+		pagesRead.increment();
+	}
+
+	/* Statistics */
+
+	long getPagesWritten() {
+		return pagesWritten.sum();
+	}
+
+	long getPagesRead() {
+		return pagesRead.sum();
+	}
+
+	long getUncompressedBytesWritten() {
+		return rawBytesWritten.sum();
+	}
+
+	long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * @return The ratio of uncompressed to written bytes (1 without compression).
+	 */
+	double getCompressionRatio() {
+		final long written = bytesWritten.sum();
+		return written == 0L ? 1d : rawBytesWritten.sum() / (double) written;
+	}
+
+	/**
+	 * @return Uncompressed megabytes per second that have been encoded.
+	 */
+	double getEncodeThroughput() {
+		return throughput(rawBytesWritten.sum(), encodeNanos.sum());
+	}
+
+	/**
+	 * @return Uncompressed megabytes per second that have been decoded.
+	 */
+	double getDecodeThroughput() {
+		return throughput(rawBytesRead.sum(), decodeNanos.sum());
+	}
+
+	/**
+	 * @return Uncompressed megabytes per second that have been written to disk
+	 *         (including the time to encode).
+	 */
+	double getWriteThroughput() {
+		return throughput(rawBytesWritten.sum(), writeNanos.sum());
+	}
+
+	/**
+	 * @return Uncompressed megabytes per second that have been read from disk
+	 *         (including the time to decode).
+	 */
+	double getReadThroughput() {
+		return throughput(rawBytesRead.sum(), readNanos.sum());
+	}
+
+	private static double throughput(final long bytes, final long nanos) {
+		if (nanos == 0L) {
+			return 0d;
+		}
+		return (bytes / (1024d * 1024d)) / (nanos / 1_000_000_000d);
+	}
+
+	static final class Encoder {
+
+		private byte[] bytes = new byte[1024];
+
+		private int idx = 0;
+
+		void encode(final byte[] prev, final byte[] state) {
+			ensureCapacity(idx + 5);
+			writeVarInt(state.length);
+			final int n = Math.min(prev.length, state.length);
+			int pos = 0;
+			while (pos < state.length) {
+				// At most two 5 byte headers plus the remaining bytes as literals.
+				ensureCapacity(idx + 2 * 5 + (state.length - pos));
+				// match run
+				final int m = pos;
+				while (pos < n && prev[pos] == state[pos]) {
+					pos++;
+				}
+				writeVarInt(pos - m);
+				// literal run up to the next match of at least MIN_MATCH bytes.
+				final int l = pos;
+				while (pos < state.length && matchLength(prev, state, pos, n) < MIN_MATCH) {
+					pos++;
+				}
+				writeVarInt(pos - l);
+				System.arraycopy(state, l, bytes, idx, pos - l);
+				idx += pos - l;
+			}
+		}
+
+		private static int matchLength(final byte[] prev, final byte[] state, final int pos, final int n) {
+			int len = 0;
+			while (pos + len < n && len < MIN_MATCH && prev[pos + len] == state[pos + len]) {
+				len++;
+			}
+			return len;
+		}
+
+		private void writeVarInt(int i) {
+			while ((i & ~0x7F) != 0) {
+				bytes[idx++] = (byte) ((i & 0x7F) | 0x80);
+				i >>>= 7;
+			}
+			bytes[idx++] = (byte) i;
+		}
+
+		private void ensureCapacity(final int minCap) {
+			if (minCap > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, minCap));
+			}
+		}
+	}
+
+	static final class Decoder {
+
+		private final byte[] bytes;
+
+		private int idx = 0;
+
+		Decoder(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		byte[] decode(final byte[] prev) {
+			final byte[] state = new byte[readVarInt()];
+			int pos = 0;
+			while (pos < state.length) {
+				final int m = readVarInt();
+				System.arraycopy(prev, pos, state, pos, m);
+				pos += m;
+				final int l = readVarInt();
+				System.arraycopy(bytes, idx, state, pos, l);
+				idx += l;
+				pos += l;
+			}
+			return state;
+		}
+
+		private int readVarInt() {
+			int res = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[idx++];
+				res |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return res;
+		}
+	}
+}
@@ -0,0 +1,550 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.queue;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tlc2.TLCGlobals;
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.StateVec;
+import tlc2.tool.TLCState;
+
+/**
+ * A {@link IStateQueue} that - contrary to {@link StateQueue} - does not funnel
+ * every enqueue and dequeue through a single monitor. Each worker thread owns a
+ * (lock-free) local buffer into which it appends its successor states and from
+ * which it takes its next state. Only if its local buffer runs dry does a
+ * worker fall back to the (synchronized) shared queue and, if that is empty
+ * too, steal a batch of states from the local buffer of another worker. A local
+ * buffer that grows beyond {@link #LocalCapacity} spills its oldest half to the
+ * shared queue, which thus keeps the memory footprint bounded and lets the
+ * (disk-based) shared queue do what it does best.
+ * <p>
+ * The monitor of this instance is only acquired on the slow path, i.e. when a
+ * worker finds no state at all or when {@link #suspendAll()} has been called. It
+ * implements the same termination and suspension protocol as
+ * {@link StateQueue}: The last worker to find the queue empty terminates model
+ * checking, and {@link #suspendAll()} returns once all workers wait. Before a
+ * checkpoint is taken, all local buffers are drained into the shared queue,
+ * whose checkpoint format is left unchanged.
+ * <p>
+ * Each local buffer is FIFO, but a worker prefers its own states over older
+ * states in the shared queue. Thus, the exploration order is only approximately
+ * breadth-first, which is why error traces are not guaranteed to be shortest -
+ * not even with a single worker.
+ */
+public class WorkStealingStateQueue implements IStateQueue {
+
+	private static final int LocalCapacity = Integer
+			.getInteger(WorkStealingStateQueue.class.getName() + ".localCapacity", 8192);
+
+	/**
+	 * The maximum number of states a worker takes at once from the shared queue
+	 * or steals from another worker.
+	 */
+	private static final int BatchSize = Integer.getInteger(WorkStealingStateQueue.class.getName() + ".batchSize",
+			128);
+
+	/**
+	 * The shared (overflow) queue which is the only part of this queue that gets
+	 * checkpointed. It is exclusively accessed via its non-thread-safe
+	 * enqueue/dequeue methods while holding its monitor.
+	 */
+	private final IStateQueue shared;
+	/**
+	 * The size of {@link #shared} which is read without holding the monitor of
+	 * {@link #shared} to avoid acquiring it when the shared queue is empty.
+	 */
+	private volatile long sharedLen;
+
+	private final Local[] locals;
+	private final AtomicInteger numLocals = new AtomicInteger();
+	private final ThreadLocal<Local> local = ThreadLocal.withInitial(this::claim);
+
+	/**
+	 * The total number of states in the local buffers and the shared queue.
+	 */
+	private final AtomicLong len = new AtomicLong();
+
+	private volatile int numWaiting = 0; // the number of waiting threads
+	private volatile boolean finish = false; // terminate
+	private volatile boolean stop = false; // suspend all workers.
+	private final Object mu = new Object();
+
+	public WorkStealingStateQueue(final IStateQueue shared) {
+		this(shared, TLCGlobals.getNumWorkers());
+	}
+
+	public WorkStealingStateQueue(final IStateQueue shared, final int numLocals) {
+		this.shared = shared;
+		this.sharedLen = shared.size();
+		this.len.set(shared.size());
+		this.locals = new Local[numLocals];
+		for (int i = 0; i < locals.length; i++) {
+			this.locals[i] = new Local(i);
+		}
+	}
+
+	/**
+	 * @return The local buffer of the calling thread or null if all local buffers
+	 *         have already been claimed by other threads.
+	 */
+	private Local claim() {
+		final int idx = numLocals.getAndIncrement();
+		return idx < locals.length ? locals[idx] : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#enqueue(tlc2.tool.TLCState)
+	 */
+	public final void enqueue(final TLCState state) {
+		synchronized (this.shared) {
+			this.shared.enqueue(state);
+			this.sharedLen = this.shared.size();
+		}
+		this.len.incrementAndGet();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#dequeue()
+	 */
+	public final TLCState dequeue() {
+		final TLCState state = poll(this.local.get());
+		if (state != null) {
+			this.len.decrementAndGet();
+		}
+		return state;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#sEnqueue(tlc2.tool.TLCState)
+	 */
+	public final void sEnqueue(final TLCState state) {
+		final Local l = this.local.get();
+		if (l == null) {
+			enqueue(state);
+		} else {
+			l.offer(state);
+			this.len.incrementAndGet();
+			spillIfFull(l);
+		}
+		signal();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#sEnqueue(tlc2.tool.TLCState[])
+	 */
+	public final void sEnqueue(final TLCState[] states) {
+		final Local l = this.local.get();
+		if (l == null) {
+			synchronized (this.shared) {
+				for (int i = 0; i < states.length; i++) {
+					this.shared.enqueue(states[i]);
+				}
+				this.sharedLen = this.shared.size();
+			}
+		} else {
+			for (int i = 0; i < states.length; i++) {
+				l.offer(states[i]);
+			}
+		}
+		this.len.addAndGet(states.length);
+		if (l != null) {
+			spillIfFull(l);
+		}
+		signal();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#sEnqueue(tlc2.tool.StateVec)
+	 */
+	public final void sEnqueue(final StateVec stateVec) {
+		int cnt = 0;
+		for (int j = 0; j < stateVec.size(); j++) {
+			final TLCState state = stateVec.elementAt(j);
+			if (state != null) {
+				cnt++;
+			}
+		}
+		final TLCState[] states = new TLCState[cnt];
+		for (int j = 0, i = 0; j < stateVec.size(); j++) {
+			final TLCState state = stateVec.elementAt(j);
+			if (state != null) {
+				states[i++] = state;
+			}
+		}
+		sEnqueue(states);
+	}
+
+	private final void spillIfFull(final Local l) {
+		if (l.size.get() > LocalCapacity) {
+			// Move the oldest half to the shared queue.
+			synchronized (this.shared) {
+				for (int i = 0; i < LocalCapacity / 2; i++) {
+					final TLCState state = l.poll();
+					if (state == null) {
+						break;
+					}
+					this.shared.enqueue(state);
+				}
+				this.sharedLen = this.shared.size();
+			}
+		}
+	}
+
+	/**
+	 * Wake up waiting workers (if any). The volatile write to {@link #len} by the
+	 * caller and the volatile read of {@link #numWaiting} here, pair with the
+	 * write of numWaiting and the read of len in {@link #sDequeueSlow()} to not
+	 * lose a wakeup.
+	 */
+	private final void signal() {
+		if (this.numWaiting > 0 && !this.stop) {
+			synchronized (this) {
+				this.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return A state from (in this order) the given local buffer, the shared
+	 *         queue, or the local buffer of another worker or null if none has
+	 *         been found. The caller has to decrement {@link #len}.
+	 */
+	private final TLCState poll(final Local l) {
+		TLCState state;
+		if (l != null && (state = l.poll()) != null) {
+			return state;
+		}
+		if (this.sharedLen > 0) {
+			synchronized (this.shared) {
+				state = this.shared.dequeue();
+				if (state != null) {
+					// Take a batch to amortize the synchronization.
+					for (int i = 1; l != null && i < BatchSize; i++) {
+						final TLCState s = this.shared.dequeue();
+						if (s == null) {
+							break;
+						}
+						l.offer(s);
+					}
+					this.sharedLen = this.shared.size();
+					return state;
+				}
+			}
+		}
+		final int start = l == null ? 0 : l.id + 1;
+		for (int i = 0; i < this.locals.length; i++) {
+			final Local victim = this.locals[(start + i) % this.locals.length];
+			if (victim == l || (state = victim.poll()) == null) {
+				continue;
+			}
+			if (l != null) {
+				// Steal up to half of the victim's states.
+				final int n = Math.min(victim.size.get() / 2, BatchSize);
+				for (int j = 0; j < n; j++) {
+					final TLCState s = victim.poll();
+					if (s == null) {
+						break;
+					}
+					l.offer(s);
+				}
+			}
+			return state;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#sDequeue()
+	 */
+	public final TLCState sDequeue() {
+		if (!this.stop && !this.finish) {
+			final TLCState state = poll(this.local.get());
+			if (state != null) {
+				this.len.decrementAndGet();
+				return state;
+			}
+		}
+		return sDequeueSlow();
+	}
+
+	/**
+	 * @see StateQueue#isAvail()
+	 */
+	private final synchronized TLCState sDequeueSlow() {
+		final Local l = this.local.get();
+		while (!this.finish) {
+			if (!this.stop) {
+				final TLCState state = poll(l);
+				if (state != null) {
+					this.len.decrementAndGet();
+					return state;
+				}
+			}
+			this.numWaiting++;
+			// Re-check after announcing to wait, to not miss a state enqueued
+			// concurrently by a worker that has seen numWaiting == 0.
+			if (!this.stop && this.len.get() > 0) {
+				this.numWaiting--;
+				continue;
+			}
+			// The last worker accessing notices that all other workers are
+			// waiting. This indicates that all work is done.
+			if (this.numWaiting >= TLCGlobals.getNumWorkers()) {
+				if (this.len.get() < 1) {
+					this.numWaiting--;
+					return null;
+				}
+				synchronized (this.mu) {
+					this.mu.notify();
+				}
+			}
+			try {
+				this.wait();
+			} catch (Exception e) {
+				MP.printError(EC.GENERAL, "making a worker wait for a state from the queue", e);
+				System.exit(1);
+			}
+			this.numWaiting--;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#sDequeue(int)
+	 */
+	public final TLCState[] sDequeue(final int cnt) {
+		assert cnt > 0 : "Nonpositive number of states requested.";
+		final TLCState first = sDequeue();
+		if (first == null) {
+			return null;
+		}
+		final Local l = this.local.get();
+		final TLCState[] states = new TLCState[(int) Math.max(1, Math.min(cnt, this.len.get() + 1))];
+		states[0] = first;
+		int idx = 1;
+		for (; idx < states.length; idx++) {
+			final TLCState state = poll(l);
+			if (state == null) {
+				break;
+			}
+			this.len.decrementAndGet();
+			states[idx] = state;
+		}
+		if (idx == states.length) {
+			return states;
+		}
+		final TLCState[] res = new TLCState[idx];
+		System.arraycopy(states, 0, res, 0, idx);
+		return res;
+	}
+
+	/**
+	 * Contrary to {@link StateQueue#sPeek()}, this method does not block if the
+	 * queue is empty. It returns the state at the head of the shared queue or,
+	 * if the shared queue is empty, of the first non-empty local buffer.
+	 */
+	public final TLCState sPeek() {
+		synchronized (this.shared) {
+			if (!this.shared.isEmpty()) {
+				// Does not block because the shared queue is not empty.
+				return this.shared.sPeek();
+			}
+		}
+		for (Local l : this.locals) {
+			final TLCState state = l.states.peekFirst();
+			if (state != null) {
+				return state;
+			}
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#finishAll()
+	 */
+	public void finishAll() {
+		synchronized (this) {
+			this.finish = true;
+			this.notifyAll();
+		}
+		// See StateQueue#finishAll.
+		synchronized (this.mu) {
+			this.mu.notify();
+		}
+		this.shared.finishAll();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#suspendAll()
+	 */
+	public final boolean suspendAll() {
+		boolean needWait = false;
+		synchronized (this) {
+			if (this.finish) {
+				return false;
+			}
+			this.stop = true;
+			needWait = this.numWaiting < TLCGlobals.getNumWorkers();
+		}
+		// Wait for all worker threads to stop (see StateQueue#suspendAll for the
+		// finishAll & suspendAll race).
+		while (needWait) {
+			synchronized (this.mu) {
+				try {
+					if (this.finish) {
+						return false;
+					}
+					this.mu.wait();
+				} catch (Exception e) {
+					MP.printError(EC.GENERAL, "waiting for a worker to wake up", e);
+					System.exit(1);
+				}
+			}
+			synchronized (this) {
+				if (this.finish) {
+					return false;
+				}
+				needWait = this.numWaiting < TLCGlobals.getNumWorkers();
+			}
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#resumeAll()
+	 */
+	public final synchronized void resumeAll() {
+		this.stop = false;
+		this.notifyAll();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#resumeAllStuck()
+	 */
+	public void resumeAllStuck() {
+		if (this.stop) {
+			synchronized (this.mu) {
+				this.mu.notifyAll();
+			}
+		}
+		if (!this.stop && !isEmpty() && this.numWaiting > 0) {
+			synchronized (this) {
+				this.notifyAll();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#size()
+	 */
+	public final long size() {
+		return this.len.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#isEmpty()
+	 */
+	public final boolean isEmpty() {
+		return this.len.get() < 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#beginChkpt()
+	 */
+	public void beginChkpt() throws IOException {
+		// All workers are suspended, thus the local buffers do not change.
+		synchronized (this.shared) {
+			for (Local l : this.locals) {
+				TLCState state;
+				while ((state = l.poll()) != null) {
+					this.shared.enqueue(state);
+				}
+			}
+			this.sharedLen = this.shared.size();
+			this.shared.beginChkpt();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#commitChkpt()
+	 */
+	public void commitChkpt() throws IOException {
+		synchronized (this.shared) {
+			this.shared.commitChkpt();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#recover()
+	 */
+	public void recover() throws IOException {
+		synchronized (this.shared) {
+			this.shared.recover();
+			this.sharedLen = this.shared.size();
+			this.len.set(this.shared.size());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see tlc2.tool.queue.IStateQueue#delete()
+	 */
+	@Override
+	public void delete() throws IOException {
+		this.shared.delete();
+	}
+
+	private static final class Local {
+		private final ConcurrentLinkedDeque<TLCState> states = new ConcurrentLinkedDeque<>();
+		/**
+		 * Approximates states.size() which is not a constant-time operation.
+		 */
+		private final AtomicInteger size = new AtomicInteger();
+		private final int id;
+
+		Local(final int id) {
+			this.id = id;
+		}
+
+		void offer(final TLCState state) {
+			this.states.offerLast(state);
+			this.size.incrementAndGet();
+		}
+
+		TLCState poll() {
+			final TLCState state = this.states.pollFirst();
+			if (state != null) {
+				this.size.decrementAndGet();
+			}
+			return state;
+		}
+	}
+}
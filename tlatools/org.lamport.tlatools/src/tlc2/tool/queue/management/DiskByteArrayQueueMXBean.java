@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.queue.management;
+
+import tlc2.tool.queue.DiskByteArrayQueue;
+
+public interface DiskByteArrayQueueMXBean {
+
+	/**
+	 * @return The version of TLC.
+	 */
+	String getVersion();
+	
+	/**
+	 * @return The code revision corresponding to this version of TLC.
+	 */
+	String getRevision();
+
+	/**
+	 * @see DiskByteArrayQueue#isCompressing()
+	 */
+	boolean isCompressing();
+	/**
+	 * @see DiskByteArrayQueue#getPagesWritten()
+	 */
+	long getPagesWritten();
+	/**
+	 * @see DiskByteArrayQueue#getPagesRead()
+	 */
+	long getPagesRead();
+	/**
+	 * @see DiskByteArrayQueue#getUncompressedBytesWritten()
+	 */
+	long getUncompressedBytesWritten();
+	/**
+	 * @see DiskByteArrayQueue#getBytesWritten()
+	 */
+	long getBytesWritten();
+	/**
+	 * @see DiskByteArrayQueue#getCompressionRatio()
+	 */
+	double getCompressionRatio();
+	/**
+	 * @see DiskByteArrayQueue#getEncodeThroughput()
+	 */
+	double getEncodeThroughput();
+	/**
+	 * @see DiskByteArrayQueue#getDecodeThroughput()
+	 */
+	double getDecodeThroughput();
+	/**
+	 * @see DiskByteArrayQueue#getWriteThroughput()
+	 */
+	double getWriteThroughput();
+	/**
+	 * @see DiskByteArrayQueue#getReadThroughput()
+	 */
+	double getReadThroughput();
+}
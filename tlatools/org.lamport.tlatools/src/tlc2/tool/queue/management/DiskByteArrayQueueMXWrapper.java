@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.queue.management;
+
+import javax.management.NotCompliantMBeanException;
+
+import tlc2.tool.management.TLCStandardMBean;
+import tlc2.tool.queue.DiskByteArrayQueue;
+
+public class DiskByteArrayQueueMXWrapper extends TLCStandardMBean implements DiskByteArrayQueueMXBean {
+
+	private static int COUNT = 0;
+
+	private final DiskByteArrayQueue queue;
+
+	public DiskByteArrayQueueMXWrapper(final DiskByteArrayQueue queue) throws NotCompliantMBeanException {
+		super(DiskByteArrayQueueMXBean.class);
+		this.queue = queue;
+		// See DiskFPSetMXWrapper for why the COUNT suffix is part of the type.
+		registerMBean("tlc2.tool.queue:type=DiskByteArrayQueue" + COUNT++);
+	}
+
+	public boolean isCompressing() {
+		return queue.isCompressing();
+	}
+
+	public long getPagesWritten() {
+		return queue.getPagesWritten();
+	}
+
+	public long getPagesRead() {
+		return queue.getPagesRead();
+	}
+
+	public long getUncompressedBytesWritten() {
+		return queue.getUncompressedBytesWritten();
+	}
+
+	public long getBytesWritten() {
+		return queue.getBytesWritten();
+	}
+
+	public double getCompressionRatio() {
+		return queue.getCompressionRatio();
+	}
+
+	public double getEncodeThroughput() {
+		return queue.getEncodeThroughput();
+	}
+
+	public double getDecodeThroughput() {
+		return queue.getDecodeThroughput();
+	}
+
+	public double getWriteThroughput() {
+		return queue.getWriteThroughput();
+	}
+
+	public double getReadThroughput() {
+		return queue.getReadThroughput();
+	}
+}
@@ -18,6 +18,9 @@ package tlc2.util;
 import java.io.IOException;
 import java.io.Serializable;
 
+import tlc2.value.IValueInputStream;
+import tlc2.value.IValueOutputStream;
+
 public class BitVector implements Serializable {
 
   private static final long serialVersionUID = 901734230891583097L;
@@ -217,6 +220,24 @@ public class BitVector implements Serializable {
     }
   }
   
+  /** Write the bit vector to a stream. */
+  public void write(IValueOutputStream vos) throws IOException {
+    int len = (this.word == null) ? 0 : this.word.length;
+    vos.writeNat(len);
+    for (int i = 0; i < len; i++) {
+      vos.writeLong(this.word[i]);
+    }
+  }
+
+  /** Read a bit vector from a stream. */
+  public void read(IValueInputStream vis) throws IOException {
+    int len = vis.readNat();
+    this.word = new long[len];
+    for (int i = 0; i < len; i++) {
+      this.word[i] = vis.readLong();
+    }
+  }
+
   /** Grow this bit vector to contain at least <code>wd+1</code>
       words. */
   private void grow(int wd) {
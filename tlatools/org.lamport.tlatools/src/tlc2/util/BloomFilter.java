@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free Bloom filter of 64-bit fingerprints. Fingerprints are already
+ * uniformly distributed, which is why the k probe positions are derived from
+ * the fingerprint itself by double hashing.
+ * <p>
+ * A BloomFilter has false positives but no false negatives: put answers false
+ * for (rarely) a fingerprint that has not been inserted before, and contains
+ * answers true for (rarely) a fingerprint that has not been inserted.
+ */
+public final class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long mask;
+	private final int k;
+
+	/**
+	 * @param logBits log2 of the number of bits of this filter (at least 6, at most 37).
+	 * @param k       The number of bits set per fingerprint.
+	 */
+	public BloomFilter(final int logBits, final int k) {
+		if (logBits < 6 || logBits > 37 || k < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.bits = new AtomicLongArray(1 << (logBits - 6));
+		this.mask = (1L << logBits) - 1L;
+		this.k = k;
+	}
+
+	/**
+	 * @return true iff at least one bit of fp was not set before, i.e. fp has
+	 *         definitely not been inserted before.
+	 */
+	public boolean put(final long fp) {
+		boolean changed = false;
+		long h = fp;
+		final long step = step(fp);
+		for (int i = 0; i < k; i++, h += step) {
+			final int word = (int) ((h & mask) >>> 6);
+			final long bit = 1L << h; // Shift distance is the low six bits of h.
+			long cur;
+			while (((cur = bits.get(word)) & bit) == 0L) {
+				if (bits.compareAndSet(word, cur, cur | bit)) {
+					changed = true;
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return false iff fp has definitely not been inserted.
+	 */
+	public boolean contains(final long fp) {
+		long h = fp;
+		final long step = step(fp);
+		for (int i = 0; i < k; i++, h += step) {
+			if ((bits.get((int) ((h & mask) >>> 6)) & (1L << h)) == 0L) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long step(final long fp) {
+		// Odd, so that the probe positions of fp are pairwise distinct (mod 2^logBits).
+		return ((fp >>> 32) ^ (fp * 0x9E3779B97F4A7C15L)) | 1L;
+	}
+}
@@ -25,6 +25,15 @@ import tla2sany.semantic.SymbolNode;
 //
 // The contrived spec at the bottom exhibits this problem. Increasing the level,
 // the number of lookups go through the roof.
+//
+// Lookups of symbols that are not bound in the chain are the expensive ones,
+// because they walk the chain up to the Empty context (e.g. every reference to
+// a definition or a variable of the root module). Each symbol that is ever
+// bound in a Context is thus assigned a slot (see SymbolNode#assignContextSlot,
+// SpecProcessor assigns the slots of the spec's bound symbols upfront). A Context
+// summarizes the slots of all names in its chain in a bitmask that is the mask
+// of the next context plus the name's slot, which keeps creation constant. A
+// lookup walks the chain only if the slot of the searched symbol is in the mask.
 public final class Context {
 	/**
 	 * A link list of name and value pairs. When adding <name, value> to the
@@ -34,15 +43,20 @@ public final class Context {
 	private final SymbolNode name;
 	private final Object value;
 	private final Context next;
+	/**
+	 * The slots (modulo 64) of all names in this chain.
+	 */
+	private final long slots;
 
-	public final static Context Empty = new Context(null, null, null);
+	public final static Context Empty = new Context(null, null, null, 0L);
 	
-	private final static Context BaseBranch = new Context(null, null, Empty);
+	private final static Context BaseBranch = new Context(null, null, Empty, 0L);
 	
-	private Context(SymbolNode name, Object value, final Context next) {
+	private Context(SymbolNode name, Object value, final Context next, final long slots) {
 		this.name = name;
 		this.value = value;
 		this.next = next;
+		this.slots = slots;
 	}
 
 	// This method is only called within the context of the ENABLED (temporal)
@@ -54,11 +68,23 @@ public final class Context {
 			// one (Branch -> Empty).
 			return BaseBranch;
 		}
-		return new Context(null, null, base);
+		return new Context(null, null, base, base.slots);
 	}
 
 	public final Context cons(SymbolNode name, Object value) {
-		return new Context(name, value, this);
+		return new Context(name, value, this, this.slots | (1L << name.assignContextSlot()));
+	}
+
+	/**
+	 * @return false if var is definitely not bound in this chain.
+	 */
+	private final boolean mayContain(final SymbolNode var) {
+		if (var == null) {
+			return false;
+		}
+		final int slot = var.getContextSlot();
+		// 1L << slot shifts by slot modulo 64.
+		return slot >= 0 && (this.slots & (1L << slot)) != 0L;
 	}
 
 	/**
@@ -66,6 +92,9 @@ public final class Context {
 	 * context does not contain var.
 	 */
 	public final Object lookup(SymbolNode var) {
+		if (!mayContain(var)) {
+			return null;
+		}
 		Context cur = this;
 		// Follow the linked list of Contexts (chain) starting at this context
 		// until a Context has been reached whose name (SymbolNode) is identical
@@ -115,6 +144,9 @@ public final class Context {
 	 *         could not be found in the search along the Context "chain"
 	 */
 	public final Object lookup(final SymbolNode var, final boolean cutoff) {
+		if (!mayContain(var)) {
+			return null;
+		}
 		Context cur = this;
 		// Follow the linked list of Contexts (chain) starting at this context until a Context has been
 		// reached whose name (SymbolNode) is identical to the searched for var. Stop if the Context's
@@ -18,6 +18,8 @@ import tlc2.value.impl.RecordValue;
 import tlc2.value.impl.SetEnumValue;
 import tlc2.value.impl.StringValue;
 import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.Value;
+import tlc2.value.impl.ValueInterner;
 import util.BufferedDataInputStream;
 import util.FileUtil;
 import util.IDataInputStream;
@@ -71,16 +73,16 @@ public final class ValueInputStream implements ValueConstants, IValueInputStream
 			return new IntervalValue(this.dis.readInt(), this.dis.readInt());
 		}
 		case RECORDVALUE: {
-			return RecordValue.createFrom(this);
+			return intern(RecordValue.createFrom(this));
 		}
 		case FCNRCDVALUE: {
-			return FcnRcdValue.createFrom(this);
+			return intern(FcnRcdValue.createFrom(this));
 		}
 		case SETENUMVALUE: {
-			return SetEnumValue.createFrom(this);
+			return intern(SetEnumValue.createFrom(this));
 		}
 		case TUPLEVALUE: {
-			return TupleValue.createFrom(this);
+			return intern(TupleValue.createFrom(this));
 		}
 		case DUMMYVALUE: {
 			return (IValue) this.handles.getValue(this.readNat());
@@ -91,6 +93,17 @@ public final class ValueInputStream implements ValueConstants, IValueInputStream
 		}
 	}
 	
+	/*
+	 * The nested values have been read (and thus interned) before the value that
+	 * contains them.
+	 */
+	private static IValue intern(final IValue value) {
+		if (ValueInterner.ENABLED) {
+			return ValueInterner.internShallow((Value) value);
+		}
+		return value;
+	}
+	
 	public final IValue read(final Map<String, UniqueString> tbl) throws IOException {
 		final byte kind = this.dis.readByte();
 
@@ -111,16 +124,16 @@ public final class ValueInputStream implements ValueConstants, IValueInputStream
 			return new IntervalValue(this.dis.readInt(), this.dis.readInt());
 		}
 		case RECORDVALUE: {
-			return RecordValue.createFrom(this, tbl);
+			return intern(RecordValue.createFrom(this, tbl));
 		}
 		case FCNRCDVALUE: {
-			return FcnRcdValue.createFrom(this, tbl);
+			return intern(FcnRcdValue.createFrom(this, tbl));
 		}
 		case SETENUMVALUE: {
-			return SetEnumValue.createFrom(this, tbl);
+			return intern(SetEnumValue.createFrom(this, tbl));
 		}
 		case TUPLEVALUE: {
-			return TupleValue.createFrom(this, tbl);
+			return intern(TupleValue.createFrom(this, tbl));
 		}
 		case DUMMYVALUE: {
 			return (IValue) this.handles.getValue(this.readNat());
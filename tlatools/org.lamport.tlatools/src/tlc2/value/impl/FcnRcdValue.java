@@ -427,43 +427,14 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
 
       if (ex.idx >= ex.path.length) return ex.value;
 
-      int flen = this.values.length;
-      Value[] newValues = new Value[flen];
-      for (int i = 0; i < flen; i++) {
-        newValues[i] = this.values[i];
+      int vidx = this.indexOf(ex.path[ex.idx]);
+      if (vidx == -1) {
+        return this;
       }
-      Value arg = ex.path[ex.idx];
-
-      if (this.intv != null) {
-        // domain is represented as an integer interval:
-        if (arg instanceof IntValue) {
-          int idx = ((IntValue)arg).val;
-          if ((idx >= this.intv.low) && (idx <= this.intv.high)) {
-            int vidx = idx - this.intv.low;
-            ex.idx++;
-            newValues[idx] = this.values[vidx].takeExcept(ex);
-          }
-          return new FcnRcdValue(this.intv, newValues);
-        }
-      }
-      else {
-        // domain is represented as an array of values:
-        for (int i = 0; i < flen; i++) {
-          if (arg.equals(this.domain[i])) {
-            ex.idx++;
-            newValues[i] = newValues[i].takeExcept(ex);
-            Value[] newDomain = this.domain;
-            if (!this.isNorm) {
-              newDomain = new Value[flen];
-              for (int j = 0; j < flen; j++) {
-                newDomain[j] = this.domain[j];
-              }
-            }
-            return new FcnRcdValue(newDomain, newValues, this.isNorm);
-          }
-        }
-      }
-      return this;
+      Value[] newValues = this.values.clone();
+      ex.idx++;
+      newValues[vidx] = this.values[vidx].takeExcept(ex);
+      return this.except(newValues);
 
     }
     catch (RuntimeException | OutOfMemoryError e) {
@@ -475,11 +446,26 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value res = this;
+      // Apply all updates to a single copy of values instead of copying
+      // values once per update, unless an update does not simply replace
+      // one of the values (see takeExcept(ValueExcept)).
+      int[] vidxs = new int[exs.length];
+      for (int i = 0; i < exs.length; i++) {
+        ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length || (vidxs[i] = this.indexOf(ex.path[ex.idx])) == -1) {
+          Value res = this;
+          for (int j = 0; j < exs.length; j++) {
+            res = res.takeExcept(exs[j]);
+          }
+          return res;
+        }
+      }
+      Value[] newValues = this.values.clone();
       for (int i = 0; i < exs.length; i++) {
-        res = res.takeExcept(exs[i]);
+        exs[i].idx++;
+        newValues[vidxs[i]] = newValues[vidxs[i]].takeExcept(exs[i]);
       }
-      return res;
+      return this.except(newValues);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -487,6 +473,60 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
     }
   }
 
+  /**
+   * Returns the position of arg in values, or -1 if arg is not in the domain
+   * of this function. Unlike {@link #select(Value)}, it does not fail for
+   * arguments outside of the domain.
+   */
+  private final int indexOf(Value arg) {
+    if (this.intv != null) {
+      // domain is represented as an integer interval:
+      if (arg instanceof IntValue) {
+        int idx = ((IntValue)arg).val;
+        if ((idx >= this.intv.low) && (idx <= this.intv.high)) {
+          return idx - this.intv.low;
+        }
+      }
+      return -1;
+    }
+    // domain is represented as an array of values:
+    if (this.indexTbl == null && this.isNorm) this.createIndex();
+    if (this.indexTbl != null) {
+      int len = this.indexTbl.length;
+      int loc = (arg.hashCode() & 0x7FFFFFFF) % len;
+      while (true) {
+        int idx = this.indexTbl[loc];
+        if (idx == -1) {
+          return -1;
+        }
+        if (this.domain[idx].equals(arg)) {
+          return idx;
+        }
+        loc = (loc + 1) % len;
+      }
+    }
+    int len = this.domain.length;
+    for (int i = 0; i < len; i++) {
+      if (arg.equals(this.domain[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the function with the domain of this function that maps to
+   * newValues. A normalized domain (and its index) is shared with the new
+   * function because it is never modified again. An unnormalized domain is
+   * copied, because normalize sorts it in place.
+   */
+  private final FcnRcdValue except(Value[] newValues) {
+    if (this.isNorm) {
+      return new FcnRcdValue(this, newValues);
+    }
+    return new FcnRcdValue(this.domain.clone(), newValues, false);
+  }
+
   @Override
   public final Value getDomain() {
     try {
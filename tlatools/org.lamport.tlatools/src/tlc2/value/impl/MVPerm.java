@@ -13,7 +13,7 @@ import tlc2.value.IModelValue;
 import tlc2.value.IValue;
 
 public final class MVPerm implements IMVPerm {
-  private final ModelValue[] elems;
+  final ModelValue[] elems;
   private int count;
 
   MVPerm() {
@@ -72,6 +72,8 @@ public class MethodValue extends OpValue implements Applicable {
   @Override
   public final byte getKind() { return METHODVALUE; }
 
+  public final Method getMethod() { return this.md; }
+
   @Override
   public final IValue initialize() {
 	  this.deepNormalize();
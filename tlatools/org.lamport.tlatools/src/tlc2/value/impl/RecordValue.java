@@ -149,28 +149,16 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
   public final Value takeExcept(ValueExcept ex) {
     try {
       if (ex.idx < ex.path.length) {
-        int rlen = this.names.length;
-        Value[] newValues = new Value[rlen];
         Value arcVal = ex.path[ex.idx];
         if (arcVal instanceof StringValue) {
-          UniqueString arc = ((StringValue)arcVal).val;
-          for (int i = 0; i < rlen; i++) {
-            if (this.names[i].equals(arc)) {
-              ex.idx++;
-              newValues[i] = this.values[i].takeExcept(ex);
-            }
-            else {
-              newValues[i] = this.values[i];
-            }
+          int idx = this.indexOf(arcVal);
+          if (idx == -1) {
+            return this;
           }
-          UniqueString[] newNames = this.names;
-          if (!this.isNorm) {
-            newNames = new UniqueString[rlen];
-            for (int i = 0; i < rlen; i++) {
-              newNames[i] = this.names[i];
-            }
-          }
-          return new RecordValue(newNames, newValues, this.isNorm);
+          Value[] newValues = this.values.clone();
+          ex.idx++;
+          newValues[idx] = this.values[idx].takeExcept(ex);
+          return this.except(newValues);
         }
         else {
             MP.printWarning(EC.TLC_WRONG_RECORD_FIELD_NAME, new String[]{Values.ppr(arcVal.toString())});
@@ -187,11 +175,26 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value res = this;
+      // Apply all updates to a single copy of values instead of copying
+      // values once per update, unless an update does not simply replace
+      // one of the values (see takeExcept(ValueExcept)).
+      int[] idxs = new int[exs.length];
       for (int i = 0; i < exs.length; i++) {
-        res = res.takeExcept(exs[i]);
+        ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length || (idxs[i] = this.indexOf(ex.path[ex.idx])) == -1) {
+          Value res = this;
+          for (int j = 0; j < exs.length; j++) {
+            res = res.takeExcept(exs[j]);
+          }
+          return res;
+        }
       }
-      return res;
+      Value[] newValues = this.values.clone();
+      for (int i = 0; i < exs.length; i++) {
+        exs[i].idx++;
+        newValues[idxs[i]] = newValues[idxs[i]].takeExcept(exs[i]);
+      }
+      return this.except(newValues);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -199,6 +202,31 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
     }
   }
 
+  /* Returns the index of the field arcVal or -1 if there is none. */
+  private final int indexOf(Value arcVal) {
+    if (arcVal instanceof StringValue) {
+      UniqueString arc = ((StringValue)arcVal).val;
+      for (int i = 0; i < this.names.length; i++) {
+        if (this.names[i].equals(arc)) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the record with the fields of this record and newValues. Unless
+   * normalized, the names are copied because normalize sorts them in place.
+   */
+  private final RecordValue except(Value[] newValues) {
+    UniqueString[] newNames = this.names;
+    if (!this.isNorm) {
+      newNames = this.names.clone();
+    }
+    return new RecordValue(newNames, newValues, this.isNorm);
+  }
+
   @Override
   public final Value toRcd() {
 	  return this;
@@ -0,0 +1,531 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import tlc2.value.IMVPerm;
+import tlc2.value.IValue;
+
+/**
+ * Finds a canonical representative of a state under symmetry without applying
+ * all permutations of the symmetry group (|S1|! * |S2|! * ...) to the state.
+ * <p>
+ * The canonicalizer colors each symmetric model value with a hash of how it
+ * occurs in the state (e.g. the value a function maps it to, or the values it
+ * is mapped to in a record field) where other symmetric model values are
+ * represented by their own color instead of their name. Colors are refined
+ * until the partition of the model values into colors stabilizes (color
+ * refinement/1-WL). Because the colors do not depend on the names of the
+ * symmetric model values, they are invariant under permutations.
+ * <p>
+ * Only permutations that map the model values, ordered by color, onto the
+ * symmetry set, ordered by {@link ModelValue#index}, are applied to the state,
+ * and the lexicographically smallest outcome is the representative. Thus, if
+ * all colors are distinct, a single permutation is applied. Otherwise, the
+ * permutations of the model values with the same color (the ambiguous
+ * residues) are enumerated, unless the model values do not occur in the state
+ * or can be swapped without changing the state (in which case any order
+ * yields the same outcome).
+ * <p>
+ * The representative is, in general, not the same state that
+ * {@link tlc2.tool.TLCStateMut#fingerPrint()} finds by enumerating all
+ * permutations, but it is, too, the same for all states of an orbit. Hence,
+ * model checking finds the same number of distinct states.
+ * <p>
+ * This only works if the symmetry group is the full symmetric group of each
+ * symmetry set, i.e. the symmetry is defined with Permutations(S1) \cup
+ * Permutations(S2) \cup ... . {@link #create(IMVPerm[])} returns null
+ * otherwise. {@link #canonicalize(IValue[])} returns null if a state contains
+ * a value (such as lazily evaluated sets) whose color cannot be computed.
+ */
+public final class SymmetryCanonicalizer {
+
+	/**
+	 * The symmetry sets (orbits) with each set ordered by {@link ModelValue#index}.
+	 */
+	private final ModelValue[][] orbits;
+	/**
+	 * The first position of orbits[i] in an array of all symmetric model values.
+	 */
+	private final int[] offsets;
+	/**
+	 * {@link ModelValue#index} to position in an array of all symmetric model
+	 * values or -1 if the model value is not symmetric.
+	 */
+	private final int[] positions;
+	private final int size;
+
+	private SymmetryCanonicalizer(final ModelValue[][] orbits) {
+		this.orbits = orbits;
+		this.offsets = new int[orbits.length];
+		this.positions = new int[ModelValue.mvs.length];
+		Arrays.fill(this.positions, -1);
+		int k = 0;
+		for (int o = 0; o < orbits.length; o++) {
+			this.offsets[o] = k;
+			for (ModelValue mv : orbits[o]) {
+				this.positions[mv.index] = k++;
+			}
+		}
+		this.size = k;
+	}
+
+	/**
+	 * @return A canonicalizer for the group perms or null if perms is not the
+	 *         product of the symmetric groups of its orbits.
+	 */
+	public static SymmetryCanonicalizer create(final IMVPerm[] perms) {
+		if (perms == null || perms.length == 0 || ModelValue.mvs == null) {
+			return null;
+		}
+		// Union-find the orbits of the group.
+		final int[] parent = new int[ModelValue.mvs.length];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		final boolean[] moved = new boolean[parent.length];
+		for (IMVPerm p : perms) {
+			if (!(p instanceof MVPerm)) {
+				return null;
+			}
+			final ModelValue[] elems = ((MVPerm) p).elems;
+			for (int i = 0; i < elems.length; i++) {
+				if (elems[i] != null) {
+					moved[i] = true;
+					parent[find(parent, i)] = find(parent, elems[i].index);
+				}
+			}
+		}
+		final List<List<ModelValue>> orbits = new ArrayList<>();
+		final int[] orbitOf = new int[parent.length];
+		Arrays.fill(orbitOf, -1);
+		for (int i = 0; i < parent.length; i++) {
+			if (moved[i]) {
+				final int root = find(parent, i);
+				if (orbitOf[root] == -1) {
+					orbitOf[root] = orbits.size();
+					orbits.add(new ArrayList<>());
+				}
+				// mvs is ordered by index, thus each orbit is too.
+				orbits.get(orbitOf[root]).add(ModelValue.mvs[i]);
+			}
+		}
+		// The group is the product of the symmetric groups iff its order is the
+		// product of the factorials of the orbit sizes. perms excludes the identity.
+		long order = 1L;
+		for (List<ModelValue> orbit : orbits) {
+			for (int i = 2; i <= orbit.size(); i++) {
+				order *= i;
+				if (order > perms.length + 1L) {
+					return null;
+				}
+			}
+		}
+		if (order != perms.length + 1L) {
+			return null;
+		}
+		final ModelValue[][] res = new ModelValue[orbits.size()][];
+		for (int i = 0; i < res.length; i++) {
+			res[i] = orbits.get(i).toArray(new ModelValue[0]);
+		}
+		return new SymmetryCanonicalizer(res);
+	}
+
+	private static int find(final int[] parent, int i) {
+		while (parent[i] != i) {
+			i = parent[i] = parent[parent[i]];
+		}
+		return i;
+	}
+
+	/**
+	 * @return The canonical representative of the state with the given values
+	 *         (which might be values itself) or null if the representative cannot
+	 *         be computed by this canonicalizer.
+	 */
+	public final IValue[] canonicalize(final IValue[] values) {
+		for (int i = 0; i < values.length; i++) {
+			// Colors are computed on the normalized values: A set must not contain
+			// duplicates.
+			values[i].deepNormalize();
+		}
+
+		// Color refinement.
+		long[] colors = new long[size];
+		for (int o = 0; o < orbits.length; o++) {
+			for (int i = 0; i < orbits[o].length; i++) {
+				colors[offsets[o] + i] = mix(ORBIT, o);
+			}
+		}
+		int cells = orbits.length;
+		final int[] occurrences = new int[size];
+		try {
+			while (cells < size) {
+				final long[] acc = new long[size];
+				Arrays.fill(occurrences, 0);
+				for (int i = 0; i < values.length; i++) {
+					visit(values[i], mix(VAR, i), colors, acc, occurrences);
+				}
+				final long[] refined = new long[size];
+				for (int k = 0; k < size; k++) {
+					refined[k] = mix(colors[k], acc[k]);
+				}
+				final int refinedCells = countCells(refined);
+				colors = refined;
+				if (refinedCells == cells) {
+					break;
+				}
+				cells = refinedCells;
+			}
+		} catch (UnsupportedValueException e) {
+			return null;
+		}
+
+		// Partition each orbit into cells of equal color, ordered by color.
+		final List<int[]> ambiguous = new ArrayList<>();
+		final List<Integer> ambiguousOrbit = new ArrayList<>();
+		final List<Integer> ambiguousStart = new ArrayList<>();
+		final int[][] order = new int[orbits.length][];
+		for (int o = 0; o < orbits.length; o++) {
+			order[o] = sortByColor(o, colors);
+			int start = 0;
+			while (start < order[o].length) {
+				int end = start + 1;
+				while (end < order[o].length
+						&& colors[offsets[o] + order[o][end]] == colors[offsets[o] + order[o][start]]) {
+					end++;
+				}
+				if (end - start > 1 && occurs(o, order[o], start, end, occurrences)
+						&& !isInterchangeable(values, o, order[o], start, end)) {
+					ambiguous.add(Arrays.copyOfRange(order[o], start, end));
+					ambiguousOrbit.add(o);
+					ambiguousStart.add(start);
+				}
+				start = end;
+			}
+		}
+
+		// Apply the permutations that respect the order of the cells, enumerating the
+		// permutations of the ambiguous cells.
+		IValue[] minVals = permute(values, order);
+		if (ambiguous.isEmpty()) {
+			return minVals;
+		}
+		final int[][] cellPerms = ambiguous.toArray(new int[ambiguous.size()][]);
+		while (nextPermutation(cellPerms)) {
+			for (int c = 0; c < cellPerms.length; c++) {
+				System.arraycopy(cellPerms[c], 0, order[ambiguousOrbit.get(c)], ambiguousStart.get(c),
+						cellPerms[c].length);
+			}
+			final IValue[] vals = permute(values, order);
+			if (compare(vals, minVals) < 0) {
+				minVals = vals;
+			}
+		}
+		return minVals;
+	}
+
+	private final int countCells(final long[] colors) {
+		int cells = 0;
+		for (int o = 0; o < orbits.length; o++) {
+			final long[] c = Arrays.copyOfRange(colors, offsets[o], offsets[o] + orbits[o].length);
+			Arrays.sort(c);
+			cells++;
+			for (int i = 1; i < c.length; i++) {
+				if (c[i] != c[i - 1]) {
+					cells++;
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return The positions (within orbit o) of its model values ordered by color
+	 *         (ties broken by position which is irrelevant for the outcome).
+	 */
+	private final int[] sortByColor(final int o, final long[] colors) {
+		final int n = orbits[o].length;
+		final Integer[] pos = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			pos[i] = i;
+		}
+		Arrays.sort(pos, (a, b) -> Long.compare(colors[offsets[o] + a], colors[offsets[o] + b]));
+		final int[] res = new int[n];
+		for (int i = 0; i < n; i++) {
+			res[i] = pos[i];
+		}
+		return res;
+	}
+
+	private final boolean occurs(final int o, final int[] order, final int start, final int end,
+			final int[] occurrences) {
+		for (int i = start; i < end; i++) {
+			if (occurrences[offsets[o] + order[i]] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if swapping each pair of adjacent model values of the cell
+	 *         leaves the state unchanged. The transpositions of adjacent values
+	 *         generate the symmetric group of the cell, thus the state is
+	 *         invariant under all permutations of the cell.
+	 */
+	private final boolean isInterchangeable(final IValue[] values, final int o, final int[] order, final int start,
+			final int end) {
+		for (int i = start + 1; i < end; i++) {
+			final MVPerm swap = new MVPerm();
+			final ModelValue a = orbits[o][order[i - 1]];
+			final ModelValue b = orbits[o][order[i]];
+			swap.put(a, b);
+			swap.put(b, a);
+			for (int j = 0; j < values.length; j++) {
+				if (values[j].permute(swap).compareTo(values[j]) != 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Maps the i-th model value of order[o] to the i-th model value of orbit o.
+	 */
+	private final IValue[] permute(final IValue[] values, final int[][] order) {
+		final MVPerm perm = new MVPerm();
+		for (int o = 0; o < orbits.length; o++) {
+			for (int i = 0; i < order[o].length; i++) {
+				perm.put(orbits[o][order[o][i]], orbits[o][i]);
+			}
+		}
+		final IValue[] vals = new IValue[values.length];
+		for (int j = 0; j < values.length; j++) {
+			vals[j] = values[j].permute(perm);
+		}
+		return vals;
+	}
+
+	private static int compare(final IValue[] vals, final IValue[] minVals) {
+		for (int j = 0; j < vals.length; j++) {
+			final int cmp = vals[j].compareTo(minVals[j]);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Advances the cells to their next combination of permutations (odometer-like
+	 * with the last cell being the fastest).
+	 * 
+	 * @return false if all combinations have been enumerated.
+	 */
+	private static boolean nextPermutation(final int[][] cells) {
+		for (int c = cells.length - 1; c >= 0; c--) {
+			if (nextPermutation(cells[c])) {
+				return true;
+			}
+			// cells[c] wrapped around to its first permutation, carry on.
+		}
+		return false;
+	}
+
+	/**
+	 * Rearranges a into the lexicographically next permutation or, if a is the
+	 * last one, into the first (ascending) permutation.
+	 * 
+	 * @return false if a wrapped around.
+	 */
+	static boolean nextPermutation(final int[] a) {
+		int i = a.length - 2;
+		while (i >= 0 && a[i] >= a[i + 1]) {
+			i--;
+		}
+		if (i >= 0) {
+			int j = a.length - 1;
+			while (a[j] <= a[i]) {
+				j--;
+			}
+			swap(a, i, j);
+		}
+		for (int l = i + 1, r = a.length - 1; l < r; l++, r--) {
+			swap(a, l, r);
+		}
+		return i >= 0;
+	}
+
+	private static void swap(final int[] a, final int i, final int j) {
+		final int t = a[i];
+		a[i] = a[j];
+		a[j] = t;
+	}
+
+	/* Colors */
+
+	private static final long ORBIT = 0x1L, VAR = 0x2L, KEY = 0x3L, VAL = 0x4L, ELEM = 0x5L, MV = 0x6L, INT = 0x7L,
+			BOOL = 0x8L, STR = 0x9L, FCN = 0xAL, SET = 0xBL;
+
+	/**
+	 * Accumulates into acc the contexts in which the symmetric model values occur
+	 * in v.
+	 */
+	private final void visit(final IValue v, final long ctx, final long[] colors, final long[] acc,
+			final int[] occurrences) {
+		if (v instanceof ModelValue) {
+			final int k = position((ModelValue) v);
+			if (k >= 0) {
+				acc[k] += fmix(ctx);
+				occurrences[k]++;
+			}
+		} else if (v instanceof FcnRcdValue) {
+			final FcnRcdValue fcn = (FcnRcdValue) v;
+			for (int i = 0; i < fcn.values.length; i++) {
+				final IValue key = fcn.intv == null ? fcn.domain[i] : null;
+				final long hk = key == null ? mix(INT, fcn.intv.low + i) : hash(key, colors);
+				if (key != null) {
+					visit(key, mix(ctx, KEY, hash(fcn.values[i], colors)), colors, acc, occurrences);
+				}
+				visit(fcn.values[i], mix(ctx, VAL, hk), colors, acc, occurrences);
+			}
+		} else if (v instanceof RecordValue) {
+			final RecordValue rcd = (RecordValue) v;
+			for (int i = 0; i < rcd.values.length; i++) {
+				visit(rcd.values[i], mix(ctx, VAL, mix(STR, rcd.names[i].hashCode())), colors, acc, occurrences);
+			}
+		} else if (v instanceof TupleValue) {
+			final TupleValue tup = (TupleValue) v;
+			for (int i = 0; i < tup.elems.length; i++) {
+				visit(tup.elems[i], mix(ctx, VAL, mix(INT, i + 1)), colors, acc, occurrences);
+			}
+		} else if (v instanceof SetEnumValue) {
+			final ValueVec elems = ((SetEnumValue) v).elems;
+			final long elemCtx = mix(ctx, ELEM, elems.size());
+			for (int i = 0; i < elems.size(); i++) {
+				visit(elems.elementAt(i), elemCtx, colors, acc, occurrences);
+			}
+		} else if (!(v instanceof IntValue || v instanceof BoolValue || v instanceof StringValue
+				|| v instanceof IntervalValue)) {
+			throw UnsupportedValueException.INSTANCE;
+		}
+	}
+
+	/**
+	 * @return A hash of v that is independent of the names of the symmetric model
+	 *         values (it uses their color instead) and of the representation of v
+	 *         (e.g. a tuple and a function with the same graph hash to the same
+	 *         value).
+	 */
+	private final long hash(final IValue v, final long[] colors) {
+		if (v instanceof ModelValue) {
+			final ModelValue mv = (ModelValue) v;
+			final int k = position(mv);
+			return k >= 0 ? mix(MV, colors[k]) : mix(MV, ~mv.index);
+		} else if (v instanceof IntValue) {
+			return mix(INT, ((IntValue) v).val);
+		} else if (v instanceof BoolValue) {
+			return mix(BOOL, ((BoolValue) v).val ? 1 : 0);
+		} else if (v instanceof StringValue) {
+			return mix(STR, ((StringValue) v).val.hashCode());
+		} else if (v instanceof FcnRcdValue) {
+			final FcnRcdValue fcn = (FcnRcdValue) v;
+			long sum = 0L;
+			for (int i = 0; i < fcn.values.length; i++) {
+				final long hk = fcn.intv == null ? hash(fcn.domain[i], colors) : mix(INT, fcn.intv.low + i);
+				sum += fmix(mix(hk, hash(fcn.values[i], colors)));
+			}
+			return mix(FCN, sum);
+		} else if (v instanceof RecordValue) {
+			final RecordValue rcd = (RecordValue) v;
+			long sum = 0L;
+			for (int i = 0; i < rcd.values.length; i++) {
+				sum += fmix(mix(mix(STR, rcd.names[i].hashCode()), hash(rcd.values[i], colors)));
+			}
+			return mix(FCN, sum);
+		} else if (v instanceof TupleValue) {
+			final TupleValue tup = (TupleValue) v;
+			long sum = 0L;
+			for (int i = 0; i < tup.elems.length; i++) {
+				sum += fmix(mix(mix(INT, i + 1), hash(tup.elems[i], colors)));
+			}
+			return mix(FCN, sum);
+		} else if (v instanceof SetEnumValue) {
+			final ValueVec elems = ((SetEnumValue) v).elems;
+			long sum = 0L;
+			for (int i = 0; i < elems.size(); i++) {
+				sum += fmix(hash(elems.elementAt(i), colors));
+			}
+			return mix(SET, sum);
+		} else if (v instanceof IntervalValue) {
+			final IntervalValue intv = (IntervalValue) v;
+			long sum = 0L;
+			for (int i = intv.low; i <= intv.high; i++) {
+				sum += fmix(mix(INT, i));
+			}
+			return mix(SET, sum);
+		}
+		throw UnsupportedValueException.INSTANCE;
+	}
+
+	private final int position(final ModelValue mv) {
+		return mv.index < positions.length ? positions[mv.index] : -1;
+	}
+
+	private static long mix(final long h, final long v) {
+		return fmix(h * 0x9E3779B97F4A7C15L + v);
+	}
+
+	private static long mix(final long h, final long tag, final long v) {
+		return mix(mix(h, tag), v);
+	}
+
+	/**
+	 * The finalizer of MurmurHash3.
+	 */
+	private static long fmix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@SuppressWarnings("serial")
+	private static final class UnsupportedValueException extends RuntimeException {
+		private static final UnsupportedValueException INSTANCE = new UnsupportedValueException();
+
+		private UnsupportedValueException() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -177,18 +177,15 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
   public final Value takeExcept(ValueExcept ex) {
     try {
       if (ex.idx < ex.path.length) {
-        int tlen = this.elems.length;
-        Value[] newElems = new Value[tlen];
         Value arcVal = ex.path[ex.idx];
         if (arcVal instanceof IntValue) {
-          int idx = ((IntValue)arcVal).val - 1;
-          if (0 <= idx && idx < tlen) {
-            for (int i = 0; i < tlen; i++) {
-              newElems[i] = this.elems[i];
-            }
-            ex.idx++;
-            newElems[idx] = this.elems[idx].takeExcept(ex);
+          int idx = this.indexOf(arcVal);
+          if (idx == -1) {
+            return this;
           }
+          Value[] newElems = this.elems.clone();
+          ex.idx++;
+          newElems[idx] = this.elems[idx].takeExcept(ex);
           return new TupleValue(newElems);
         }
         MP.printWarning(EC.TLC_WRONG_TUPLE_FIELD_NAME, new String[]{Values.ppr(arcVal.toString())});
@@ -204,11 +201,26 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value val = this;
+      // Apply all updates to a single copy of elems instead of copying elems
+      // once per update, unless an update does not simply replace one of the
+      // elements (see takeExcept(ValueExcept)).
+      int[] idxs = new int[exs.length];
       for (int i = 0; i < exs.length; i++) {
-        val = val.takeExcept(exs[i]);
+        ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length || (idxs[i] = this.indexOf(ex.path[ex.idx])) == -1) {
+          Value val = this;
+          for (int j = 0; j < exs.length; j++) {
+            val = val.takeExcept(exs[j]);
+          }
+          return val;
+        }
+      }
+      Value[] newElems = this.elems.clone();
+      for (int i = 0; i < exs.length; i++) {
+        exs[i].idx++;
+        newElems[idxs[i]] = newElems[idxs[i]].takeExcept(exs[i]);
       }
-      return val;
+      return new TupleValue(newElems);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -216,6 +228,17 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
     }
   }
 
+  /* Returns the (zero-based) index of arcVal in elems or -1 if there is none. */
+  private final int indexOf(Value arcVal) {
+    if (arcVal instanceof IntValue) {
+      int idx = ((IntValue)arcVal).val - 1;
+      if (0 <= idx && idx < this.elems.length) {
+        return idx;
+      }
+    }
+    return -1;
+  }
+
   @Override
   public final Value getDomain() {
     try {
@@ -47,6 +47,26 @@ public class ValueExcept {
 
   public final Value  current() { return this.path[this.idx]; }
 
+  /**
+   * Returns false iff this.path and lhs are known to differ at a position
+   * where both have a key. Taking one of the two excepts then neither
+   * changes nor depends on the value the other one selects. Only integer
+   * and string keys are compared because equals fails for some pairs of
+   * other keys, e.g. differently-typed model values.
+   */
+  public final boolean overlaps(Value[] lhs) {
+    int len = Math.min(this.path.length, lhs.length);
+    for (int i = 0; i < len; i++) {
+      Value k1 = this.path[i];
+      Value k2 = lhs[i];
+      if ((k1 instanceof IntValue && k2 instanceof IntValue) ||
+          (k1 instanceof StringValue && k2 instanceof StringValue)) {
+        if (!k1.equals(k2)) return false;
+      }
+    }
+    return true;
+  }
+
   public final boolean isLast() {
     return this.idx == (this.path.length - 1);
   }
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   agent - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import tlc2.util.FP64;
+
+/**
+ * A weak, lossy interning table for (normalized) functions, records, tuples,
+ * and sets. Structurally identical values of different states are replaced by
+ * a single canonical instance, which is then shared by the states in the state
+ * queue, in sets of states and in the liveness caches.
+ * <p>
+ * The table is direct-mapped: A value's slot is determined by its fingerprint,
+ * and the value in the slot is only returned if its fingerprint matches and it
+ * is equal to the given one. A value that maps to an occupied slot replaces
+ * the value in the slot. The table only holds weak references, thus interned
+ * values that are no longer part of any state can be garbage collected.
+ * <p>
+ * Interning is disabled by default (see {@link #ENABLED}).
+ */
+public final class ValueInterner {
+
+	public static final boolean ENABLED = Boolean.getBoolean(ValueInterner.class.getName() + ".enabled");
+
+	private static final int SIZE = Integer.highestOneBit(
+			Math.max(1, Integer.getInteger(ValueInterner.class.getName() + ".size", 1 << 20)));
+
+	private static final AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(SIZE);
+
+	private static final LongAdder hits = new LongAdder();
+	private static final LongAdder misses = new LongAdder();
+
+	private ValueInterner() {
+		// no instantiation!
+	}
+
+	/**
+	 * @return The canonical instance of value and - if value itself becomes the
+	 *         canonical instance - interns the nested functions, records, tuples
+	 *         and sets of value first. Other kinds of values are returned as is.
+	 */
+	public static Value intern(final Value value) {
+		if (!isInternable(value)) {
+			return value;
+		}
+		final long fp = value.fingerPrint(FP64.New());
+		final int idx = index(fp);
+		final Value canonical = lookup(idx, fp, value);
+		if (canonical != null) {
+			return canonical;
+		}
+		internNested(value);
+		table.set(idx, new Entry(fp, value));
+		return value;
+	}
+
+	/**
+	 * Like {@link #intern(Value)} but does not intern the values nested in value,
+	 * e.g. because they are known to be canonical instances already.
+	 */
+	public static Value internShallow(final Value value) {
+		if (!isInternable(value)) {
+			return value;
+		}
+		final long fp = value.fingerPrint(FP64.New());
+		final int idx = index(fp);
+		final Value canonical = lookup(idx, fp, value);
+		if (canonical != null) {
+			return canonical;
+		}
+		table.set(idx, new Entry(fp, value));
+		return value;
+	}
+
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Empties the table and resets the statistics.
+	 */
+	public static void clear() {
+		for (int i = 0; i < SIZE; i++) {
+			table.set(i, null);
+		}
+		hits.reset();
+		misses.reset();
+	}
+
+	private static boolean isInternable(final Value value) {
+		return value instanceof FcnRcdValue || value instanceof RecordValue || value instanceof TupleValue
+				|| value instanceof SetEnumValue;
+	}
+
+	private static int index(final long fp) {
+		return FP64.Hash(fp) & (SIZE - 1);
+	}
+
+	private static Value lookup(final int idx, final long fp, final Value value) {
+		final Entry entry = table.get(idx);
+		if (entry != null && entry.fp == fp) {
+			final Value canonical = entry.get();
+			if (canonical != null && (canonical == value || canonical.equals(value))) {
+				hits.increment();
+				return canonical;
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/*
+	 * Replaces the elements of value with their canonical (equal) instances. Other
+	 * threads might concurrently read value, but an element is only ever replaced
+	 * by an equal one. Sets have been normalized by fingerprinting, which does not
+	 * change the order of their elements.
+	 */
+	private static void internNested(final Value value) {
+		if (value instanceof FcnRcdValue) {
+			internAll(((FcnRcdValue) value).values);
+		} else if (value instanceof RecordValue) {
+			internAll(((RecordValue) value).values);
+		} else if (value instanceof TupleValue) {
+			internAll(((TupleValue) value).elems);
+		} else if (value instanceof SetEnumValue) {
+			final ValueVec elems = ((SetEnumValue) value).elems;
+			for (int i = 0; i < elems.size(); i++) {
+				elems.setElementAt(intern(elems.elementAt(i)), i);
+			}
+		}
+	}
+
+	private static void internAll(final Value[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = intern(values[i]);
+		}
+	}
+
+	private static final class Entry extends WeakReference<Value> {
+
+		private final long fp;
+
+		Entry(final long fp, final Value value) {
+			super(value);
+			this.fp = fp;
+		}
+	}
+}
@@ -149,14 +149,38 @@ public final class InternTable implements Serializable
     }
 
     public void beginChkpt(String filename) throws IOException
+    {
+        this.beginChkpt(filename, this.snapshot());
+    }
+
+    /**
+     * Captures the token counter and the UniqueStrings interned so far, which
+     * {@link #beginChkpt(String, Snapshot)} writes later. Other threads may
+     * intern strings concurrently.
+     */
+    public Snapshot snapshot()
+    {
+        synchronized (InternTable.class)
+        {
+            UniqueString[] vars = new UniqueString[this.count];
+            int idx = 0;
+            for (int i = 0; i < this.table.length; i++)
+            {
+                UniqueString var = this.table[i];
+                if (var != null)
+                    vars[idx++] = var;
+            }
+            return new Snapshot(this.tokenCnt, vars);
+        }
+    }
+
+    public void beginChkpt(String filename, Snapshot snapshot) throws IOException
     {
         BufferedDataOutputStream dos = new BufferedDataOutputStream(this.chkptName(filename, "tmp"));
-        dos.writeInt(tokenCnt);
-        for (int i = 0; i < this.table.length; i++)
+        dos.writeInt(snapshot.tokenCnt);
+        for (int i = 0; i < snapshot.vars.length; i++)
         {
-            UniqueString var = this.table[i];
-            if (var != null)
-                var.write(dos);
+            snapshot.vars[i].write(dos);
         }
         dos.close();
     }
@@ -220,4 +244,19 @@ public final class InternTable implements Serializable
 		}
 		return map;
 	}
+
+    /**
+     * The content of the table at the time of {@link InternTable#snapshot()}.
+     */
+    public static final class Snapshot
+    {
+        private final int tokenCnt;
+        private final UniqueString[] vars;
+
+        private Snapshot(int tokenCnt, UniqueString[] vars)
+        {
+            this.tokenCnt = tokenCnt;
+            this.vars = vars;
+        }
+    }
 }